@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.benchmarks;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.Event;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.MessageParser;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.CodeCommitMessageParser;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.CodeCommitStreamingMessageParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * {@link CodeCommitMessageParser#parseMessage(Message)} and its streaming replacement on recorded payloads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodeCommitMessageParserBenchmark {
+
+    @Param({"gson", "streaming"})
+    public String parser;
+
+    @Param({Payloads.PUSH, Payloads.ISSUE_54})
+    public String payload;
+
+    private MessageParser messageParser;
+    private Message message;
+
+    @Setup
+    public void setUp() {
+        final MessageParser gson = new CodeCommitMessageParser();
+        this.messageParser = "gson".equals(this.parser) ? gson : new CodeCommitStreamingMessageParser(gson);
+        this.message = Payloads.message(this.payload);
+
+        if (this.messageParser.parseMessage(this.message).isEmpty()) {
+            throw new IllegalStateException("Payload " + this.payload + " has no events");
+        }
+    }
+
+    @Benchmark
+    public List<Event> parseMessage() {
+        return this.messageParser.parseMessage(this.message);
+    }
+}
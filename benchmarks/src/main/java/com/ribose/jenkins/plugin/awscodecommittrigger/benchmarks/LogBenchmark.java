@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.benchmarks;
+
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.Log;
+import hudson.model.Job;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.ClassUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * {@link Log} writes as done on the receive path: a debug message below the logger level, which should be
+ * nearly free, and an info message that is published, to the logger only or to an activity stream too.
+ * <p>
+ * {@link #debugDisabledEager()} formats like {@link Log} did before checking the level, as reference for the
+ * saving of the level check.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogBenchmark {
+
+    private Log log;
+    private Log streamLog;
+    private Logger logger;
+    private Level level;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.log = Log.get(LogBenchmark.class);
+        this.streamLog = Log.get(LogBenchmark.StreamLog.class, new PrintStream(new NullOutputStream()), true);
+
+        // nothing should reach the console, handlers of the root logger are not used
+        this.logger = this.log.getLogger();
+        this.level = this.logger.getLevel();
+        this.logger.setLevel(Level.INFO);
+        this.logger.setUseParentHandlers(false);
+        this.streamLog.getLogger().setLevel(Level.INFO);
+        this.streamLog.getLogger().setUseParentHandlers(false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.logger.setLevel(this.level);
+    }
+
+    @Benchmark
+    public void debugDisabled() {
+        this.log.debug("Events size: %d, repositories size: %d", 1, 10);
+    }
+
+    @Benchmark
+    public void debugDisabledWithJob() {
+        this.log.debug("Do match against %d events, message: %s", (Job) null, 1, "1f094d1f-cc33-556b-a471-1ca3e3a1170c");
+    }
+
+    @Benchmark
+    public void debugDisabledManyArgs() {
+        this.log.debug("Queue %s, messages %d, listeners %d, jobs %d", "queue", 10, 2, 3);
+    }
+
+    @Benchmark
+    public void debugDisabledEager() {
+        final String source = "[" + ClassUtils.getAbbreviatedName(LogBenchmark.class, 1) + "]"
+            + "[thread-" + String.format("%06X", Thread.currentThread().getId()) + "]";
+        final String message = "[DEBUG] " + String.format("Events size: %d, repositories size: %d", 1, 10);
+        this.logger.logp(Level.CONFIG, source, "", message);
+    }
+
+    @Benchmark
+    public void info() {
+        this.log.info("Retrieved message-id: %s", "1f094d1f-cc33-556b-a471-1ca3e3a1170c");
+    }
+
+    @Benchmark
+    public void infoToStream() {
+        this.streamLog.info("Retrieved message-id: %s", "1f094d1f-cc33-556b-a471-1ca3e3a1170c");
+    }
+
+    // own logger name so the stream handler is not shared with the other benchmarks
+    private static final class StreamLog {
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.benchmarks;
+
+import com.amazonaws.services.sqs.model.Message;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+
+/**
+ * Recorded CodeCommit notifications, as delivered to the queue by SNS.
+ */
+final class Payloads {
+
+    /** A push of one branch. */
+    static final String PUSH = "sqsmsg.json";
+
+    /** A push of one branch from issue #54, the record carries no custom data. */
+    static final String ISSUE_54 = "issue_54.json";
+
+    private Payloads() {
+    }
+
+    static String read(final String name) {
+        try (InputStream in = Payloads.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No payload " + name);
+            }
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read payload " + name, e);
+        }
+    }
+
+    static Message message(final String name) {
+        return new Message()
+            .withMessageId(UUID.randomUUID().toString())
+            .withReceiptHandle(UUID.randomUUID().toString())
+            .withBody(read(name));
+    }
+}
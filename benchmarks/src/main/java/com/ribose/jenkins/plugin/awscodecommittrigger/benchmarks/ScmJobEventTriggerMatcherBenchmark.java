@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.benchmarks;
+
+import com.ribose.jenkins.plugin.awscodecommittrigger.SQSTrigger;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.Event;
+import com.ribose.jenkins.plugin.awscodecommittrigger.matchers.impl.ScmJobEventTriggerMatcher;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.CodeCommitMessageParser;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.SQSJob;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.ScmMatchPlan;
+import hudson.model.Action;
+import hudson.model.Cause;
+import hudson.model.Job;
+import hudson.model.TaskListener;
+import hudson.plugins.git.GitSCM;
+import hudson.scm.PollingResult;
+import hudson.scm.SCM;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * {@link ScmJobEventTriggerMatcher#matches(List, SQSJob)} for jobs subscribed to a growing number of
+ * repositories, with the event matching the last subscribed repository or none of them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScmJobEventTriggerMatcherBenchmark {
+
+    // region and repository of the recorded push
+    private static final String MATCHED_URL = "https://git-codecommit.us-east-1.amazonaws.com/v1/repos/cicd-mgmt";
+
+    @Param({"1", "10", "100"})
+    public int scmCount;
+
+    @Param({"true", "false"})
+    public boolean matching;
+
+    private final ScmJobEventTriggerMatcher matcher = new ScmJobEventTriggerMatcher();
+    private List<Event> events;
+    private SQSJob job;
+
+    @Setup
+    public void setUp() {
+        this.events = new CodeCommitMessageParser().parseMessage(Payloads.message(Payloads.PUSH));
+
+        final List<SCM> scms = new ArrayList<>(this.scmCount);
+        for (int i = 1; i < this.scmCount; i++) {
+            scms.add(new GitSCM("https://git-codecommit.us-east-1.amazonaws.com/v1/repos/repository-" + i));
+        }
+        scms.add(new GitSCM(this.matching ? MATCHED_URL : "https://git-codecommit.us-west-2.amazonaws.com/v1/repos/cicd-mgmt"));
+        this.job = new PlannedJob(scms);
+
+        if (this.matcher.matches(this.events, this.job) != this.matching) {
+            throw new IllegalStateException("Unexpected match result for " + this.scmCount + " SCMs");
+        }
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return this.matcher.matches(this.events, this.job);
+    }
+
+    /**
+     * A job outside of Jenkins, only its match plan is used by the matcher.
+     */
+    private static final class PlannedJob implements SQSJob {
+
+        private final List<SCM> scms;
+        private final ScmMatchPlan plan;
+
+        private PlannedJob(final List<SCM> scms) {
+            this.scms = scms;
+            this.plan = ScmMatchPlan.compile(scms);
+        }
+
+        @Override
+        public List<SCM> getScmList() {
+            return this.scms;
+        }
+
+        @Override
+        public SQSTrigger getTrigger() {
+            return null;
+        }
+
+        @Override
+        public <J extends Job> J getJenkinsJob() {
+            return null;
+        }
+
+        @Override
+        public boolean scheduleBuild(final Cause cause, final Action... actions) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PollingResult poll(final TaskListener listener) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ScmMatchPlan getMatchPlan() {
+            return this.plan;
+        }
+
+        @Override
+        public void invalidateMatchPlan() {
+        }
+
+        @Override
+        public boolean refreshMatchPlan() {
+            return false;
+        }
+    }
+}
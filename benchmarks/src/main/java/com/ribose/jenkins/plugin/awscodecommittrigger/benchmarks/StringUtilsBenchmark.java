@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.benchmarks;
+
+import com.ribose.jenkins.plugin.awscodecommittrigger.utils.StringUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The regex helpers of {@link StringUtils} used when receiving messages and matching repositories.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StringUtilsBenchmark {
+
+    private static final String QUEUE_URL = "https://sqs.us-west-2.amazonaws.com/239062223385/testjenkins-queue";
+    private static final String CODE_COMMIT_URL = "https://git-codecommit.us-east-1.amazonaws.com/v1/repos/cicd-mgmt";
+    private static final String CSV = "refs/heads/master, 'refs/heads/release-*', \"refs/tags/v*\"";
+
+    private String body;
+
+    @Setup
+    public void setUp() {
+        this.body = Payloads.read(Payloads.PUSH);
+    }
+
+    @Benchmark
+    public String findByUniqueJsonKey() {
+        return StringUtils.findByUniqueJsonKey(this.body, "MessageId");
+    }
+
+    @Benchmark
+    public String getSqsQueueName() {
+        return StringUtils.getSqsQueueName(QUEUE_URL);
+    }
+
+    @Benchmark
+    public String getCodeCommitRepoName() {
+        return StringUtils.getCodeCommitRepoName(CODE_COMMIT_URL);
+    }
+
+    @Benchmark
+    public boolean isCodeCommitRepo() {
+        return StringUtils.isCodeCommitRepo(CODE_COMMIT_URL);
+    }
+
+    @Benchmark
+    public List<String> parseCsvString() {
+        return StringUtils.parseCsvString(CSV);
+    }
+}
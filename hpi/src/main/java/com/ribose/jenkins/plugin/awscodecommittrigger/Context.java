@@ -20,14 +20,18 @@ import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.ribose.jenkins.plugin.awscodecommittrigger.factories.*;
 import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.*;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.MessageIndex;
 import com.ribose.jenkins.plugin.awscodecommittrigger.matchers.EventTriggerMatcherImpl;
+import com.ribose.jenkins.plugin.awscodecommittrigger.metrics.MetricsRegistry;
 import com.ribose.jenkins.plugin.awscodecommittrigger.model.SQSQueueProviderImpl;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.RepositoryIndex;
 import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.SQSJobFactory;
 import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.impl.SQSJobFactoryImpl;
 import com.ribose.jenkins.plugin.awscodecommittrigger.net.RequestFactory;
 import com.ribose.jenkins.plugin.awscodecommittrigger.net.RequestFactoryImpl;
 import com.ribose.jenkins.plugin.awscodecommittrigger.threading.ExecutorProviderImpl;
 import com.ribose.jenkins.plugin.awscodecommittrigger.threading.SQSQueueMonitorSchedulerImpl;
+import com.ribose.jenkins.plugin.awscodecommittrigger.threading.ScmPollLimiterImpl;
 import jenkins.model.Jenkins;
 
 import java.util.concurrent.ExecutorService;
@@ -58,13 +62,26 @@ public class Context extends com.google.inject.AbstractModule {
             .in(com.google.inject.Singleton.class);
 
         this.bind(SQSExecutorFactory.class)
-            .to(SQSExecutorFactoryImpl.class)
+            .to(VirtualThreadExecutorFactory.class)
             .in(com.google.inject.Singleton.class);
 
         this.bind(ExecutorProvider.class)
             .to(ExecutorProviderImpl.class)
             .in(com.google.inject.Singleton.class);
 
+        this.bind(MetricsRegistry.class)
+            .in(com.google.inject.Singleton.class);
+
+        this.bind(MessageIndex.class)
+            .in(com.google.inject.Singleton.class);
+
+        this.bind(RepositoryIndex.class)
+            .in(com.google.inject.Singleton.class);
+
+        this.bind(ScmPollLimiter.class)
+            .to(ScmPollLimiterImpl.class)
+            .in(com.google.inject.Singleton.class);
+
         this.bind(ExecutorService.class)
             .toProvider(ExecutorProvider.class)
             .in(com.google.inject.Singleton.class);
@@ -1,41 +1,44 @@
 package com.ribose.jenkins.plugin.awscodecommittrigger;
 
 import com.ribose.jenkins.plugin.awscodecommittrigger.exception.UnexpectedException;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.ActivityAppender;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.ActivityFiles;
 import com.ribose.jenkins.plugin.awscodecommittrigger.logging.Log;
 import hudson.model.Action;
 import hudson.model.Job;
 import hudson.util.FormValidation;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.comparator.NameFileComparator;
-import org.apache.commons.lang.time.FastDateFormat;
 import org.apache.http.HttpStatus;
 import org.kohsuke.stapler.Stapler;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.framework.io.LargeText;
 import org.kohsuke.stapler.interceptor.RespondSuccess;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import javax.servlet.ServletException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Date;
+import java.nio.charset.Charset;
 import java.util.List;
 
 
 public class SQSActivityAction implements Action {
 
     private static final Log log = Log.get(SQSActivityAction.class);
-    private static final FastDateFormat df = FastDateFormat.getInstance("yyyyMMdd");
+
+    public static final int NAMES_PER_PAGE = 30;
+    public static final int LINES_PER_PAGE = 500;
+    public static final long TAIL_BYTES = 64 * 1024;
 
     private final transient Job job;
     private final transient File activityDir;
 
     public SQSActivityAction(Job job) {
         this.job = job;
-        this.activityDir = new File(this.job.getRootDir(), ".activity");
+        this.activityDir = getActivityDir(job);
         if (!this.activityDir.exists() && !this.activityDir.mkdirs()) {
             log.error("Unable to create trigger activity dir %s", this.activityDir.getPath());
         }
@@ -63,16 +66,60 @@ public class SQSActivityAction implements Action {
         return activityDir;
     }
 
+    /**
+     * @return The activity dir of the job, without creating it.
+     */
+    public static File getActivityDir(Job job) {
+        return new File(job.getRootDir(), ".activity");
+    }
+
+    /**
+     * @return The number of the page of log names requested, from 0.
+     */
+    public int getListPage() {
+        return Math.max(getNumber(Stapler.getCurrentRequest().getParameter("page")), 0);
+    }
+
+    public int getListPageCount() {
+        return (this.getAppender().getLogNames().size() + NAMES_PER_PAGE - 1) / NAMES_PER_PAGE;
+    }
+
+    /**
+     * @return The names of the log files and archives on the requested page, latest day first.
+     */
     public List<String> getLogNames() {
-        List<String> names = new ArrayList<>();
-        File[] files = this.activityDir.listFiles();
-        if (files != null) {
-            Arrays.sort(files, NameFileComparator.NAME_REVERSE);
-            for (File file : files) {
-                names.add(file.getName());
-            }
+        List<String> names = this.getAppender().getLogNames();
+        int from = Math.min(this.getListPage() * NAMES_PER_PAGE, names.size());
+        return names.subList(from, Math.min(from + NAMES_PER_PAGE, names.size()));
+    }
+
+    /**
+     * @return The offset the live tail of the activity log of today starts at, the last {@value #TAIL_BYTES}
+     * bytes at most.
+     */
+    public long getTailOffset() throws IOException {
+        return ActivityFiles.getTailOffset(this.getActivityLogFile(), TAIL_BYTES);
+    }
+
+    /**
+     * Serves the live tail of the activity log of today, progressively from the offset requested.
+     */
+    public void doTail(StaplerRequest request, StaplerResponse response) throws IOException {
+        new LargeText(this.getActivityLogFile(), Charset.forName("UTF-8"), false).doProgressText(request, response);
+    }
+
+    /**
+     * @return The page of lines requested by the {@code name} and {@code line} parameters, read from the archive
+     * of the file once its day is archived, {@code null} if there is no such file.
+     */
+    @CheckForNull
+    public ActivityFiles.Page readLines() throws IOException {
+        StaplerRequest request = Stapler.getCurrentRequest();
+        File file = ActivityFiles.resolve(this.activityDir, request.getParameter("name"));
+        if (file == null) {
+            return null;
         }
-        return names;
+        return ActivityFiles.read(file, Math.max(getNumber(request.getParameter("line")), 0), LINES_PER_PAGE);
     }
 
     @RespondSuccess
@@ -80,9 +127,9 @@ public class SQSActivityAction implements Action {
         StaplerRequest request = Stapler.getCurrentRequest();
         StaplerResponse response = Stapler.getCurrentResponse();
 
-        String name = request.getRestOfPath();
-        File file = new File(this.activityDir.getPath() + "/" + name);
-        if (file.exists()) {
+        String name = org.apache.commons.lang3.StringUtils.removeStart(request.getRestOfPath(), "/");
+        File file = new File(this.activityDir, name);
+        if (ActivityFiles.isLogName(name) && file.exists()) {
             FileInputStream is = FileUtils.openInputStream(file);
             response.serveFile(request, is, 0L, 60_000L, file.length(), name);
         } else {
@@ -96,6 +143,7 @@ public class SQSActivityAction implements Action {
     }
 
     public FormValidation doClear() {
+        this.getAppender().reset();
         try {
             FileUtils.cleanDirectory(this.activityDir);
         } catch (IOException e) {
@@ -104,10 +152,16 @@ public class SQSActivityAction implements Action {
         return FormValidation.ok("Done. Please refresh the page.");
     }
 
+    /**
+     * @return The appender writing the activity log of the job.
+     */
+    public ActivityAppender getAppender() {
+        return ActivityAppender.get(this.activityDir);
+    }
+
     public File getActivityLogFile() {
-        String date = df.format(new Date());
-        String logPath = String.format("%s/activities-on-%s.log", this.getActivityDir().getPath(), date);
-        File logFile = new File(logPath);
+        File logFile = this.getAppender().getFile(System.currentTimeMillis());
+        String logPath = logFile.getPath();
         if (!logFile.exists()) {
             try {
                 FileUtils.write(logFile, "", "UTF-8");
@@ -117,4 +171,12 @@ public class SQSActivityAction implements Action {
         }
         return logFile;
     }
+
+    private static int getNumber(String value) {
+        try {
+            return value == null ? 0 : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
 }
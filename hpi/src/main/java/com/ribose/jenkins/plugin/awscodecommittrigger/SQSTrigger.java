@@ -28,13 +28,24 @@ import com.ribose.jenkins.plugin.awscodecommittrigger.credentials.StandardAwsCre
 import com.ribose.jenkins.plugin.awscodecommittrigger.exception.UnexpectedException;
 import com.ribose.jenkins.plugin.awscodecommittrigger.i18n.sqstrigger.Messages;
 import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.*;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.ExecutorProvider.Stage;
 import com.ribose.jenkins.plugin.awscodecommittrigger.logging.Log;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.MessageIndex;
+import com.ribose.jenkins.plugin.awscodecommittrigger.metrics.Histogram;
+import com.ribose.jenkins.plugin.awscodecommittrigger.metrics.MetricsRegistry;
+import com.ribose.jenkins.plugin.awscodecommittrigger.metrics.QueueMetrics;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.entities.ParsedMessage;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.entities.UnfinishedTrigger;
 import com.ribose.jenkins.plugin.awscodecommittrigger.model.events.ConfigurationChangedEvent;
 import com.ribose.jenkins.plugin.awscodecommittrigger.model.events.EventBroker;
 import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.RepoInfo;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.RepositoryIndex;
 import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.SQSJob;
 import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.SQSJobFactory;
+import com.ribose.jenkins.plugin.awscodecommittrigger.threading.KeyedLaneExecutor;
 import hudson.Extension;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
 import hudson.model.AbstractProject;
 import hudson.model.Action;
 import hudson.model.Item;
@@ -47,12 +58,14 @@ import hudson.util.ListBoxModel;
 import hudson.util.Secret;
 import hudson.util.SequentialExecutionQueue;
 import jenkins.model.Jenkins;
+import jenkins.util.Timer;
 import net.sf.json.JSONObject;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.Predicate;
 import org.apache.commons.lang3.StringUtils;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.StaplerRequest;
 
@@ -60,17 +73,22 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 public class SQSTrigger extends Trigger<Job<?, ?>> implements SQSQueueListener {
 
     private static final Log log = Log.get(SQSTrigger.class);
 
+    public static final int DEBOUNCE_SECONDS_MIN = 0;
+    public static final int DEBOUNCE_SECONDS_MAX = 300;
+
     private String queueUuid;
     private List<SQSScmConfig> sqsScmConfigs;
     private boolean subscribeInternalScm;
+    private int debounceSeconds;
 
     @Inject
     private transient SQSQueueMonitorScheduler scheduler;
@@ -85,10 +103,24 @@ public class SQSTrigger extends Trigger<Job<?, ?>> implements SQSQueueListener {
     private transient SQSJobFactory sqsJobFactory;
 
     @Inject
-    private transient ExecutorService executor;
+    private transient ExecutorProvider executorProvider;
+
+    @Inject
+    private transient ScmPollLimiter pollLimiter;
+
+    @Inject
+    private transient MetricsRegistry metricsRegistry;
+
+    @Inject
+    private transient MessageIndex messageIndex;
+
+    @Inject
+    private transient RepositoryIndex repositoryIndex;
 
     private transient SQSJob sqsJob;
     private transient List<SQSActivityAction> actions;
+    private transient AtomicReference<PendingTrigger> pendingTrigger;
+    private transient volatile MatchLatency matchLatency;
 
     @DataBoundConstructor
     public SQSTrigger(final String queueUuid, boolean subscribeInternalScm, final List<SQSScmConfig> sqsScmConfigs) {
@@ -97,6 +129,19 @@ public class SQSTrigger extends Trigger<Job<?, ?>> implements SQSQueueListener {
         this.subscribeInternalScm = subscribeInternalScm;
     }
 
+    /**
+     * @param debounceSeconds Seconds to wait after a matched message for more messages, all of them are then
+     *                        triggered by one poll. <code>0</code> triggers every message on its own.
+     */
+    @DataBoundSetter
+    public void setDebounceSeconds(final int debounceSeconds) {
+        this.debounceSeconds = Math.max(DEBOUNCE_SECONDS_MIN, Math.min(DEBOUNCE_SECONDS_MAX, debounceSeconds));
+    }
+
+    public int getDebounceSeconds() {
+        return this.debounceSeconds;
+    }
+
     public Collection<? extends Action> getProjectActions() {
         if (this.job != null && CollectionUtils.isEmpty(this.actions)) {
             this.actions = Collections.singletonList(new SQSActivityAction(this.job));
@@ -112,6 +157,9 @@ public class SQSTrigger extends Trigger<Job<?, ?>> implements SQSQueueListener {
         Context.injector().injectMembers(this);
         log.debug("Job is AbstractProject? %s or WorkflowJob? %s", this.job, job instanceof AbstractProject, job instanceof WorkflowJob);
         this.sqsJob = this.sqsJobFactory.createSqsJob(this.job, this);
+        if (this.pendingTrigger == null) {
+            this.pendingTrigger = new AtomicReference<>();
+        }
     }
 
     @Override
@@ -119,8 +167,14 @@ public class SQSTrigger extends Trigger<Job<?, ?>> implements SQSQueueListener {
         super.start(job, newInstance);
 
         loadSqsJob();
+        this.updateRepositoryIndex();
 
         final DescriptorImpl descriptor = (DescriptorImpl) this.getDescriptor();
+        if (descriptor.deferRegistration(this)) {
+            log.debug("Defer registration until all jobs are loaded", this.job);
+            return;
+        }
+
         descriptor.queue.execute(new Runnable() {
 
             @Override
@@ -134,8 +188,13 @@ public class SQSTrigger extends Trigger<Job<?, ?>> implements SQSQueueListener {
     @Override
     public void stop() {
         super.stop();
+        this.removeFromRepositoryIndex();
 
         final DescriptorImpl descriptor = (DescriptorImpl) this.getDescriptor();
+        if (descriptor.cancelRegistration(this)) {
+            return;
+        }
+
         descriptor.queue.execute(new Runnable() {
 
             @Override
@@ -148,10 +207,21 @@ public class SQSTrigger extends Trigger<Job<?, ?>> implements SQSQueueListener {
 
     @Override
     public List<Message> handleMessages(final List<Message> messages) {
-        List<Message> proceedMessages = new ArrayList<>();
+        List<ParsedMessage> parsedMessages = new ArrayList<>(messages.size());
         for (final Message message : messages) {
+            log.debug("Parse message: %s", this.job, message.getBody());
+            final MessageParser parser = this.messageParserFactory.createParser(message);
+            parsedMessages.add(new ParsedMessage(message, parser.parseMessage(message)));
+        }
+        return this.handleParsedMessages(parsedMessages);
+    }
+
+    @Override
+    public List<Message> handleParsedMessages(final List<ParsedMessage> messages) {
+        List<Message> proceedMessages = new ArrayList<>();
+        for (final ParsedMessage message : messages) {
             if (this.handleMessage(message)) {
-                proceedMessages.add(message);
+                proceedMessages.add(message.getMessage());
             }
         }
         return proceedMessages;
@@ -162,6 +232,86 @@ public class SQSTrigger extends Trigger<Job<?, ?>> implements SQSQueueListener {
         return this.queueUuid;
     }
 
+    @Override
+    public String getName() {
+        return this.job == null ? null : this.job.getFullName();
+    }
+
+    @Override
+    public Collection<String> getRepositoryKeys() {
+        if (this.sqsJob == null) {
+            return null;
+        }
+
+        if (this.job instanceof WorkflowJob && this.isSubscribedInternalScm()) {
+            return null;//pipeline SCMs come from the last build and may change without re-registration
+        }
+
+        return this.sqsJob.getMatchPlan().getRepositoryKeys();
+    }
+
+    /**
+     * Drop the compiled match plan of this trigger's job, called when the job or its SCMs change.
+     */
+    public void invalidateMatchPlan() {
+        this.matchLatency = null;//the job may be renamed
+        if (this.sqsJob != null) {
+            this.sqsJob.invalidateMatchPlan();
+            this.updateRepositoryIndex();
+        }
+    }
+
+    /**
+     * Compile the match plan of a pipeline job again after a build, its SCMs come from the last build. Jobs of other
+     * types and pipelines subscribed to external SCMs only are not affected by builds.
+     * @return {@code true} if the plan changed.
+     */
+    public boolean refreshMatchPlan() {
+        if (this.sqsJob == null || !(this.job instanceof WorkflowJob) || !this.isSubscribedInternalScm()) {
+            return false;
+        }
+
+        if (!this.sqsJob.refreshMatchPlan()) {
+            return false;
+        }
+        this.updateRepositoryIndex();
+        return true;
+    }
+
+    /**
+     * Add this trigger to the {@link RepositoryIndex} or replace its entries, with the repositories and branches of
+     * its current match plan.
+     */
+    public void updateRepositoryIndex() {
+        if (this.repositoryIndex == null || this.sqsJob == null) {
+            return;
+        }
+
+        final Collection<String> keys = this.getRepositoryKeys();
+        this.repositoryIndex.put(this, keys == null ? null : this.sqsJob.getMatchPlan());
+    }
+
+    public void removeFromRepositoryIndex() {
+        if (this.repositoryIndex != null) {
+            this.repositoryIndex.remove(this);
+        }
+    }
+
+    private boolean isSubscribedInternalScm() {
+        if (this.subscribeInternalScm) {
+            return true;
+        }
+
+        if (CollectionUtils.isNotEmpty(this.sqsScmConfigs)) {
+            for (SQSScmConfig scmConfig : this.sqsScmConfigs) {
+                if (scmConfig.getType() == SQSScmConfig.Type.IR) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     @CheckForNull
     public List<SQSScmConfig> getSqsScmConfigs() {
         return sqsScmConfigs;
@@ -171,13 +321,17 @@ public class SQSTrigger extends Trigger<Job<?, ?>> implements SQSQueueListener {
         return subscribeInternalScm;
     }
 
-    private boolean handleMessage(final Message message) {
-        log.debug("Parse and do match against events, message: %s", this.job, message.getBody());
-
-        final MessageParser parser = this.messageParserFactory.createParser(message);
-        final List<Event> events = parser.parseMessage(message);
+    private boolean handleMessage(final ParsedMessage parsedMessage) {
+        final Message message = parsedMessage.getMessage();
+        final List<Event> events = parsedMessage.getEvents();
+        log.debug("Do match against %d events, message: %s", this.job, events.size(), message.getMessageId());
 
+        final long start = System.nanoTime();
         boolean matched = this.eventTriggerMatcher.matches(events, this.sqsJob);
+        final QueueMetrics metrics = this.getQueueMetrics();
+        if (metrics != null) {
+            this.getMatchLatency(metrics).record(QueueMetrics.elapsedMicros(start));
+        }
 //        String messageId = com.ribose.jenkins.plugin.awscodecommittrigger.utils.StringUtils.getMessageId(message);
         log.info("Any event matched? %s. Message: %s", this.job, matched, message.getMessageId());
         if (matched) {
@@ -185,31 +339,223 @@ public class SQSTrigger extends Trigger<Job<?, ?>> implements SQSQueueListener {
 
             //TODO use java8 lambda for this loop
             List<String> userarns = new ArrayList<>();
+            List<String> commits = new ArrayList<>();
             for (Event event : events) {
                 userarns.add(event.getUser());
+                if (event.getCommit() != null) {
+                    commits.add(event.getCommit());
+                }
             }
 
-            this.execute(message, userarns);
+            if (this.debounceSeconds > 0) {
+                this.debounce(message, userarns, commits);
+            } else {
+                this.execute(Collections.singletonList(message), userarns, commits);
+            }
             return true;
         }
 
         return false;
     }
 
-    private void execute(@Nonnull final Message message, final List<String> userarns) {
-        this.executor.execute(new Runnable() {
-
-            @Override
-            public void run() {
-                try {
-                    new SQSTriggerBuilder(SQSTrigger.this.sqsJob, message, userarns).run();
-                } catch (Exception e) {
-                    UnexpectedException error = new UnexpectedException(e);
-                    SQSTrigger.log.error("Unable to execute job for this message %s, cause: %s", SQSTrigger.this.job, message.getMessageId(), error);
-                    throw error;
+    private void debounce(final Message message, final List<String> userarns, final List<String> commits) {
+        while (true) {
+            PendingTrigger pending = this.pendingTrigger.get();
+            if (pending == null) {
+                final PendingTrigger created = new PendingTrigger();
+                if (!this.pendingTrigger.compareAndSet(null, created)) {
+                    continue;
                 }
+
+                log.debug("Wait %d seconds for more messages before polling", this.job, this.debounceSeconds);
+                Timer.get().schedule(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        SQSTrigger.this.flush(created);
+                    }
+                }, this.debounceSeconds, TimeUnit.SECONDS);
+                pending = created;
             }
-        });
+
+            if (pending.add(message, userarns, commits)) {
+                return;
+            }
+        }
+    }
+
+    private void flush(final PendingTrigger pending) {
+        this.pendingTrigger.compareAndSet(pending, null);
+        if (!pending.close()) {
+            return;//flushed already, by its timer or when Jenkins stopped
+        }
+
+        log.debug("Coalesced %d messages into one trigger", this.job, pending.messages.size());
+        this.execute(pending.messages, pending.userarns, pending.commits);
+    }
+
+    // metrics of the subscribed queue, labeled with its name
+    @CheckForNull
+    private QueueMetrics getQueueMetrics() {
+        if (this.metricsRegistry == null) {
+            return null;
+        }
+
+        final SQSQueue queue = ((DescriptorImpl) this.getDescriptor()).getSqsQueue(this.queueUuid);
+        return this.metricsRegistry.forQueue(queue == null ? this.queueUuid : queue.getName());
+    }
+
+    // the match latency of the job, looked up once per queue and job name rather than per message
+    private Histogram getMatchLatency(final QueueMetrics metrics) {
+        MatchLatency latency = this.matchLatency;
+        if (latency == null || latency.metrics != metrics) {
+            latency = new MatchLatency(metrics, metrics.getMatchLatency(this.job.getFullName()));
+            this.matchLatency = latency;
+        }
+        return latency.histogram;
+    }
+
+    /**
+     * Hands messages still waiting for the debounce window to the trigger executor now, called when Jenkins
+     * stops.
+     */
+    public void flushPending() {
+        final PendingTrigger pending = this.pendingTrigger == null ? null : this.pendingTrigger.get();
+        if (pending != null) {
+            this.flush(pending);
+        }
+    }
+
+    /**
+     * Triggers work that was not done before Jenkins stopped.
+     * @param unfinished The work persisted on shutdown.
+     */
+    public void resume(final UnfinishedTrigger unfinished) {
+        if (this.executorProvider == null || this.sqsJob == null) {
+            log.warning("Trigger not started, unable to resume messages %s", this.job, unfinished.getMessages());
+            return;
+        }
+
+        log.info("Resume trigger for %d messages", this.job, unfinished.getMessages().size());
+        this.execute(unfinished.getMessages(), unfinished.getUserarns(), unfinished.getCommits());
+    }
+
+    /**
+     * @param task A task taken from the trigger executor.
+     * @return The work of the task, {@code null} if it is no trigger task.
+     */
+    @CheckForNull
+    public static UnfinishedTrigger toUnfinished(final Runnable task) {
+        return task instanceof TriggerTask ? ((TriggerTask) task).toUnfinished() : null;
+    }
+
+    private void execute(@Nonnull final List<Message> messages, final Collection<String> userarns, final Collection<String> commits) {
+        // one lane per job: polls of a job never overlap, a newer trigger takes over a pending one
+        this.executorProvider.getLanes(ExecutorProvider.Stage.TRIGGERING)
+            .execute(this.job.getFullName(), new TriggerTask(messages, userarns, commits));
+    }
+
+    /**
+     * Polls the job for the matched messages, when it replaces a pending task of the job it polls for the
+     * messages of that task too.
+     */
+    private final class TriggerTask implements KeyedLaneExecutor.Coalescing {
+
+        private final List<Message> messages;
+        private final Set<String> userarns;
+        private final Set<String> commits;
+
+        private TriggerTask(final List<Message> messages, final Collection<String> userarns, final Collection<String> commits) {
+            this.messages = new ArrayList<>(messages);
+            this.userarns = new LinkedHashSet<>(userarns);
+            this.commits = new LinkedHashSet<>(commits);
+        }
+
+        @Override
+        public void coalesce(final Runnable replaced) {
+            if (!(replaced instanceof TriggerTask)) {
+                return;
+            }
+
+            final TriggerTask older = (TriggerTask) replaced;
+            this.messages.addAll(0, older.messages);
+
+            final Set<String> userarns = new LinkedHashSet<>(older.userarns);
+            userarns.addAll(this.userarns);
+            this.userarns.clear();
+            this.userarns.addAll(userarns);
+
+            final Set<String> commits = new LinkedHashSet<>(older.commits);
+            commits.addAll(this.commits);
+            this.commits.clear();
+            this.commits.addAll(commits);
+
+            log.debug("Coalesced pending trigger, %d messages in total", SQSTrigger.this.job, this.messages.size());
+        }
+
+        private UnfinishedTrigger toUnfinished() {
+            return new UnfinishedTrigger(SQSTrigger.this.job.getFullName(), this.messages, this.userarns, this.commits);
+        }
+
+        @Override
+        public void run() {
+            try {
+                new SQSTriggerBuilder(SQSTrigger.this.sqsJob, this.messages, this.userarns, this.commits, SQSTrigger.this.pollLimiter, SQSTrigger.this.getQueueMetrics(), SQSTrigger.this.messageIndex).run();
+            } catch (Exception e) {
+                UnexpectedException error = new UnexpectedException(e);
+                SQSTrigger.log.error("Unable to execute job for these messages %s, cause: %s", SQSTrigger.this.job, this.messages, error);
+                throw error;
+            }
+        }
+    }
+
+    /**
+     * Matched messages collected during the debounce window of a job, they are triggered together by
+     * one poll and at most one build.
+     */
+    private static final class PendingTrigger {
+
+        private final List<Message> messages = new ArrayList<>();
+        private final Set<String> userarns = new LinkedHashSet<>();
+        private final Set<String> commits = new LinkedHashSet<>();
+        private boolean closed;
+
+        private synchronized boolean add(final Message message, final List<String> userarns, final List<String> commits) {
+            if (this.closed) {
+                return false;
+            }
+
+            this.messages.add(message);
+            this.userarns.addAll(userarns);
+            this.commits.addAll(commits);
+            return true;
+        }
+
+        /**
+         * @return {@code true} if this call closed the window, only its caller triggers the messages.
+         */
+        private synchronized boolean close() {
+            if (this.closed) {
+                return false;
+            }
+
+            this.closed = true;
+            return true;
+        }
+    }
+
+    /**
+     * The match latency histogram of the job and the queue metrics it belongs to.
+     */
+    private static final class MatchLatency {
+
+        private final QueueMetrics metrics;
+        private final Histogram histogram;
+
+        private MatchLatency(final QueueMetrics metrics, final Histogram histogram) {
+            this.metrics = metrics;
+            this.histogram = histogram;
+        }
     }
 
     public boolean isWorkflowJob() {
@@ -237,8 +583,24 @@ public class SQSTrigger extends Trigger<Job<?, ?>> implements SQSQueueListener {
         this.sqsJobFactory = sqsJobFactory;
     }
 
-    public void setExecutor(ExecutorService executor) {
-        this.executor = executor;
+    public void setExecutorProvider(ExecutorProvider executorProvider) {
+        this.executorProvider = executorProvider;
+    }
+
+    public void setPollLimiter(ScmPollLimiter pollLimiter) {
+        this.pollLimiter = pollLimiter;
+    }
+
+    public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    public void setMessageIndex(MessageIndex messageIndex) {
+        this.messageIndex = messageIndex;
+    }
+
+    public void setRepositoryIndex(RepositoryIndex repositoryIndex) {
+        this.repositoryIndex = repositoryIndex;
     }
 
     public void setSqsScmConfigs(List<SQSScmConfig> sqsScmConfigs) {
@@ -267,13 +629,90 @@ public class SQSTrigger extends Trigger<Job<?, ?>> implements SQSQueueListener {
         private volatile List<SQSTriggerQueue> sqsQueues;
         private volatile transient Map<String, SQSTriggerQueue> sqsQueueMap;
 
+        // executor limits, null for the defaults of ExecutorProvider.Stage
+        private Integer pollingThreads;
+        private Integer pollingQueue;
+        private Integer matchingThreads;
+        private Integer matchingQueue;
+        private Integer triggeringThreads;
+        private Integer triggeringQueue;
+
+        // SCM poll admission, null for the defaults of ScmPollLimiter
+        private Integer maxConcurrentPolls;
+        private Integer maxConcurrentPollsPerHost;
+        private Integer pollJitterMillis;
+
         private transient boolean isLoaded;
         private transient final SequentialExecutionQueue queue = new SequentialExecutionQueue(Executors.newSingleThreadExecutor());
         private transient SQSJobFactory sqsJobFactory;
+        private transient ExecutorProvider executorProvider;
+        private transient ScmPollLimiter pollLimiter;
+        private transient SQSQueueMonitorScheduler scheduler;
+
+        // triggers started while Jenkins loads jobs, null once they are registered, guarded by startupLock
+        private transient final Object startupLock = new Object();
+        private transient List<SQSTrigger> startupTriggers = new ArrayList<>();
+        private transient volatile String startupRegistration;
 
         public DescriptorImpl() {
             super(SQSTrigger.class);
             this.sqsJobFactory = Context.injector().getBinding(SQSJobFactory.class).getProvider().get();
+            this.executorProvider = Context.injector().getBinding(ExecutorProvider.class).getProvider().get();
+            this.pollLimiter = Context.injector().getBinding(ScmPollLimiter.class).getProvider().get();
+            this.scheduler = Context.injector().getBinding(SQSQueueMonitorScheduler.class).getProvider().get();
+        }
+
+        /**
+         * Registers all triggers started while loading jobs in one batch, one monitor per queue.
+         */
+        @Initializer(after = InitMilestone.JOB_LOADED)
+        public static void registerStartupTriggers() {
+            final DescriptorImpl descriptor = Jenkins.getActiveInstance().getDescriptorByType(DescriptorImpl.class);
+            if (descriptor != null) {
+                descriptor.registerDeferred();
+            }
+        }
+
+        private boolean deferRegistration(final SQSTrigger trigger) {
+            synchronized (this.startupLock) {
+                if (this.startupTriggers == null || Jenkins.getActiveInstance().getInitLevel().compareTo(InitMilestone.JOB_LOADED) >= 0) {
+                    return false;
+                }
+                this.startupTriggers.add(trigger);
+                return true;
+            }
+        }
+
+        private boolean cancelRegistration(final SQSTrigger trigger) {
+            synchronized (this.startupLock) {
+                return this.startupTriggers != null && this.startupTriggers.remove(trigger);
+            }
+        }
+
+        private void registerDeferred() {
+            final List<SQSTrigger> triggers;
+            synchronized (this.startupLock) {
+                triggers = this.startupTriggers;
+                this.startupTriggers = null;
+            }
+
+            if (triggers == null) {
+                return;
+            }
+
+            // queued like single registrations so that later stops of these triggers run after it
+            this.queue.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    final long start = System.nanoTime();
+                    final int registered = DescriptorImpl.this.scheduler.registerAll(triggers);
+                    final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+                    DescriptorImpl.this.startupRegistration = String.format("%d of %d triggers registered in %d ms", registered, triggers.size(), elapsed);
+                    log.info("Startup registration: %s", DescriptorImpl.this.startupRegistration);
+                }
+            });
         }
 
         @Override
@@ -288,6 +727,7 @@ public class SQSTrigger extends Trigger<Job<?, ?>> implements SQSQueueListener {
         public synchronized void load() {
             super.load();
             this.initQueueMap();
+            this.configureExecutors();
             this.isLoaded = true;
         }
 
@@ -318,6 +758,18 @@ public class SQSTrigger extends Trigger<Job<?, ?>> implements SQSQueueListener {
             return items;
         }
 
+        public FormValidation doCheckDebounceSeconds(@QueryParameter final String value) {
+            try {
+                final int seconds = StringUtils.isBlank(value) ? 0 : Integer.parseInt(value);
+                if (seconds >= DEBOUNCE_SECONDS_MIN && seconds <= DEBOUNCE_SECONDS_MAX) {
+                    return FormValidation.ok();
+                }
+            } catch (final NumberFormatException e) {
+                log.debug("Invalid debounce seconds %s", value);
+            }
+            return FormValidation.error(Messages.errorDebounceSeconds());
+        }
+
         public FormValidation doCheckQueueUuid(@QueryParameter final String value) {
             if (this.getSqsQueues().size() == 0) {
                 return FormValidation.error(Messages.errorQueueUnavailable());
@@ -346,12 +798,140 @@ public class SQSTrigger extends Trigger<Job<?, ?>> implements SQSQueueListener {
             this.sqsQueues = req.bindJSONToList(SQSTriggerQueue.class, sqsQueues);
             this.initQueueMap();
 
+            final JSONObject section = json.size() == 1 ? json.getJSONObject(json.keys().next().toString()) : json;
+            this.pollingThreads = readExecutorLimit(section, "pollingThreads", Stage.MAX_CONCURRENCY_MIN, Stage.MAX_CONCURRENCY_MAX);
+            this.pollingQueue = readExecutorLimit(section, "pollingQueue", Stage.QUEUE_CAPACITY_MIN, Stage.QUEUE_CAPACITY_MAX);
+            this.matchingThreads = readExecutorLimit(section, "matchingThreads", Stage.MAX_CONCURRENCY_MIN, Stage.MAX_CONCURRENCY_MAX);
+            this.matchingQueue = readExecutorLimit(section, "matchingQueue", Stage.QUEUE_CAPACITY_MIN, Stage.QUEUE_CAPACITY_MAX);
+            this.triggeringThreads = readExecutorLimit(section, "triggeringThreads", Stage.MAX_CONCURRENCY_MIN, Stage.MAX_CONCURRENCY_MAX);
+            this.triggeringQueue = readExecutorLimit(section, "triggeringQueue", Stage.QUEUE_CAPACITY_MIN, Stage.QUEUE_CAPACITY_MAX);
+            this.maxConcurrentPolls = readExecutorLimit(section, "maxConcurrentPolls", ScmPollLimiter.MAX_POLLS_MIN, ScmPollLimiter.MAX_POLLS_MAX);
+            this.maxConcurrentPollsPerHost = readExecutorLimit(section, "maxConcurrentPollsPerHost", ScmPollLimiter.MAX_POLLS_PER_HOST_MIN, ScmPollLimiter.MAX_POLLS_PER_HOST_MAX);
+            this.pollJitterMillis = readExecutorLimit(section, "pollJitterMillis", ScmPollLimiter.JITTER_MILLIS_MIN, ScmPollLimiter.JITTER_MILLIS_MAX);
+            this.configureExecutors();
+
             this.save();
 
             EventBroker.getInstance().post(new ConfigurationChangedEvent());
             return true;
         }
 
+        public int getPollingThreads() {
+            return this.pollingThreads == null ? this.executorProvider.getDefaultMaxConcurrency(Stage.POLLING) : this.pollingThreads;
+        }
+
+        public int getPollingQueue() {
+            return this.pollingQueue == null ? Stage.POLLING.getDefaultQueueCapacity() : this.pollingQueue;
+        }
+
+        public int getMatchingThreads() {
+            return this.matchingThreads == null ? this.executorProvider.getDefaultMaxConcurrency(Stage.MATCHING) : this.matchingThreads;
+        }
+
+        public int getMatchingQueue() {
+            return this.matchingQueue == null ? Stage.MATCHING.getDefaultQueueCapacity() : this.matchingQueue;
+        }
+
+        public int getTriggeringThreads() {
+            return this.triggeringThreads == null ? this.executorProvider.getDefaultMaxConcurrency(Stage.TRIGGERING) : this.triggeringThreads;
+        }
+
+        public int getTriggeringQueue() {
+            return this.triggeringQueue == null ? Stage.TRIGGERING.getDefaultQueueCapacity() : this.triggeringQueue;
+        }
+
+        public int getMaxConcurrentPolls() {
+            return this.maxConcurrentPolls == null ? ScmPollLimiter.MAX_POLLS_DEFAULT : this.maxConcurrentPolls;
+        }
+
+        public int getMaxConcurrentPollsPerHost() {
+            return this.maxConcurrentPollsPerHost == null ? ScmPollLimiter.MAX_POLLS_PER_HOST_DEFAULT : this.maxConcurrentPollsPerHost;
+        }
+
+        public int getPollJitterMillis() {
+            return this.pollJitterMillis == null ? ScmPollLimiter.JITTER_MILLIS_DEFAULT : this.pollJitterMillis;
+        }
+
+        /**
+         * @return Current load of the executors, one line per {@link Stage}.
+         */
+        public List<String> getExecutorStatistics() {
+            final List<String> statistics = new ArrayList<>();
+            for (final Stage stage : Stage.values()) {
+                statistics.add(this.executorProvider.get(stage).toString());
+            }
+            statistics.add("Trigger lanes: " + this.executorProvider.getLanes(Stage.TRIGGERING));
+            statistics.add("SCM polls: " + this.pollLimiter);
+            if (this.startupRegistration != null) {
+                statistics.add("Startup registration: " + this.startupRegistration);
+            }
+            return statistics;
+        }
+
+        public FormValidation doCheckPollingThreads(@QueryParameter final String value) {
+            return validateExecutorLimit(value, Stage.MAX_CONCURRENCY_MIN, Stage.MAX_CONCURRENCY_MAX);
+        }
+
+        public FormValidation doCheckPollingQueue(@QueryParameter final String value) {
+            return validateExecutorLimit(value, Stage.QUEUE_CAPACITY_MIN, Stage.QUEUE_CAPACITY_MAX);
+        }
+
+        public FormValidation doCheckMatchingThreads(@QueryParameter final String value) {
+            return validateExecutorLimit(value, Stage.MAX_CONCURRENCY_MIN, Stage.MAX_CONCURRENCY_MAX);
+        }
+
+        public FormValidation doCheckMatchingQueue(@QueryParameter final String value) {
+            return validateExecutorLimit(value, Stage.QUEUE_CAPACITY_MIN, Stage.QUEUE_CAPACITY_MAX);
+        }
+
+        public FormValidation doCheckTriggeringThreads(@QueryParameter final String value) {
+            return validateExecutorLimit(value, Stage.MAX_CONCURRENCY_MIN, Stage.MAX_CONCURRENCY_MAX);
+        }
+
+        public FormValidation doCheckTriggeringQueue(@QueryParameter final String value) {
+            return validateExecutorLimit(value, Stage.QUEUE_CAPACITY_MIN, Stage.QUEUE_CAPACITY_MAX);
+        }
+
+        public FormValidation doCheckMaxConcurrentPolls(@QueryParameter final String value) {
+            return validateExecutorLimit(value, ScmPollLimiter.MAX_POLLS_MIN, ScmPollLimiter.MAX_POLLS_MAX);
+        }
+
+        public FormValidation doCheckMaxConcurrentPollsPerHost(@QueryParameter final String value) {
+            return validateExecutorLimit(value, ScmPollLimiter.MAX_POLLS_PER_HOST_MIN, ScmPollLimiter.MAX_POLLS_PER_HOST_MAX);
+        }
+
+        public FormValidation doCheckPollJitterMillis(@QueryParameter final String value) {
+            return validateExecutorLimit(value, ScmPollLimiter.JITTER_MILLIS_MIN, ScmPollLimiter.JITTER_MILLIS_MAX);
+        }
+
+        private void configureExecutors() {
+            this.executorProvider.configure(Stage.POLLING, this.getPollingThreads(), this.getPollingQueue());
+            this.executorProvider.configure(Stage.MATCHING, this.getMatchingThreads(), this.getMatchingQueue());
+            this.executorProvider.configure(Stage.TRIGGERING, this.getTriggeringThreads(), this.getTriggeringQueue());
+            this.pollLimiter.configure(this.getMaxConcurrentPolls(), this.getMaxConcurrentPollsPerHost(), this.getPollJitterMillis());
+        }
+
+        @CheckForNull
+        private static Integer readExecutorLimit(final JSONObject json, final String key, final int min, final int max) {
+            final String value = json.optString(key);
+            if (validateExecutorLimit(value, min, max).kind != FormValidation.Kind.OK) {
+                return null;
+            }
+            return Integer.parseInt(value.trim());
+        }
+
+        private static FormValidation validateExecutorLimit(final String value, final int min, final int max) {
+            try {
+                final int number = Integer.parseInt(StringUtils.trimToEmpty(value));
+                if (number >= min && number <= max) {
+                    return FormValidation.ok();
+                }
+            } catch (NumberFormatException e) {
+                log.debug("Invalid executor limit %s", value);
+            }
+            return FormValidation.error(Messages.errorExecutorLimit(min, max));
+        }
+
         public List<SQSTriggerQueue> getSqsQueues() {
             if (!this.isLoaded) {
                 this.load();
@@ -18,58 +18,174 @@
 package com.ribose.jenkins.plugin.awscodecommittrigger;
 
 import com.amazonaws.services.sqs.model.Message;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.ScmPollLimiter;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.ActivityAppender;
 import com.ribose.jenkins.plugin.awscodecommittrigger.logging.Log;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.MessageIndex;
+import com.ribose.jenkins.plugin.awscodecommittrigger.metrics.QueueMetrics;
 import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.SQSJob;
+import com.ribose.jenkins.plugin.awscodecommittrigger.net.MessageAttributes;
 import com.ribose.jenkins.plugin.awscodecommittrigger.utils.StringUtils;
+import hudson.model.Action;
 import hudson.model.Cause;
 import hudson.model.TaskListener;
 import hudson.util.StreamTaskListener;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 
 public class SQSTriggerBuilder implements Runnable {
     private final SQSJob job;
     private final Log log;
     private final TaskListener listener;
-    private final Message message;
     private final String messageId;
+    private final List<String> messageIds;
     private final String userarns;
+    private final List<String> commits;
+    private final int messageCount;
+    private final long sentTimestamp;
+    private final int receiveCount;
+    private final ScmPollLimiter pollLimiter;
+    private final QueueMetrics metrics;
+    private final MessageIndex messageIndex;
+    private final ActivityAppender appender;
 
     public SQSTriggerBuilder(final SQSJob job, final Message message, List<String> userarns) throws IOException {
+        this(job, Collections.singletonList(message), userarns, Collections.<String>emptyList(), null, null, null);
+    }
+
+    /**
+     * Trigger one poll, and at most one build, for messages coalesced during the debounce window of the job.
+     * The poll waits for admission by the {@link ScmPollLimiter}, if any, its duration and the scheduled build are
+     * recorded in the {@link QueueMetrics}, if any. The time from sending the earliest message until the build
+     * is scheduled is recorded too, and attached to the build as {@link SQSTriggerLagAction}. The decision is
+     * recorded in the {@link MessageIndex}, if any, with the line of the activity log it is logged at.
+     */
+    public SQSTriggerBuilder(final SQSJob job, final List<Message> messages, final Collection<String> userarns, final Collection<String> commits, final ScmPollLimiter pollLimiter, final QueueMetrics metrics, final MessageIndex messageIndex) throws IOException {
         this.job = job;
-        this.message = message;
+        this.pollLimiter = pollLimiter;
+        this.metrics = metrics;
+        this.messageIndex = messageIndex;
 
         SQSActivityAction activityAction = this.job.getJenkinsJob().getAction(SQSActivityAction.class);
-        this.listener = new StreamTaskListener(activityAction.getActivityLogFile(), true, Charset.forName("UTF-8"));
-        this.log = Log.get(SQSTriggerBuilder.class, this.listener.getLogger(), true);
+        this.appender = activityAction.getAppender();
+        this.listener = new StreamTaskListener(this.appender.newOutputStream(), Charset.forName("UTF-8"));
+        this.log = Log.get(SQSTriggerBuilder.class, this.appender, true);
 
-        this.messageId = message.getMessageId();
-        this.userarns = org.apache.commons.lang3.StringUtils.join(userarns);
+        List<String> messageIds = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            messageIds.add(message.getMessageId());
+        }
+        this.messageIds = messageIds;
+        this.messageId = org.apache.commons.lang3.StringUtils.join(messageIds, ", ");
+        this.userarns = org.apache.commons.lang3.StringUtils.join(new ArrayList<>(userarns));
+        this.commits = new ArrayList<>(commits);
+        this.messageCount = messages.size();
+        this.sentTimestamp = MessageAttributes.getEarliestSentTimestamp(messages);
+        this.receiveCount = MessageAttributes.getMaxReceiveCount(messages);
         this.log.info("Try to trigger the build for message: %s", messageId);
-        this.log.debug("Print out message-body: %s", message.getBody());
+        for (Message message : messages) {
+            this.log.debug("Print out message-body: %s", message.getBody());
+        }
     }
 
     @Override
     public void run() {
-        final boolean hasChanges = this.job.poll(listener).hasChanges();
+        try {
+            this.trigger();
+        } finally {
+            // hand the rest of the polling output to the appender, it is written asynchronously
+            this.listener.getLogger().flush();
+        }
+    }
+
+    private void trigger() {
+        final boolean hasChanges;
+        final long start = System.nanoTime();
+        try {
+            hasChanges = this.poll();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.record(MessageIndex.Decision.INTERRUPTED);
+            this.log.warning("Interrupted while waiting to poll SCM, message: %s", this.messageId);
+            return;
+        } finally {
+            if (this.metrics != null) {
+                this.metrics.getPollLatency(this.job.getJenkinsJob().getFullName()).record(QueueMetrics.elapsedMillis(start));
+            }
+        }
         this.log.debug("Any code changes found in SCM? %s", hasChanges);
 
         if (hasChanges) {
             this.startJob();
         }
         else {
+            this.record(MessageIndex.Decision.NO_CHANGES);
             log.info("Cancel the build since no change found");
         }
     }
 
+    private boolean poll() throws InterruptedException {
+        if (this.pollLimiter == null) {
+            return this.job.poll(this.listener).hasChanges();
+        }
+
+        final long start = System.nanoTime();
+        try (ScmPollLimiter.Permit ignored = this.pollLimiter.acquire(this.job.getMatchPlan().getHosts())) {
+            this.log.debug("Waited %d ms to poll SCM", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return this.job.poll(this.listener).hasChanges();
+        }
+    }
+
     private void startJob() {
-        Cause cause = new Cause.RemoteCause("SQSTrigger", String.format("User invoked: %s", this.userarns));
+        String note = String.format("User invoked: %s", this.userarns);
+        if (!this.commits.isEmpty()) {
+            note += String.format(", commits: %s", org.apache.commons.lang3.StringUtils.join(this.commits, ", "));
+        }
+        Cause cause = new Cause.RemoteCause("SQSTrigger", note);
 
         //Job Build can be triggered by 1+ SQS messages because of quiet-period in Jenkins, @see https://jenkins.io/blog/2010/08/11/quiet-period-feature/
-        boolean scheduled = job.scheduleBuild(cause);
+        final long queued = System.currentTimeMillis();
+        final Action[] actions = this.sentTimestamp < 0
+            ? new Action[0]
+            : new Action[]{new SQSTriggerLagAction(this.sentTimestamp, queued, this.messageCount, this.receiveCount)};
+        boolean scheduled = job.scheduleBuild(cause, actions);
+        if (scheduled && this.metrics != null) {
+            final String jobName = this.job.getJenkinsJob().getFullName();
+            this.metrics.getBuildsScheduled(jobName).increment();
+            if (this.sentTimestamp >= 0) {
+                this.metrics.getQueuedLag(jobName).record(Math.max(0, queued - this.sentTimestamp));
+            }
+        }
+        this.record(scheduled ? MessageIndex.Decision.SCHEDULED : MessageIndex.Decision.NOT_SCHEDULED);
         this.log.info("The build is scheduled? %s by Message: %s", scheduled, this.messageId);
+        if (this.sentTimestamp >= 0) {
+            this.log.debug("Push to queued: %d ms, receive count: %d", queued - this.sentTimestamp, this.receiveCount);
+        }
+    }
+
+    // record the decision for every message once the activity log line that follows is written
+    private void record(final MessageIndex.Decision decision) {
+        if (this.messageIndex == null) {
+            return;
+        }
+
+        final String jobName = this.job.getJenkinsJob().getFullName();
+        this.appender.mark(System.currentTimeMillis(), new ActivityAppender.Mark() {
+
+            @Override
+            public void written(final File file, final long line) {
+                for (String messageId : SQSTriggerBuilder.this.messageIds) {
+                    SQSTriggerBuilder.this.messageIndex.record(messageId, SQSTriggerBuilder.this.commits, jobName, decision, file.getName(), line);
+                }
+            }
+        });
     }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger;
+
+import hudson.Util;
+import hudson.model.Action;
+
+
+/**
+ * Attached to builds triggered by SQS messages, records how long it took from the push, i.e. sending the
+ * earliest message of the trigger to the queue, until the build was scheduled.
+ */
+public class SQSTriggerLagAction implements Action {
+
+    private final long sentTimestamp;
+    private final long queuedTimestamp;
+    private final int messageCount;
+    private final int receiveCount;
+
+    public SQSTriggerLagAction(final long sentTimestamp, final long queuedTimestamp, final int messageCount, final int receiveCount) {
+        this.sentTimestamp = sentTimestamp;
+        this.queuedTimestamp = queuedTimestamp;
+        this.messageCount = messageCount;
+        this.receiveCount = receiveCount;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "SQS Trigger Latency";
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+
+    public long getSentTimestamp() {
+        return this.sentTimestamp;
+    }
+
+    public long getQueuedTimestamp() {
+        return this.queuedTimestamp;
+    }
+
+    public int getMessageCount() {
+        return this.messageCount;
+    }
+
+    public int getReceiveCount() {
+        return this.receiveCount;
+    }
+
+    public long getLagMillis() {
+        return Math.max(0, this.queuedTimestamp - this.sentTimestamp);
+    }
+
+    public String getLagString() {
+        return Util.getTimeSpanString(this.getLagMillis());
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger;
+
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.ExecutorProvider;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSFactory;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSQueueMonitorScheduler;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.ActivityAppender;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.Log;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.MessageIndex;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.entities.UnfinishedTrigger;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.SQSJobChangeListener;
+import com.ribose.jenkins.plugin.awscodecommittrigger.threading.KeyedLaneExecutor;
+import hudson.XmlFile;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.init.Terminator;
+import hudson.model.Job;
+import jenkins.model.Jenkins;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Drains the plugin when Jenkins stops and resumes unfinished work when it starts again.
+ * <p>
+ * On shutdown all monitors stop receiving and their long polls are abandoned, batches received before are
+ * processed and deleted before their clients are released, messages waiting for the debounce window are
+ * triggered and trigger tasks get {@value #DRAIN_TIMEOUT_SECONDS_DEFAULT} seconds, or the seconds of the system
+ * property {@value #DRAIN_TIMEOUT_PROPERTY}, to finish. Tasks that did not start by then are persisted, their
+ * messages are already deleted from the queues, and triggered again once jobs are loaded.
+ */
+public final class SQSTriggerLifecycle {
+
+    private static final Log log = Log.get(SQSTriggerLifecycle.class);
+
+    public static final String DRAIN_TIMEOUT_PROPERTY = "com.ribose.jenkins.plugin.awscodecommittrigger.drainTimeoutSeconds";
+    public static final int DRAIN_TIMEOUT_SECONDS_DEFAULT = 30;
+
+    private static final long HOLD_TIMEOUT_SECONDS = 5;
+    private static final String UNFINISHED_FILE = SQSTrigger.class.getName() + "-unfinished.xml";
+
+    private SQSTriggerLifecycle() {
+    }
+
+    @Terminator
+    public static void drain() throws IOException, InterruptedException {
+        final long start = System.nanoTime();
+
+        final int timeout = Integer.getInteger(DRAIN_TIMEOUT_PROPERTY, DRAIN_TIMEOUT_SECONDS_DEFAULT);
+        final SQSQueueMonitorScheduler scheduler = Context.injector().getBinding(SQSQueueMonitorScheduler.class).getProvider().get();
+        scheduler.shutDown();
+        if (!scheduler.awaitTermination(timeout, TimeUnit.SECONDS)) {
+            log.warning("Received messages not processed after %d seconds", timeout);
+        }
+
+        final List<SQSTrigger> triggers = getTriggers();
+        for (final SQSTrigger trigger : triggers) {
+            trigger.flushPending();
+        }
+
+        final KeyedLaneExecutor lanes = Context.injector().getBinding(ExecutorProvider.class).getProvider().get()
+            .getLanes(ExecutorProvider.Stage.TRIGGERING);
+        if (!lanes.awaitIdle(timeout, TimeUnit.SECONDS)) {
+            log.warning("Trigger tasks not done after %d seconds: %s", timeout, lanes);
+        }
+
+        // hold back what did not start, wait for tasks already queued on the executor to be held too
+        lanes.shutDown();
+        lanes.awaitIdle(HOLD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        final List<UnfinishedTrigger> unfinished = new ArrayList<>();
+        for (final Runnable task : lanes.drainHeld()) {
+            final UnfinishedTrigger trigger = SQSTrigger.toUnfinished(task);
+            if (trigger != null) {
+                unfinished.add(trigger);
+            }
+        }
+
+        if (!unfinished.isEmpty()) {
+            getUnfinishedFile().write(unfinished);
+        }
+
+        Context.injector().getBinding(SQSFactory.class).getProvider().get().shutDown();
+        ActivityAppender.closeAll();
+        Context.injector().getBinding(MessageIndex.class).getProvider().get().close();
+        log.info("Drained %d triggers in %d ms, persisted %d unfinished", triggers.size(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), unfinished.size());
+    }
+
+    @Initializer(after = InitMilestone.JOB_LOADED)
+    public static void resume() throws IOException {
+        final XmlFile file = getUnfinishedFile();
+        if (!file.exists()) {
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        final List<UnfinishedTrigger> unfinished = (List<UnfinishedTrigger>) file.read();
+        if (!file.getFile().delete()) {
+            log.warning("Unable to delete %s, its triggers may resume again", file);
+        }
+
+        final Jenkins jenkins = Jenkins.getActiveInstance();
+        for (final UnfinishedTrigger trigger : unfinished) {
+            final Job<?, ?> job = jenkins.getItemByFullName(trigger.getJobName(), Job.class);
+            final SQSTrigger sqsTrigger = job == null ? null : SQSJobChangeListener.getTrigger(job);
+            if (sqsTrigger == null) {
+                log.warning("Job %s has no SQS trigger anymore, drop messages %s", trigger.getJobName(), trigger.getMessages());
+                continue;
+            }
+            sqsTrigger.resume(trigger);
+        }
+    }
+
+    private static List<SQSTrigger> getTriggers() {
+        final List<SQSTrigger> triggers = new ArrayList<>();
+        for (final Job<?, ?> job : Jenkins.getActiveInstance().getAllItems(Job.class)) {
+            final SQSTrigger trigger = SQSJobChangeListener.getTrigger(job);
+            if (trigger != null) {
+                triggers.add(trigger);
+            }
+        }
+        return triggers;
+    }
+
+    private static XmlFile getUnfinishedFile() {
+        return new XmlFile(Jenkins.XSTREAM2, new File(Jenkins.getActiveInstance().getRootDir(), UNFINISHED_FILE));
+    }
+}
@@ -29,6 +29,8 @@ import com.ribose.jenkins.plugin.awscodecommittrigger.credentials.AwsCredentials
 import com.ribose.jenkins.plugin.awscodecommittrigger.i18n.sqstriggerqueue.Messages;
 import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSFactory;
 import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSQueue;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSQueueMonitor;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSQueueMonitorScheduler;
 import com.ribose.jenkins.plugin.awscodecommittrigger.logging.Log;
 import com.ribose.jenkins.plugin.awscodecommittrigger.net.RequestFactory;
 import hudson.Extension;
@@ -59,13 +61,13 @@ public class SQSTriggerQueue extends AbstractDescribableImpl<SQSTriggerQueue> im
     private String uuid;
     private Integer waitTimeSeconds;
     private Integer maxNumberOfMessages;
+    private Integer consumers;
     private String url;
     private String credentialsId;
 
     private Regions region = null;
 
     private transient SQSFactory sqsFactory;
-    private transient AmazonSQS sqs;
     private transient boolean compatible;
 
     @Deprecated/*since 2.0*/
@@ -109,13 +111,6 @@ public class SQSTriggerQueue extends AbstractDescribableImpl<SQSTriggerQueue> im
         log.debug("Create new SQSTriggerQueue(%s, %s)", this.uuid, this.url);
     }
 
-    public AmazonSQS getSQSClient() {
-        if (this.sqs == null) {
-            this.sqs = this.getSqsFactory().createSQSAsync(this);
-        }
-        return this.sqs;
-    }
-
     public SQSFactory getSqsFactory() {
         return this.sqsFactory;
     }
@@ -128,10 +123,6 @@ public class SQSTriggerQueue extends AbstractDescribableImpl<SQSTriggerQueue> im
         this.sqsFactory = sqsFactory;
     }
 
-    public void setSqs(AmazonSQS sqs) {
-        this.sqs = sqs;
-    }
-
     public void setUuid(String uuid) {
         this.uuid = uuid;
     }
@@ -144,6 +135,11 @@ public class SQSTriggerQueue extends AbstractDescribableImpl<SQSTriggerQueue> im
         this.maxNumberOfMessages = maxNumberOfMessages;
     }
 
+    @DataBoundSetter
+    public void setConsumers(Integer consumers) {
+        this.consumers = this.limit(consumers, CONSUMERS_MIN, CONSUMERS_MAX, CONSUMERS_DEFAULT);
+    }
+
     public void setUrl(String url) {
         this.url = url;
     }
@@ -210,6 +206,28 @@ public class SQSTriggerQueue extends AbstractDescribableImpl<SQSTriggerQueue> im
         return this.maxNumberOfMessages;
     }
 
+    @Override
+    public int getConsumers() {
+        if (this.consumers == null) {
+            return CONSUMERS_DEFAULT;
+        }
+        return this.consumers;
+    }
+
+    /**
+     * Returns the state of the monitor of this queue, see {@link SQSQueueMonitor#getCircuitBreaker()}.
+     * @return The monitor state, {@code null} if no job subscribes to the queue.
+     */
+    @CheckForNull
+    public String getMonitorStatus() {
+        final SQSQueueMonitorScheduler scheduler = Context.injector().getBinding(SQSQueueMonitorScheduler.class).getProvider().get();
+        final SQSQueueMonitor monitor = scheduler.getMonitor(this.uuid);
+        if (monitor == null) {
+            return null;
+        }
+        return monitor.isShutDown() ? Messages.statusStopped() : monitor.getCircuitBreaker().toString();
+    }
+
     @Override
     public String getUrl() {
         return this.url;
@@ -308,6 +326,14 @@ public class SQSTriggerQueue extends AbstractDescribableImpl<SQSTriggerQueue> im
                 Messages.errorMaxNumberOfMessages());
         }
 
+        public FormValidation doCheckConsumers(@QueryParameter final String value) {
+            return this.validateNumber(
+                value,
+                CONSUMERS_MIN,
+                CONSUMERS_MAX,
+                Messages.errorConsumers());
+        }
+
         //TODO implement https://github.com/riboseinc/aws-codecommit-trigger-plugin/issues/44
         public FormValidation doValidate(@QueryParameter final String region,
                                          @QueryParameter final String url,
@@ -377,9 +403,13 @@ public class SQSTriggerQueue extends AbstractDescribableImpl<SQSTriggerQueue> im
                 assert credentials != null;
 
                 AmazonSQS client = this.sqsFactory.createSQSAsync(credentials.getAWSAccessKeyId(), credentials.getAWSSecretKey(), region);
-                List<String> queueUrls = client.listQueues().getQueueUrls();
-                for (String queueUrl : queueUrls) {
-                    items.add(com.ribose.jenkins.plugin.awscodecommittrigger.utils.StringUtils.getSqsQueueName(queueUrl), queueUrl);
+                try {
+                    List<String> queueUrls = client.listQueues().getQueueUrls();
+                    for (String queueUrl : queueUrls) {
+                        items.add(com.ribose.jenkins.plugin.awscodecommittrigger.utils.StringUtils.getSqsQueueName(queueUrl), queueUrl);
+                    }
+                } finally {
+                    client.shutdown();
                 }
             } catch (AmazonServiceException e) {//com.amazonaws.SdkClientException: Unable to find a region via the region provider chain. Must provide an explicit region in the builder or setup environment to supply a region.
                 //TODO detect default Region setting in http://docs.aws.amazon.com/cli/latest/userguide/cli-chap-getting-started.html
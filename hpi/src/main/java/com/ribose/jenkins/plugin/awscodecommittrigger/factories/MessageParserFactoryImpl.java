@@ -20,10 +20,14 @@ import com.amazonaws.services.sqs.model.Message;
 import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.MessageParser;
 import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.MessageParserFactory;
 import com.ribose.jenkins.plugin.awscodecommittrigger.model.CodeCommitMessageParser;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.CodeCommitStreamingMessageParser;
 
 
 public class MessageParserFactoryImpl implements MessageParserFactory {
 
+    // parsers are stateless, share them between messages
+    private final MessageParser codeCommitParser = new CodeCommitStreamingMessageParser(new CodeCommitMessageParser());
+
     @Override
     public MessageParser createParser(final Message message) {
         return this.createCodeCommitParser();
@@ -31,6 +35,6 @@ public class MessageParserFactoryImpl implements MessageParserFactory {
 
     @Override
     public MessageParser createCodeCommitParser() {
-        return new CodeCommitMessageParser();
+        return this.codeCommitParser;
     }
 }
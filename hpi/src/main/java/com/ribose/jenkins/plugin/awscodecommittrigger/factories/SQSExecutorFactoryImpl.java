@@ -17,7 +17,11 @@
 package com.ribose.jenkins.plugin.awscodecommittrigger.factories;
 
 import com.google.inject.Inject;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.BulkheadExecutorService;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.ExecutorProvider;
 import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSExecutorFactory;
+import com.ribose.jenkins.plugin.awscodecommittrigger.threading.BulkheadExecutor;
+import com.ribose.jenkins.plugin.awscodecommittrigger.threading.KeyedLaneExecutor;
 
 import java.util.concurrent.*;
 
@@ -31,6 +35,7 @@ public class SQSExecutorFactoryImpl implements SQSExecutorFactory {
      */
     private final static int      CORE_POOL_SIZE       = 10;
     private final static int      MAXIMUM_POOL_SIZE    = 50;
+    private final static int      QUEUE_CAPACITY       = 1000;
 
     private final static int      KEEP_ALIVE_TIME      = 5;
     private final static TimeUnit KEEP_ALIVE_TIME_UNIT = TimeUnit.MINUTES;
@@ -42,6 +47,10 @@ public class SQSExecutorFactoryImpl implements SQSExecutorFactory {
         this.threadFactory = threadFactory;
     }
 
+    /**
+     * Executor of the SQS client for async requests and callbacks. The queue is bounded so the pool grows
+     * beyond the core threads under load, callers run tasks themselves once it is full.
+     */
     @Override
     public ExecutorService newExecutor() {
         final ThreadPoolExecutor executor = new ThreadPoolExecutor(
@@ -49,10 +58,36 @@ public class SQSExecutorFactoryImpl implements SQSExecutorFactory {
             MAXIMUM_POOL_SIZE,
             KEEP_ALIVE_TIME,
             KEEP_ALIVE_TIME_UNIT,
-            new LinkedBlockingQueue<Runnable>(),
-            this.threadFactory);
+            new LinkedBlockingQueue<Runnable>(QUEUE_CAPACITY),
+            this.threadFactory,
+            new ThreadPoolExecutor.CallerRunsPolicy());
 
         executor.allowCoreThreadTimeOut(false);
         return executor;
     }
+
+    @Override
+    public BulkheadExecutorService newExecutor(final ExecutorProvider.Stage stage, final int maxConcurrency, final int queueCapacity) {
+        return new BulkheadExecutor(
+            "sqs-" + stage.name().toLowerCase(),
+            maxConcurrency,
+            queueCapacity,
+            this.threadFactory,
+            newRejectionPolicy(stage));
+    }
+
+    /**
+     * Only matching runs rejected tasks on the caller, a receive thread. Triggering runs SCM polls, its rejected tasks
+     * are retried by their {@link KeyedLaneExecutor} lane.
+     */
+    static RejectedExecutionHandler newRejectionPolicy(final ExecutorProvider.Stage stage) {
+        return stage == ExecutorProvider.Stage.MATCHING
+            ? new ThreadPoolExecutor.CallerRunsPolicy()
+            : new ThreadPoolExecutor.AbortPolicy();
+    }
+
+    @Override
+    public int getDefaultMaxConcurrency(final ExecutorProvider.Stage stage) {
+        return stage.getDefaultMaxConcurrency();
+    }
 }
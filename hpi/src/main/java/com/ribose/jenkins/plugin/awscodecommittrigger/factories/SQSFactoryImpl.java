@@ -29,12 +29,19 @@ import com.amazonaws.services.sqs.AmazonSQSAsyncClientBuilder;
 import com.amazonaws.services.sqs.buffered.AmazonSQSBufferedAsyncClient;
 import com.amazonaws.services.sqs.buffered.QueueBufferConfig;
 import com.google.inject.Inject;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.ExecutorProvider;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.MessageParserFactory;
 import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSExecutorFactory;
 import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSFactory;
 import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSQueue;
 import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSQueueMonitor;
 import com.ribose.jenkins.plugin.awscodecommittrigger.logging.Log;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.MessageIndex;
+import com.ribose.jenkins.plugin.awscodecommittrigger.net.MessageAttributes;
 import com.ribose.jenkins.plugin.awscodecommittrigger.net.RequestFactory;
+import com.ribose.jenkins.plugin.awscodecommittrigger.metrics.MetricsRegistry;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.RepositoryIndex;
+import com.ribose.jenkins.plugin.awscodecommittrigger.net.SQSClientPool;
 import com.ribose.jenkins.plugin.awscodecommittrigger.net.SQSChannel;
 import com.ribose.jenkins.plugin.awscodecommittrigger.net.SQSChannelImpl;
 import com.ribose.jenkins.plugin.awscodecommittrigger.threading.SQSQueueMonitorImpl;
@@ -53,11 +60,22 @@ public class SQSFactoryImpl implements SQSFactory {
 
     private final RequestFactory factory;
     private final SQSExecutorFactory SQSExecutorFactory;
+    private final MessageParserFactory messageParserFactory;
+    private final ExecutorProvider executorProvider;
+    private final MetricsRegistry metricsRegistry;
+    private final RepositoryIndex repositoryIndex;
+    private final MessageIndex messageIndex;
+    private final SQSClientPool clientPool = new SQSClientPool();
 
     @Inject
-    public SQSFactoryImpl(final SQSExecutorFactory SQSExecutorFactory, final RequestFactory factory) {
+    public SQSFactoryImpl(final SQSExecutorFactory SQSExecutorFactory, final RequestFactory factory, final MessageParserFactory messageParserFactory, final ExecutorProvider executorProvider, final MetricsRegistry metricsRegistry, final RepositoryIndex repositoryIndex, final MessageIndex messageIndex) {
         this.SQSExecutorFactory = SQSExecutorFactory;
         this.factory = factory;
+        this.messageParserFactory = messageParserFactory;
+        this.executorProvider = executorProvider;
+        this.metricsRegistry = metricsRegistry;
+        this.repositoryIndex = repositoryIndex;
+        this.messageIndex = messageIndex;
     }
 
     @Override
@@ -105,15 +123,31 @@ public class SQSFactoryImpl implements SQSFactory {
     }
 
     private SQSChannel createChannel(final SQSQueue queue) {
-        final AmazonSQS sqs = this.createSQSAsync(queue);
-        return new SQSChannelImpl(sqs, queue, this.factory);
+        final ClientConfiguration clientConfiguration = this.getClientConfiguration(queue);
+        final String proxy = StringUtils.isBlank(clientConfiguration.getProxyHost())
+            ? null
+            : String.format("%s@%s:%d", clientConfiguration.getProxyUsername(), clientConfiguration.getProxyHost(), clientConfiguration.getProxyPort());
+        final SQSClientPool.Key key = new SQSClientPool.Key(
+            queue.getCredentialsId(),
+            queue.getRegion() == null ? null : queue.getRegion().getName(),
+            com.ribose.jenkins.plugin.awscodecommittrigger.utils.StringUtils.getSqsEndpoint(queue.getUrl()),
+            proxy,
+            queue.getWaitTimeSeconds());
+
+        final SQSClientPool.Lease lease = this.clientPool.acquire(key, new SQSClientPool.ClientFactory() {
+            @Override
+            public AmazonSQS create() {
+                return SQSFactoryImpl.this.createSQSAsync(queue);
+            }
+        });
+        return new SQSChannelImpl(lease, queue, this.factory, this.metricsRegistry.forQueue(queue.getName()));
     }
 
     @Override
     public SQSQueueMonitor createMonitor(final ExecutorService executor, final SQSQueue queue) {
-        final AmazonSQS sqs = this.createSQSAsync(queue);
-        final SQSChannel channel = new SQSChannelImpl(sqs, queue, this.factory);
-        SQSQueueMonitor monitor = new SQSQueueMonitorImpl(executor, queue, channel);
+        final SQSChannel channel = this.createChannel(queue);
+        final ExecutorService matchingExecutor = this.executorProvider.get(ExecutorProvider.Stage.MATCHING);
+        SQSQueueMonitor monitor = new SQSQueueMonitorImpl(executor, matchingExecutor, queue, channel, this.messageParserFactory, this.metricsRegistry.forQueue(queue.getName()), this.repositoryIndex, this.messageIndex);
         return monitor;
     }
 
@@ -163,7 +197,14 @@ public class SQSFactoryImpl implements SQSFactory {
         // TODO Add more options
         config.setLongPollWaitTimeoutSeconds(queue == null ? SQSQueue.WAIT_TIME_SECONDS_DEFAULT : queue.getWaitTimeSeconds());
         config.setLongPoll(true);
+        // the buffered client prefetches its own receives, request the same attributes as RequestFactoryImpl
+        config.setReceiveAttributeNames(MessageAttributes.NAMES);
 
         return config;
     }
+
+    @Override
+    public void shutDown() {
+        this.clientPool.shutDown();
+    }
 }
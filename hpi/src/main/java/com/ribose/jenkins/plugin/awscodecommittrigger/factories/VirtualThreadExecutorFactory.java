@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.factories;
+
+import com.google.inject.Inject;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.BulkheadExecutorService;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.ExecutorProvider;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.Log;
+import com.ribose.jenkins.plugin.awscodecommittrigger.threading.BulkheadExecutor;
+
+import javax.annotation.CheckForNull;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+
+/**
+ * Runs tasks on virtual threads when the JVM supports them (Java 21+), otherwise falls back to the platform
+ * thread pools of {@link SQSExecutorFactoryImpl}.
+ * <p>
+ * A long poll or an SCM poll then no longer pins a platform thread, so the blocking stages default to far
+ * higher limits. The limits and queues of {@link BulkheadExecutor} still apply. Virtual threads are looked up
+ * by reflection, the plugin is compiled for older JVMs. Set the system property {@value #DISABLED_PROPERTY}
+ * to {@code true} to use platform threads anyway.
+ */
+public class VirtualThreadExecutorFactory extends SQSExecutorFactoryImpl {
+
+    private static final Log log = Log.get(VirtualThreadExecutorFactory.class);
+
+    public static final String DISABLED_PROPERTY = "com.ribose.jenkins.plugin.awscodecommittrigger.virtualThreads.disabled";
+
+    // factor applied to the default concurrency of stages that block on I/O
+    private static final int BLOCKING_STAGE_FACTOR = 20;
+
+    @CheckForNull
+    private final ThreadFactory virtualThreadFactory;
+
+    @Inject
+    public VirtualThreadExecutorFactory(final ThreadFactory threadFactory) {
+        this(threadFactory, Boolean.getBoolean(DISABLED_PROPERTY) ? null : createVirtualThreadFactory());
+    }
+
+    VirtualThreadExecutorFactory(final ThreadFactory threadFactory, @CheckForNull final ThreadFactory virtualThreadFactory) {
+        super(threadFactory);
+        this.virtualThreadFactory = virtualThreadFactory;
+        log.info("Execute tasks on %s threads", this.isVirtual() ? "virtual" : "platform");
+    }
+
+    public boolean isVirtual() {
+        return this.virtualThreadFactory != null;
+    }
+
+    @Override
+    public ExecutorService newExecutor() {
+        if (!this.isVirtual()) {
+            return super.newExecutor();
+        }
+
+        // async requests and callbacks of the SQS client, unbounded as before but without pooled threads
+        final ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        return executor != null ? executor : super.newExecutor();
+    }
+
+    @Override
+    public BulkheadExecutorService newExecutor(final ExecutorProvider.Stage stage, final int maxConcurrency, final int queueCapacity) {
+        if (!this.isVirtual()) {
+            return super.newExecutor(stage, maxConcurrency, queueCapacity);
+        }
+
+        return new BulkheadExecutor(
+            "sqs-" + stage.name().toLowerCase() + "-virtual",
+            maxConcurrency,
+            queueCapacity,
+            this.virtualThreadFactory,
+            newRejectionPolicy(stage));
+    }
+
+    @Override
+    public int getDefaultMaxConcurrency(final ExecutorProvider.Stage stage) {
+        final int concurrency = super.getDefaultMaxConcurrency(stage);
+        if (!this.isVirtual() || stage == ExecutorProvider.Stage.MATCHING) {
+            return concurrency;
+        }
+        return Math.min(ExecutorProvider.Stage.MAX_CONCURRENCY_MAX, concurrency * BLOCKING_STAGE_FACTOR);
+    }
+
+    // Thread.ofVirtual().factory()
+    @CheckForNull
+    static ThreadFactory createVirtualThreadFactory() {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Virtual threads not supported: %s", e);
+            return null;
+        }
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor()
+    @CheckForNull
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Virtual thread executor not supported: %s", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.interfaces;
+
+import java.util.concurrent.ExecutorService;
+
+
+/**
+ * Interface definition for executors of one {@link ExecutorProvider.Stage}, with a bounded concurrency
+ * and a bounded queue of waiting tasks.
+ */
+public interface BulkheadExecutorService extends ExecutorService {
+
+    /**
+     * Returns the name of the executor, used for threads and statistics.
+     * @return The name of the executor.
+     */
+    String getName();
+
+    /**
+     * Returns the maximum number of tasks executed concurrently.
+     * @return The maximum number of concurrent tasks.
+     */
+    int getMaxConcurrency();
+
+    /**
+     * Returns the maximum number of tasks waiting for execution, further tasks are rejected.
+     * @return The capacity of the queue.
+     */
+    int getQueueCapacity();
+
+    int getActiveCount();
+
+    int getQueueSize();
+
+    long getCompletedTaskCount();
+
+    /**
+     * Returns the number of tasks handed to the rejection policy because the queue was full.
+     * @return The number of rejected tasks.
+     */
+    long getRejectedCount();
+
+    /**
+     * Changes the limits of the executor, tasks already queued are not affected.
+     * @param maxConcurrency The new maximum number of concurrent tasks.
+     * @param queueCapacity The new capacity of the queue.
+     * @throws IllegalArgumentException If a limit is less than one.
+     */
+    void resize(int maxConcurrency, int queueCapacity) throws IllegalArgumentException;
+}
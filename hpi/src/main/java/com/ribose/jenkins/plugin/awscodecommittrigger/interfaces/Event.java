@@ -51,6 +51,12 @@ public interface Event {
 
     String getNoPrefixBranch();
 
+    /**
+     * Returns the commit the branch points to after the change.
+     * @return The commit id, or {@code null} if unknown.
+     */
+    String getCommit();
+
     /**
      * Returns a value indicating whether the specified URI matches the events host and path
      * information.
@@ -17,15 +17,88 @@
 package com.ribose.jenkins.plugin.awscodecommittrigger.interfaces;
 
 import com.google.inject.Provider;
+import com.ribose.jenkins.plugin.awscodecommittrigger.threading.KeyedLaneExecutor;
 
 import java.util.concurrent.ExecutorService;
 
 
 /**
  * Interface definition for classes that provide access to an {@link ExecutorService} instance.
+ * <p>
+ * Every {@link Stage} has its own {@link BulkheadExecutorService} so that a slow stage cannot stall the others,
+ * {@link #get()} returns the executor of {@link Stage#POLLING}.
  */
 public interface ExecutorProvider extends Provider<ExecutorService> {
 
+    enum Stage {
+        /**
+         * Receive loops of the queue monitors, rejected tasks are retried by the monitor.
+         */
+        POLLING(50, 100),
+
+        /**
+         * Parsing, routing and matching of received messages, rejected tasks run on the polling thread.
+         */
+        MATCHING(4, 50),
+
+        /**
+         * SCM polls and scheduling of builds, rejected tasks stay in their lane and are retried later.
+         */
+        TRIGGERING(10, 200);
+
+        public static final int MAX_CONCURRENCY_MIN = 1;
+        public static final int MAX_CONCURRENCY_MAX = 2000;
+        public static final int QUEUE_CAPACITY_MIN = 1;
+        public static final int QUEUE_CAPACITY_MAX = 10000;
+
+        private final int defaultMaxConcurrency;
+        private final int defaultQueueCapacity;
+
+        Stage(final int defaultMaxConcurrency, final int defaultQueueCapacity) {
+            this.defaultMaxConcurrency = defaultMaxConcurrency;
+            this.defaultQueueCapacity = defaultQueueCapacity;
+        }
+
+        public int getDefaultMaxConcurrency() {
+            return this.defaultMaxConcurrency;
+        }
+
+        public int getDefaultQueueCapacity() {
+            return this.defaultQueueCapacity;
+        }
+    }
+
+    /**
+     * Returns the executor of the specified stage.
+     * @param stage The {@link Stage} to execute tasks of.
+     * @return The {@link BulkheadExecutorService} of the stage.
+     */
+    BulkheadExecutorService get(Stage stage);
+
+    /**
+     * Returns the lanes of the specified stage, tasks of the same lane run one at a time on the executor of
+     * the stage.
+     * @param stage The {@link Stage} to execute tasks of.
+     * @return The {@link KeyedLaneExecutor} of the stage.
+     */
+    KeyedLaneExecutor getLanes(Stage stage);
+
+    /**
+     * Returns the concurrency of the specified stage unless configured otherwise.
+     * @param stage The {@link Stage}.
+     * @return The default maximum number of concurrent tasks.
+     */
+    int getDefaultMaxConcurrency(Stage stage);
+
+    /**
+     * Changes the limits of the executor of the specified stage.
+     * @param stage The {@link Stage} to configure.
+     * @param maxConcurrency The maximum number of concurrent tasks.
+     * @param queueCapacity The maximum number of waiting tasks.
+     * @throws IllegalArgumentException If a limit is less than one.
+     */
+    void configure(Stage stage, int maxConcurrency, int queueCapacity) throws IllegalArgumentException;
+
     /**
      * Returns the core number of threads.
      * @return The core number of threads.
@@ -26,14 +26,14 @@ import com.amazonaws.services.sqs.model.Message;
 public interface MessageParserFactory {
 
     /**
-     * Returns a new parser based on the type of the message that is specified.
+     * Returns a parser based on the type of the message that is specified.
      * @param message The {@link Message} for which to create a parser.
      * @return A {@link MessageParser} that can be used to parse the message.
      */
     MessageParser createParser(Message message);
 
     /**
-     * Returns a new parser that can be used to parse messages created by CodeCommit events.
+     * Returns a parser that can be used to parse messages created by CodeCommit events.
      * @return A {@link MessageParser} suitable for parsing CodeCommit events.
      */
     MessageParser createCodeCommitParser();
@@ -17,4 +17,20 @@
 package com.ribose.jenkins.plugin.awscodecommittrigger.interfaces;
 
 public interface SQSExecutorFactory extends com.amazonaws.client.builder.ExecutorFactory {
+
+    /**
+     * Creates the executor of a stage, see {@link ExecutorProvider}.
+     * @param stage The {@link ExecutorProvider.Stage} the executor is used for.
+     * @param maxConcurrency The maximum number of concurrent tasks.
+     * @param queueCapacity The maximum number of waiting tasks.
+     * @return A new {@link BulkheadExecutorService}.
+     */
+    BulkheadExecutorService newExecutor(ExecutorProvider.Stage stage, int maxConcurrency, int queueCapacity);
+
+    /**
+     * Returns the concurrency of a stage unless configured otherwise, depends on the kind of threads used.
+     * @param stage The {@link ExecutorProvider.Stage}.
+     * @return The default maximum number of concurrent tasks of the stage.
+     */
+    int getDefaultMaxConcurrency(ExecutorProvider.Stage stage);
 }
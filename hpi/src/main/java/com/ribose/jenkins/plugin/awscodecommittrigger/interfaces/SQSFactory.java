@@ -66,4 +66,9 @@ public interface SQSFactory {
     SQSQueueMonitor createMonitor(final SQSQueueMonitor monitor, final SQSQueue queue);
 
     ClientConfiguration getClientConfiguration(final Proxy proxy);
+
+    /**
+     * Shuts down all SQS clients created for monitors, called when Jenkins stops.
+     */
+    void shutDown();
 }
@@ -34,6 +34,10 @@ public interface SQSQueue {
     int MAX_NUMBER_OF_MESSAGES_MIN = 1;
     int MAX_NUMBER_OF_MESSAGES_MAX = 10;
 
+    int CONSUMERS_DEFAULT = 1;
+    int CONSUMERS_MIN = 1;
+    int CONSUMERS_MAX = 10;
+
     /**
      * Returns the identifier used to uniquely identify the queue configuration.
      * @return The unique identifier of this configuration.
@@ -66,6 +70,12 @@ public interface SQSQueue {
      */
     int getMaxNumberOfMessages();
 
+    /**
+     * Returns the number of receivers that poll the queue concurrently, all of them notify the same listeners.
+     * @return The number of concurrent consumers of the queue.
+     */
+    int getConsumers();
+
     boolean hasCredentials();
 
     Regions getRegion();
@@ -18,7 +18,10 @@
 package com.ribose.jenkins.plugin.awscodecommittrigger.interfaces;
 
 import com.amazonaws.services.sqs.model.Message;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.entities.ParsedMessage;
 
+import javax.annotation.CheckForNull;
+import java.util.Collection;
 import java.util.List;
 
 
@@ -35,8 +38,26 @@ public interface SQSQueueListener {
      */
     String getQueueUuid();
 
+    /**
+     * The name the messages this listener matched are recorded with in the
+     * {@link com.ribose.jenkins.plugin.awscodecommittrigger.logging.MessageIndex}.
+     * @return The full name of the job of this listener, {@code null} if it has none.
+     */
+    @CheckForNull
+    String getName();
+
 //    String getSubscribedBranches();
 
+    /**
+     * The keys of the repositories this listener is subscribed to, as built by
+     * {@link com.ribose.jenkins.plugin.awscodecommittrigger.utils.StringUtils#getRepositoryKey(String, String)}.
+     * The monitor only dispatches messages having an event for one of these repositories to this listener.
+     * @return The repository keys, empty if no repository can match, or {@code null} if this listener
+     * can not be routed by repository and must receive every message.
+     */
+    @CheckForNull
+    Collection<String> getRepositoryKeys();
+
     /**
      * The method to be invoked when new messages arrive in the SQS queue this listener is
      * associated with.
@@ -44,4 +65,15 @@ public interface SQSQueueListener {
      * @return list of {@link Message} proceed
      */
     List<Message> handleMessages(List<Message> messages);
+
+    /**
+     * The method to be invoked when new messages arrive in the SQS queue this listener is
+     * associated with, after the monitor has parsed them.
+     * <p>
+     * The same instances are passed to every listener of the queue, implementations must not
+     * modify them.
+     * @param messages The collection of {@link ParsedMessage} instances that were posted to the queue.
+     * @return list of {@link Message} proceed
+     */
+    List<Message> handleParsedMessages(List<ParsedMessage> messages);
 }
@@ -18,6 +18,10 @@ package com.ribose.jenkins.plugin.awscodecommittrigger.interfaces;
 
 import com.amazonaws.services.sqs.model.Message;
 import com.ribose.jenkins.plugin.awscodecommittrigger.net.SQSChannel;
+import com.ribose.jenkins.plugin.awscodecommittrigger.threading.CircuitBreaker;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -51,6 +55,13 @@ public interface SQSQueueMonitor extends Runnable {
      */
     boolean add(SQSQueueListener listener);
 
+    /**
+     * Registers all of the specified listeners with the monitor in one step, see {@link #add(SQSQueueListener)}.
+     * @param listeners The {@link SQSQueueListener}s to register with the monitor.
+     * @return {@code true} if the call caused monitoring to be started; otherwise, {@code false}.
+     */
+    boolean addAll(Collection<? extends SQSQueueListener> listeners);
+
     /**
      * Unregisters a previously registered listener from the monitor. The listener will no longer
      * be notified when new messages arrive in the queue.
@@ -68,12 +79,28 @@ public interface SQSQueueMonitor extends Runnable {
      */
     void shutDown();
 
+    /**
+     * Waits until the monitor is stopped and the messages it was processing when it was shut down are done.
+     * @param timeout The maximum time to wait.
+     * @param unit The unit of the timeout.
+     * @return {@code true} if the monitor is stopped, {@code false} if the timeout elapsed before.
+     * @throws InterruptedException The current thread was interrupted while waiting.
+     */
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException;
+
     /**
      * Returns a value indicating whether the monitor is stopped.
      * @return {@code true} if the monitor is stopped; otherwise, {@code false}.
      */
     boolean isShutDown();
 
+    /**
+     * Returns the recovery policy of this monitor. Failed requests are retried with backoff instead of
+     * stopping the monitor.
+     * @return The {@link CircuitBreaker} of this monitor.
+     */
+    CircuitBreaker getCircuitBreaker();
+
     /**
      * Returns the SQS queue this monitor is associated with.
      * @return The {@link SQSQueue} this monitor is associated with.
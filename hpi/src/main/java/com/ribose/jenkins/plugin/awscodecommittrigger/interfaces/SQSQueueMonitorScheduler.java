@@ -19,6 +19,10 @@ package com.ribose.jenkins.plugin.awscodecommittrigger.interfaces;
 import com.google.common.eventbus.Subscribe;
 import com.ribose.jenkins.plugin.awscodecommittrigger.model.events.ConfigurationChangedEvent;
 
+import javax.annotation.CheckForNull;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
 
 /**
  * Interface definition for classes that schedule the execution of {@link SQSQueueMonitor}
@@ -39,6 +43,15 @@ public interface SQSQueueMonitorScheduler {
      */
     boolean register(SQSQueueListener listener);
 
+    /**
+     * Registers all of the specified listeners with the scheduler, looking up each queue and creating its
+     * monitor once and then attaching all listeners of the queue in a single step.
+     * @param listeners The {@link SQSQueueListener}s to be registered.
+     * @return The number of registered listeners, listeners whose queue configuration could not be found are
+     * skipped.
+     */
+    int registerAll(Collection<? extends SQSQueueListener> listeners);
+
     /**
      * Unregisters the specified listener from the scheduler. The listener will no longer
      * be notified of new messages.
@@ -48,6 +61,14 @@ public interface SQSQueueMonitorScheduler {
      */
     boolean unregister(SQSQueueListener listener);
 
+    /**
+     * Returns the monitor of the specified queue.
+     * @param queueUuid The unique identifier of the queue configuration.
+     * @return The {@link SQSQueueMonitor} of the queue, {@code null} if no listener is registered for it.
+     */
+    @CheckForNull
+    SQSQueueMonitor getMonitor(String queueUuid);
+
     /**
      * Notifies the scheduler that the global configuration was changed. It should shut down all
      * monitors for which the associated queue configuration was removed.
@@ -55,4 +76,19 @@ public interface SQSQueueMonitorScheduler {
      */
     @Subscribe
     void onConfigurationChanged(ConfigurationChangedEvent event);
+
+    /**
+     * Shuts down all monitors and cancels their receives in flight, called when Jenkins stops. Listeners
+     * registered afterwards start new monitors.
+     */
+    void shutDown();
+
+    /**
+     * Waits until all monitors shut down by {@link #shutDown()} processed the messages they received before.
+     * @param timeout The maximum time to wait.
+     * @param unit The unit of the timeout.
+     * @return {@code true} if all monitors are stopped, {@code false} if the timeout elapsed before.
+     * @throws InterruptedException The current thread was interrupted while waiting.
+     */
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException;
 }
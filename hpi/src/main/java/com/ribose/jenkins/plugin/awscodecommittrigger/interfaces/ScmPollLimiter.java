@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.interfaces;
+
+import java.util.Collection;
+
+
+/**
+ * Interface definition for classes that admit SCM polls triggered by messages, limiting how many polls run
+ * at the same time in total and against the same remote host.
+ */
+public interface ScmPollLimiter {
+
+    int MAX_POLLS_DEFAULT = 20;
+    int MAX_POLLS_MIN = 1;
+    int MAX_POLLS_MAX = 1000;
+
+    int MAX_POLLS_PER_HOST_DEFAULT = 5;
+    int MAX_POLLS_PER_HOST_MIN = 1;
+    int MAX_POLLS_PER_HOST_MAX = 1000;
+
+    int JITTER_MILLIS_DEFAULT = 0;
+    int JITTER_MILLIS_MIN = 0;
+    int JITTER_MILLIS_MAX = 60000;
+
+    /**
+     * Admission of one poll, closing it more than once has no effect.
+     */
+    interface Permit extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    /**
+     * Waits a random jitter, then until a poll against all of the specified hosts is admitted.
+     * @param hosts The remote hosts the poll contacts, may be empty.
+     * @return The {@link Permit} to close when the poll is done.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    Permit acquire(Collection<String> hosts) throws InterruptedException;
+
+    /**
+     * Changes the limits, polls already admitted are not affected.
+     * @param maxPolls The maximum number of polls in flight.
+     * @param maxPollsPerHost The maximum number of polls in flight against one host.
+     * @param jitterMillis The maximum random delay, in milliseconds, before a poll is admitted.
+     */
+    void configure(int maxPolls, int maxPollsPerHost, int jitterMillis);
+
+    int getInFlight();
+
+    int getWaiting();
+
+    long getAdmittedCount();
+
+    /**
+     * @return The average time, in milliseconds, polls waited for admission.
+     */
+    long getAverageWaitMillis();
+}
@@ -0,0 +1,498 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.logging;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.time.FastDateFormat;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+
+/**
+ * Writes the activity log of one job, a file per day in the activity dir of the job.
+ * <p>
+ * Log records and SCM polling output are queued and written in batches by a shared background thread, which
+ * flushes every {@link #FLUSH_INTERVAL_MILLIS} or as soon as {@link #BATCH_SIZE} entries are queued. The file of
+ * the current day stays open while entries come in, it is closed once nothing was written for
+ * {@link #IDLE_CLOSE_MILLIS}, when the day changes, on {@link #close()} and before the activity is cleared, so
+ * only jobs that are active hold files open. There is one appender per activity dir until its job is deleted or
+ * moved, see {@link #remove(File)}, or Jenkins stops, see {@link #closeAll()}, so logging costs the same for
+ * every trigger no matter how many ran before.
+ * <p>
+ * The offset index of the current file is written along with it. When a file is opened the files of past days
+ * are archived and those older than {@value #RETENTION_DAYS_DEFAULT} days, or the days of the system property
+ * {@value #RETENTION_DAYS_PROPERTY}, are deleted, a value of 0 or less keeps them forever. See
+ * {@link ActivityFiles}.
+ */
+public class ActivityAppender extends Handler {
+
+    private static final Log log = Log.get(ActivityAppender.class);
+
+    public static final long FLUSH_INTERVAL_MILLIS = 1000;
+    public static final int BATCH_SIZE = 256;
+    public static final long IDLE_CLOSE_MILLIS = 60000;
+
+    public static final String RETENTION_DAYS_PROPERTY = "com.ribose.jenkins.plugin.awscodecommittrigger.activityRetentionDays";
+    public static final int RETENTION_DAYS_DEFAULT = 30;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final FastDateFormat DAY_FORMAT = FastDateFormat.getInstance("yyyyMMdd");
+
+    private static final ConcurrentMap<File, ActivityAppender> appenders = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, "SQSTrigger activity log");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    static {
+        flusher.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                flushAll();
+            }
+        }, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private final File dir;
+    private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Runnable flushTask = new Runnable() {
+
+        @Override
+        public void run() {
+            ActivityAppender.this.flush();
+        }
+    };
+
+    // guarded by this
+    private String day;
+    private OutputStream out;
+    private Writer index;
+    private long offset;
+    private long lines;
+    private long lastWrite;
+
+    // once removed from the appenders, anything appended is dropped
+    private volatile boolean removed;
+
+    private volatile List<String> names;
+
+    private ActivityAppender(final File dir) {
+        this.dir = dir;
+        this.setFormatter(new SimpleFormatter());
+        this.setLevel(Level.INFO);
+    }
+
+    /**
+     * @param dir The activity dir of a job.
+     * @return The appender of the dir.
+     */
+    public static ActivityAppender get(final File dir) {
+        final File key = dir.getAbsoluteFile();
+        ActivityAppender appender = appenders.get(key);
+        if (appender == null) {
+            final ActivityAppender created = new ActivityAppender(key);
+            appender = appenders.putIfAbsent(key, created);
+            if (appender == null) {
+                appender = created;
+            }
+        }
+        return appender;
+    }
+
+    /**
+     * Writes everything queued by all appenders and closes their files if idle, called periodically.
+     */
+    public static void flushAll() {
+        for (final ActivityAppender appender : appenders.values()) {
+            appender.flush();
+        }
+    }
+
+    /**
+     * Writes everything queued by all appenders and closes them, called when Jenkins stops.
+     */
+    public static void closeAll() {
+        for (final File dir : appenders.keySet()) {
+            final ActivityAppender appender = appenders.remove(dir);
+            if (appender != null) {
+                appender.close();
+                appender.removed = true;
+            }
+        }
+    }
+
+    /**
+     * Drops everything queued by the appender of the dir and closes it, e.g. when its job is deleted. The next
+     * {@link #get(File)} creates a new appender.
+     * @param dir The activity dir of a job.
+     */
+    public static void remove(final File dir) {
+        final ActivityAppender appender = appenders.remove(dir.getAbsoluteFile());
+        if (appender != null) {
+            appender.discard();
+        }
+    }
+
+    /**
+     * Drops everything queued by the appenders whose dir does not exist anymore and closes them, e.g. when jobs
+     * are renamed or moved to another folder along with their activity dirs. Writing to them would create the
+     * dirs again at their old location.
+     */
+    public static void removeMissing() {
+        for (final File dir : appenders.keySet()) {
+            if (!dir.exists()) {
+                log.debug("Remove activity appender of moved dir %s", dir);
+                remove(dir);
+            }
+        }
+    }
+
+    /**
+     * @param millis A time in epoch millis.
+     * @return The file of the day of the time.
+     */
+    public File getFile(final long millis) {
+        return new File(this.dir, String.format("activities-on-%s.log", DAY_FORMAT.format(millis)));
+    }
+
+    /**
+     * @return The names of the log files and archives of the dir, latest day first. The names are listed once and
+     * then kept up to date by the appender.
+     */
+    public List<String> getLogNames() {
+        List<String> names = this.names;
+        if (names == null) {
+            names = Collections.unmodifiableList(ActivityFiles.listLogNames(this.dir));
+            this.names = names;
+        }
+        return names;
+    }
+
+    @Override
+    public void publish(final LogRecord record) {
+        if (!this.isLoggable(record)) {
+            return;
+        }
+        this.append(record.getMillis(), this.getFormatter().format(record));
+    }
+
+    /**
+     * @return A stream that appends the text written to it, e.g. for a {@link hudson.model.TaskListener}. Text
+     * is queued per line, and the rest on {@link OutputStream#flush()} and {@link OutputStream#close()}.
+     */
+    public OutputStream newOutputStream() {
+        return new LineOutputStream();
+    }
+
+    public void append(final long millis, final String text) {
+        this.enqueue(new Entry(millis, text, null));
+    }
+
+    /**
+     * Queues a mark, it is notified of the file and line the next entry is written at once the entries queued
+     * before it are written.
+     */
+    public void mark(final long millis, final Mark mark) {
+        this.enqueue(new Entry(millis, null, mark));
+    }
+
+    private void enqueue(final Entry entry) {
+        if (this.removed) {
+            return;
+        }
+
+        this.pending.add(entry);
+        if (this.pendingCount.incrementAndGet() == BATCH_SIZE) {
+            try {
+                flusher.execute(this.flushTask);
+            } catch (RejectedExecutionException e) {
+                this.flush();
+            }
+        }
+    }
+
+    /**
+     * Writes everything queued so far, or closes the current file if nothing was written for
+     * {@link #IDLE_CLOSE_MILLIS}. Only queued entries are written, call {@link #flushAll()} or wait for the
+     * background flush to have them on disk.
+     */
+    @Override
+    public synchronized void flush() {
+        if (this.removed) {
+            this.reset();
+            return;
+        }
+
+        if (this.pending.isEmpty()) {
+            if (this.out != null && System.currentTimeMillis() - this.lastWrite >= IDLE_CLOSE_MILLIS) {
+                log.debug("Close idle activity log of %s", this.dir);
+                this.closeStream();
+            }
+            return;
+        }
+
+        final List<Entry> batch = new ArrayList<>(this.pendingCount.get());
+        Entry entry;
+        while ((entry = this.pending.poll()) != null) {
+            this.pendingCount.decrementAndGet();
+            batch.add(entry);
+        }
+
+        try {
+            for (final Entry next : batch) {
+                if (next.mark != null) {
+                    this.getStream(next.millis);
+                    this.notify(next.mark, this.getFile(next.millis));
+                    continue;
+                }
+
+                final byte[] bytes = next.text.getBytes(UTF_8);
+                this.getStream(next.millis).write(bytes);
+                this.track(bytes, 0, bytes.length);
+            }
+            if (this.out != null) {
+                this.out.flush();
+                this.index.flush();
+            }
+            this.lastWrite = System.currentTimeMillis();
+        } catch (IOException e) {
+            log.warning("Unable to write %d activity entries to %s: %s", batch.size(), this.dir, e);
+            this.closeStream();
+        }
+    }
+
+    /**
+     * Writes everything queued and closes the current file, the next entry opens it again.
+     */
+    @Override
+    public synchronized void close() {
+        this.flush();
+        this.closeStream();
+    }
+
+    /**
+     * Drops everything queued and closes the current file, e.g. before the activity dir is cleared.
+     */
+    public synchronized void reset() {
+        this.pending.clear();
+        this.pendingCount.set(0);
+        this.closeStream();
+        this.names = null;
+    }
+
+    private synchronized void discard() {
+        this.removed = true;
+        this.reset();
+    }
+
+    private void notify(final Mark mark, final File file) {
+        try {
+            mark.written(file, this.lines);
+        } catch (RuntimeException e) {
+            log.warning("Unable to notify activity mark of %s: %s", file, e);
+        }
+    }
+
+    private OutputStream getStream(final long millis) throws IOException {
+        final String day = DAY_FORMAT.format(millis);
+        if (this.out == null || !day.equals(this.day)) {
+            this.closeStream();
+
+            if (!this.dir.exists() && !this.dir.mkdirs()) {
+                throw new IOException("Unable to create activity dir " + this.dir);
+            }
+            this.maintain(day, millis);
+            this.open(this.getFile(millis));
+            this.day = day;
+            this.names = Collections.unmodifiableList(ActivityFiles.listLogNames(this.dir));
+        }
+        return this.out;
+    }
+
+    /**
+     * Opens the file for appending and restores its line count and the missing tail of its index, if any, by
+     * reading the file from its last indexed offset.
+     */
+    private void open(final File file) throws IOException {
+        final List<Long> offsets = ActivityFiles.readIndex(file);
+        if (!offsets.isEmpty() && offsets.get(offsets.size() - 1) > file.length()) {
+            ActivityFiles.delete(ActivityFiles.getIndexFile(file));
+            offsets.clear();
+        }
+
+        this.index = ActivityFiles.openIndex(file);
+        this.lines = (long) offsets.size() * ActivityFiles.INDEX_INTERVAL;
+        this.offset = offsets.isEmpty() ? 0 : offsets.get(offsets.size() - 1);
+        if (file.exists()) {
+            try (InputStream in = new FileInputStream(file)) {
+                IOUtils.skipFully(in, this.offset);
+                final byte[] buffer = new byte[8192];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    this.track(buffer, 0, n);
+                }
+            }
+        }
+        this.out = new BufferedOutputStream(new FileOutputStream(file, true));
+    }
+
+    private void track(final byte[] bytes, final int off, final int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            if (bytes[i] == '\n' && ++this.lines % ActivityFiles.INDEX_INTERVAL == 0) {
+                this.index.write(Long.toString(this.offset + i - off + 1));
+                this.index.write('\n');
+            }
+        }
+        this.offset += len;
+    }
+
+    /**
+     * Archives the log files of days before the specified one and deletes the files beyond retention.
+     */
+    private void maintain(final String day, final long millis) {
+        final int retentionDays = Integer.getInteger(RETENTION_DAYS_PROPERTY, RETENTION_DAYS_DEFAULT);
+        final String oldest = retentionDays > 0 ? DAY_FORMAT.format(millis - TimeUnit.DAYS.toMillis(retentionDays - 1)) : null;
+
+        final File[] files = this.dir.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        for (final File file : files) {
+            final String fileDay = ActivityFiles.getDay(file.getName());
+            if (fileDay == null) {
+                continue;
+            }
+
+            try {
+                if (oldest != null && fileDay.compareTo(oldest) < 0) {
+                    log.debug("Delete expired activity file %s", file);
+                    ActivityFiles.delete(file);
+                } else if (fileDay.compareTo(day) < 0 && ActivityFiles.isLogName(file.getName()) && !ActivityFiles.isArchive(file)) {
+                    log.debug("Archive activity file %s", file);
+                    ActivityFiles.archive(file);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warning("Unable to archive or expire activity file %s: %s", file, e);
+            }
+        }
+    }
+
+    private void closeStream() {
+        if (this.out == null) {
+            return;
+        }
+
+        try {
+            try {
+                this.out.close();
+            } finally {
+                this.index.close();
+            }
+        } catch (IOException e) {
+            log.warning("Unable to close activity log of %s: %s", this.dir, e);
+        }
+        this.out = null;
+        this.index = null;
+        this.day = null;
+    }
+
+    /**
+     * A position in the activity log, e.g. of a decision to record in the {@link MessageIndex}.
+     */
+    public interface Mark {
+
+        /**
+         * Called by the thread writing the log, must not block.
+         * @param file The activity file.
+         * @param line The line of the file, from 0.
+         */
+        void written(File file, long line);
+    }
+
+    private static final class Entry {
+
+        private final long millis;
+        private final String text;
+        private final Mark mark;
+
+        private Entry(final long millis, final String text, final Mark mark) {
+            this.millis = millis;
+            this.text = text;
+            this.mark = mark;
+        }
+    }
+
+    private final class LineOutputStream extends OutputStream {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        @Override
+        public synchronized void write(final int b) {
+            this.buffer.write(b);
+            if (b == '\n') {
+                this.append();
+            }
+        }
+
+        @Override
+        public synchronized void write(final byte[] b, final int off, final int len) {
+            this.buffer.write(b, off, len);
+            for (int i = off + len - 1; i >= off; i--) {
+                if (b[i] == '\n') {
+                    this.append();
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public synchronized void flush() {
+            this.append();
+        }
+
+        @Override
+        public synchronized void close() {
+            this.append();
+        }
+
+        private void append() {
+            if (this.buffer.size() > 0) {
+                ActivityAppender.this.append(System.currentTimeMillis(), new String(this.buffer.toByteArray(), UTF_8));
+                this.buffer.reset();
+            }
+        }
+    }
+}
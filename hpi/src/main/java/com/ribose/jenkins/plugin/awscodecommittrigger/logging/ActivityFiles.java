@@ -0,0 +1,314 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.logging;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+
+import javax.annotation.CheckForNull;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * Reads, archives and expires the activity log files of a job.
+ * <p>
+ * Every log file {@code activities-on-yyyyMMdd.log} has an offset index {@code <file>.idx}, a text file with the
+ * byte offset of every {@link #INDEX_INTERVAL}th line, so a page of any file is read without scanning the lines
+ * before it. Days before the current one are archived to {@code activities-on-yyyyMMdd.log.gz}, which is written
+ * as one gzip member per {@link #INDEX_INTERVAL} lines, its index holds the compressed offset of every member.
+ */
+public final class ActivityFiles {
+
+    public static final int INDEX_INTERVAL = 1000;
+
+    static final String INDEX_SUFFIX = ".idx";
+    static final String ARCHIVE_SUFFIX = ".gz";
+
+    private static final Pattern LOG_NAME = Pattern.compile("activities-on-(\\d{8})\\.log(\\.gz)?");
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+    private static final int BUFFER_SIZE = 8192;
+
+    private ActivityFiles() {
+    }
+
+    /**
+     * @param name A file name.
+     * @return {@code true} if the name is the name of a log file or archive, its index is not.
+     */
+    public static boolean isLogName(final String name) {
+        return name != null && LOG_NAME.matcher(name).matches();
+    }
+
+    /**
+     * @param name The name of a log file, index or archive.
+     * @return The day of the file as {@code yyyyMMdd}, {@code null} if it is no activity file.
+     */
+    static String getDay(final String name) {
+        final String logName = name.endsWith(INDEX_SUFFIX) ? name.substring(0, name.length() - INDEX_SUFFIX.length()) : name;
+        final Matcher matcher = LOG_NAME.matcher(logName);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    /**
+     * @param dir The activity dir of a job.
+     * @param name The name of a log file or archive, e.g. as recorded in the {@link MessageIndex} on the day it
+     *             was written.
+     * @return The file of the name, or its archive once its day is archived, {@code null} if there is neither.
+     */
+    @CheckForNull
+    public static File resolve(final File dir, final String name) {
+        if (!isLogName(name)) {
+            return null;
+        }
+
+        final File file = new File(dir, name);
+        if (file.exists()) {
+            return file;
+        }
+        final File archive = new File(dir, name + ARCHIVE_SUFFIX);
+        return !isArchive(file) && archive.exists() ? archive : null;
+    }
+
+    static boolean isArchive(final File file) {
+        return file.getName().endsWith(ARCHIVE_SUFFIX);
+    }
+
+    static File getIndexFile(final File file) {
+        return new File(file.getPath() + INDEX_SUFFIX);
+    }
+
+    /**
+     * @param dir The activity dir of a job.
+     * @return The names of the log files and archives in the dir, latest day first.
+     */
+    public static List<String> listLogNames(final File dir) {
+        final List<String> names = new ArrayList<>();
+        final String[] files = dir.list();
+        if (files != null) {
+            for (final String name : files) {
+                if (isLogName(name)) {
+                    names.add(name);
+                }
+            }
+        }
+        Collections.sort(names, Collections.reverseOrder());
+        return names;
+    }
+
+    /**
+     * @param file A log file or archive.
+     * @return The indexed offsets of the file, the offset of line {@code (i + 1) * INDEX_INTERVAL} at {@code i}.
+     */
+    static List<Long> readIndex(final File file) throws IOException {
+        final List<Long> offsets = new ArrayList<>();
+        final File index = getIndexFile(file);
+        if (!index.exists()) {
+            return offsets;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(index), US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    offsets.add(Long.parseLong(line));
+                }
+            }
+        }
+        return offsets;
+    }
+
+    static Writer openIndex(final File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(getIndexFile(file), true), US_ASCII));
+    }
+
+    /**
+     * Compresses a log file of a past day to an archive and deletes the log file and its index. A partly written
+     * archive of an earlier attempt is replaced.
+     * @param file The log file.
+     * @return The archive.
+     */
+    static File archive(final File file) throws IOException {
+        final File archive = new File(file.getPath() + ARCHIVE_SUFFIX);
+        final File tmp = new File(archive.getPath() + ".tmp");
+        final File tmpIndex = new File(tmp.getPath() + INDEX_SUFFIX);
+
+        try (InputStream in = new FileInputStream(file);
+             CountingOutputStream out = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+             Writer index = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmpIndex), US_ASCII))) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            MemberOutputStream member = new MemberOutputStream(out);
+            long lines = 0;
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                int start = 0;
+                for (int i = 0; i < n; i++) {
+                    if (buffer[i] == '\n' && ++lines % INDEX_INTERVAL == 0) {
+                        member.write(buffer, start, i + 1 - start);
+                        member.end();
+                        start = i + 1;
+
+                        index.write(Long.toString(out.getByteCount()));
+                        index.write('\n');
+                        member = new MemberOutputStream(out);
+                    }
+                }
+                member.write(buffer, start, n - start);
+            }
+            member.end();
+        }
+
+        rename(tmpIndex, getIndexFile(archive));
+        rename(tmp, archive);
+        delete(getIndexFile(file));
+        delete(file);
+        return archive;
+    }
+
+    /**
+     * Reads a page of lines from a log file or archive, seeking to the nearest indexed offset before the first line.
+     * @param file The log file or archive.
+     * @param firstLine The number of the first line to read, from 0.
+     * @param count The maximum number of lines to read.
+     * @return The page.
+     */
+    public static Page read(final File file, final long firstLine, final int count) throws IOException {
+        final List<Long> offsets = readIndex(file);
+        final int chunk = (int) Math.min(Math.max(firstLine, 0) / INDEX_INTERVAL, offsets.size());
+        long line = (long) chunk * INDEX_INTERVAL;
+
+        try (FileInputStream in = new FileInputStream(file)) {
+            if (chunk > 0) {
+                IOUtils.skipFully(in, offsets.get(chunk - 1));
+            }
+
+            final InputStream source = isArchive(file) ? new GZIPInputStream(in, BUFFER_SIZE) : in;
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(source, UTF_8), BUFFER_SIZE);
+            while (line < firstLine && reader.readLine() != null) {
+                line++;
+            }
+
+            final List<String> lines = new ArrayList<>(count);
+            String text;
+            while (lines.size() < count && (text = reader.readLine()) != null) {
+                lines.add(text);
+            }
+            return new Page(file.getName(), line, Math.max(line - count, 0), lines, reader.readLine() != null);
+        }
+    }
+
+    /**
+     * @param file A log file.
+     * @param bytes The number of bytes to tail at most.
+     * @return The offset of the first line that starts in the last bytes of the file.
+     */
+    public static long getTailOffset(final File file, final long bytes) throws IOException {
+        final long length = file.length();
+        if (length <= bytes) {
+            return 0;
+        }
+
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(length - bytes);
+            int b;
+            while ((b = in.read()) != -1 && b != '\n') {
+                // skip the partial line
+            }
+            return in.getFilePointer();
+        }
+    }
+
+    static void delete(final File file) {
+        if (file.exists() && !file.delete()) {
+            throw new IllegalStateException("Unable to delete " + file);
+        }
+    }
+
+    private static void rename(final File from, final File to) throws IOException {
+        delete(to);
+        if (!from.renameTo(to)) {
+            throw new IOException(String.format("Unable to rename %s to %s", from, to));
+        }
+    }
+
+    /**
+     * One gzip member, ending it writes the trailer and releases the deflater but not the underlying stream.
+     */
+    private static final class MemberOutputStream extends GZIPOutputStream {
+
+        private MemberOutputStream(final OutputStream out) throws IOException {
+            super(out, BUFFER_SIZE);
+        }
+
+        private void end() throws IOException {
+            this.finish();
+            this.def.end();
+        }
+    }
+
+    /**
+     * Lines of a log file or archive.
+     */
+    public static final class Page {
+
+        private final String name;
+        private final long firstLine;
+        private final long previousLine;
+        private final List<String> lines;
+        private final boolean more;
+
+        Page(final String name, final long firstLine, final long previousLine, final List<String> lines, final boolean more) {
+            this.name = name;
+            this.firstLine = firstLine;
+            this.previousLine = previousLine;
+            this.lines = lines;
+            this.more = more;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public long getFirstLine() {
+            return this.firstLine;
+        }
+
+        public long getPreviousLine() {
+            return this.previousLine;
+        }
+
+        public long getNextLine() {
+            return this.firstLine + this.lines.size();
+        }
+
+        public List<String> getLines() {
+            return this.lines;
+        }
+
+        public boolean isMore() {
+            return this.more;
+        }
+    }
+}
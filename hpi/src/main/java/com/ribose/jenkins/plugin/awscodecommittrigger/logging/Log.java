@@ -24,81 +24,215 @@ import org.apache.commons.lang.exception.ExceptionUtils;
 import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.logging.Handler;
 import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
 import java.util.logging.StreamHandler;
 
 
+/**
+ * Logs to {@link java.util.logging}, and optionally to a handler of its own such as an {@link ActivityAppender},
+ * with the class, thread and job prepended to each message.
+ * <p>
+ * The level is checked first: a message below the level of the logger is neither formatted nor tagged, and
+ * arguments, stack traces and job names are only resolved for messages that are published. The debug methods
+ * have overloads for up to three arguments so disabled debug calls do not allocate an argument array, pass
+ * objects rather than their {@code toString()} so they are only rendered when needed.
+ */
 public class Log {
 
-    private transient StreamHandler streamHandler;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final int THREAD_ID_DIGITS = 6;
+    private static final String NO_JOB_NAME = "--no-name--";
+
+    private transient Handler handler;
+    private transient boolean flushEach;
     private transient Logger logger;
     private transient Class clazz;
+    private transient String classTag;
     private transient boolean autoFormat = true;//TODO change name?
 
     private Log(Class clazz) {
         this.clazz = clazz;
         this.logger = Logger.getLogger(this.clazz.getName());
+        this.classTag = "[" + ClassUtils.getAbbreviatedName(this.clazz, 1) + "]";
     }
 
     public static Log get(Class clazz) {
         return new Log(clazz);
     }
 
+    /**
+     * @return A log that writes to the specified stream too, each message is flushed right away.
+     */
     public static Log get(Class clazz, PrintStream out, boolean autoFormat) throws IOException {
-        Log log = get(clazz);
-        log.autoFormat = autoFormat;
+        return get(clazz, new StreamHandler(out, new SimpleFormatter()), autoFormat, true);
+    }
 
-        log.streamHandler = new StreamHandler(out, new SimpleFormatter());
-        log.logger.addHandler(log.streamHandler);
+    /**
+     * @return A log that publishes to the specified {@link ActivityAppender} too, which writes asynchronously.
+     */
+    public static Log get(Class clazz, ActivityAppender appender, boolean autoFormat) {
+        return get(clazz, appender, autoFormat, false);
+    }
 
+    // the handler is owned by this log, adding it to the shared logger of the class would keep it forever and
+    // publish the messages of every other log of the class to it
+    private static Log get(Class clazz, Handler handler, boolean autoFormat, boolean flushEach) {
+        Log log = get(clazz);
+        log.autoFormat = autoFormat;
+        log.handler = handler;
+        log.flushEach = flushEach;
         return log;
     }
 
+    public boolean isDebugEnabled() {
+        return this.logger.isLoggable(Level.CONFIG);
+    }
+
     public void error(final String message, final Object... args) {
-        write(Level.SEVERE, message, args);
+        if (this.logger.isLoggable(Level.SEVERE)) {
+            write(Level.SEVERE, message, null, args);
+        }
     }
 
     public void error(String message, final SQSJob job, final Object... args) {
-        error(message, (Job) job.getJenkinsJob(), args);
+        if (this.logger.isLoggable(Level.SEVERE)) {
+            write(Level.SEVERE, message, jobName(job), args);
+        }
     }
 
     public void error(String message, final Job job, final Object... args) {
-        write(Level.SEVERE, message, job, args);
+        if (this.logger.isLoggable(Level.SEVERE)) {
+            write(Level.SEVERE, message, jobName(job), args);
+        }
     }
 
     public void info(final String message, final Object... args) {
-        write(Level.INFO, message, args);
+        if (this.logger.isLoggable(Level.INFO)) {
+            write(Level.INFO, message, null, args);
+        }
     }
 
     public void info(String message, final Job job, final Object... args) {
-        write(Level.INFO, message, job, args);
+        if (this.logger.isLoggable(Level.INFO)) {
+            write(Level.INFO, message, jobName(job), args);
+        }
     }
 
     public void info(String message, final SQSJob job, final Object... args) {
-        this.info(message, (Job) job.getJenkinsJob(), args);
+        if (this.logger.isLoggable(Level.INFO)) {
+            write(Level.INFO, message, jobName(job), args);
+        }
+    }
+
+    public void debug(final String message) {
+        if (this.isDebugEnabled()) {
+            write(Level.CONFIG, message, null);
+        }
+    }
+
+    public void debug(final String message, final Object arg) {
+        if (this.isDebugEnabled()) {
+            write(Level.CONFIG, message, null, arg);
+        }
+    }
+
+    public void debug(final String message, final Object arg1, final Object arg2) {
+        if (this.isDebugEnabled()) {
+            write(Level.CONFIG, message, null, arg1, arg2);
+        }
+    }
+
+    public void debug(final String message, final Object arg1, final Object arg2, final Object arg3) {
+        if (this.isDebugEnabled()) {
+            write(Level.CONFIG, message, null, arg1, arg2, arg3);
+        }
     }
 
     public void debug(final String message, final Object... args) {
-        write(Level.CONFIG, message, args);
+        if (this.isDebugEnabled()) {
+            write(Level.CONFIG, message, null, args);
+        }
+    }
+
+    public void debug(String message, final Job job) {
+        if (this.isDebugEnabled()) {
+            write(Level.CONFIG, message, jobName(job));
+        }
+    }
+
+    public void debug(String message, final Job job, final Object arg) {
+        if (this.isDebugEnabled()) {
+            write(Level.CONFIG, message, jobName(job), arg);
+        }
+    }
+
+    public void debug(String message, final Job job, final Object arg1, final Object arg2) {
+        if (this.isDebugEnabled()) {
+            write(Level.CONFIG, message, jobName(job), arg1, arg2);
+        }
+    }
+
+    public void debug(String message, final Job job, final Object arg1, final Object arg2, final Object arg3) {
+        if (this.isDebugEnabled()) {
+            write(Level.CONFIG, message, jobName(job), arg1, arg2, arg3);
+        }
     }
 
     public void debug(String message, final Job job, final Object... args) {
-        write(Level.CONFIG, message, job, args);
+        if (this.isDebugEnabled()) {
+            write(Level.CONFIG, message, jobName(job), args);
+        }
+    }
+
+    public void debug(String message, final SQSJob job) {
+        if (this.isDebugEnabled()) {
+            write(Level.CONFIG, message, jobName(job));
+        }
+    }
+
+    public void debug(String message, final SQSJob job, final Object arg) {
+        if (this.isDebugEnabled()) {
+            write(Level.CONFIG, message, jobName(job), arg);
+        }
+    }
+
+    public void debug(String message, final SQSJob job, final Object arg1, final Object arg2) {
+        if (this.isDebugEnabled()) {
+            write(Level.CONFIG, message, jobName(job), arg1, arg2);
+        }
+    }
+
+    public void debug(String message, final SQSJob job, final Object arg1, final Object arg2, final Object arg3) {
+        if (this.isDebugEnabled()) {
+            write(Level.CONFIG, message, jobName(job), arg1, arg2, arg3);
+        }
     }
 
     public void debug(String message, final SQSJob job, final Object... args) {
-        debug(message, (Job) job.getJenkinsJob(), args);
+        if (this.isDebugEnabled()) {
+            write(Level.CONFIG, message, jobName(job), args);
+        }
     }
 
     public void warning(final String message, final Object... args) {
-        write(Level.WARNING, message, args);
+        if (this.logger.isLoggable(Level.WARNING)) {
+            write(Level.WARNING, message, null, args);
+        }
     }
 
-    private void write(final Level level, final String message, final String jobName, final Object... args) {
+    /**
+     * Format and publish a message whose level is enabled.
+     * @param jobName The name of the job to tag the message with, {@code null} for none.
+     */
+    private void write(final Level level, final String message, @Nullable final String jobName, final Object... args) {
         for (int i = 0; i < args.length; i++) {
             if (args[i] instanceof SQSTriggerQueue) {
                 args[i] = ((SQSTriggerQueue) args[i]).getUrl();
@@ -108,37 +242,60 @@ public class Log {
             }
         }
 
-        StringBuilder source = new StringBuilder();
+        String source = "";
         if (this.autoFormat) {
-            final String id = String.format("%06X", Thread.currentThread().getId());
-            source
-                .append("[").append(ClassUtils.getAbbreviatedName(this.clazz, 1)).append("]")
-                .append("[thread-").append(id).append("]");
+            final StringBuilder builder = new StringBuilder(64)
+                .append(this.classTag)
+                .append("[thread-");
+            appendHex(builder, Thread.currentThread().getId());
+            builder.append("]");
             if (StringUtils.isNotBlank(jobName)) {
-                source.append("[job-").append(jobName).append("]");
+                builder.append("[job-").append(jobName).append("]");
             }
+            source = builder.toString();
         }
 
-        String msg = String.format(message, args);
+        String msg = args.length == 0 ? message : String.format(message, args);
         if (level == Level.CONFIG) {
             msg = "[DEBUG] " + msg;
         } else if (level == Level.SEVERE) {
             msg = "[ERROR] " + msg;
         }
 
-        this.logger.logp(level, source.toString(), "", msg);
-        if (this.streamHandler != null) {
-            this.streamHandler.flush();
+        final LogRecord record = new LogRecord(level, msg);
+        record.setLoggerName(this.logger.getName());
+        record.setSourceClassName(source);
+        record.setSourceMethodName("");
+        this.logger.log(record);
+
+        if (this.handler != null) {
+            this.handler.publish(record);
+            if (this.flushEach) {
+                this.handler.flush();
+            }
         }
     }
 
-    private void write(final Level level, final String message, final Job job, final Object... args) {
-        String name = job == null ? "--no-name--" : job.getName();
-        this.write(level, message, name, args);
+    private static String jobName(final SQSJob job) {
+        return jobName(job == null ? null : (Job) job.getJenkinsJob());
+    }
+
+    private static String jobName(final Job job) {
+        return job == null ? NO_JOB_NAME : job.getName();
     }
 
-    private void write(final Level level, final String message, final Object... args) {
-        this.write(level, message, "", args);
+    // same as String.format("%06X", value) for non-negative values
+    private static void appendHex(final StringBuilder builder, final long value) {
+        int digits = 1;
+        while (digits < 16 && (value >>> (4 * digits)) != 0) {
+            digits++;
+        }
+        for (int i = digits; i < THREAD_ID_DIGITS; i++) {
+            builder.append('0');
+        }
+        for (int i = digits - 1; i >= 0; i--) {
+            builder.append(HEX_DIGITS[(int) (value >>> (4 * i)) & 0xF]);
+        }
     }
 
     public Logger getLogger() {
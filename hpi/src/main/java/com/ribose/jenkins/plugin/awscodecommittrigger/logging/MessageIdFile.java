@@ -0,0 +1,238 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.logging;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+
+/**
+ * Writes and looks up the id file of a day of the {@link MessageIndex}, which maps the message ids and commit ids
+ * of the day to the positions of their records.
+ * <p>
+ * The file is written once the day is over. It holds the width of its keys and the number of its entries, then
+ * the entries sorted by key, each the UTF-8 bytes of the key padded with zeros to the width and the position of
+ * the record. An id and all ids starting with a prefix are found by binary search, reading about twenty entries
+ * of the file whatever its size. Ids longer than {@link #MAX_KEY_BYTES} are not indexed, neither SQS message ids
+ * nor commit ids come close.
+ */
+final class MessageIdFile {
+
+    static final String SUFFIX = ".ids";
+    static final int MAX_KEY_BYTES = 128;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int HEADER_BYTES = 8;
+
+    private static final Comparator<Entry> ORDER = new Comparator<Entry>() {
+
+        @Override
+        public int compare(final Entry a, final Entry b) {
+            final int order = compareKeys(a.key, b.key);
+            return order != 0 ? order : Long.compare(a.position, b.position);
+        }
+    };
+
+    private MessageIdFile() {
+    }
+
+    /**
+     * @param file A log file of the index.
+     * @return The id file of the log file.
+     */
+    static File getFile(final File file) {
+        final String name = file.getName();
+        return new File(file.getParentFile(), name.substring(0, name.lastIndexOf('.')) + SUFFIX);
+    }
+
+    /**
+     * Reads the records of a log file and writes its id file, replacing it atomically.
+     * @param file The log file of a day that is over.
+     * @param day The day of the file, since the epoch.
+     * @param offsetBits The number of bits of a position holding the offset in the file.
+     */
+    static void write(final File file, final long day, final int offsetBits) throws IOException {
+        final List<Entry> entries = new ArrayList<>();
+        int width = 1;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+            long offset = 0;
+            long start = 0;
+            int b;
+            while ((b = in.read()) != -1) {
+                offset++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+
+                final MessageIndex.Record record = MessageIndex.Record.parse(new String(line.toByteArray(), UTF_8));
+                line.reset();
+                if (record != null) {
+                    final long position = (day << offsetBits) | start;
+                    width = add(entries, record.getMessageId(), position, width);
+                    for (final String commit : record.getCommits()) {
+                        width = add(entries, commit, position, width);
+                    }
+                }
+                start = offset;
+            }
+        }
+        Collections.sort(entries, ORDER);
+
+        final File ids = getFile(file);
+        final File tmp = File.createTempFile(ids.getName(), ".tmp", file.getParentFile());
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(width);
+                out.writeInt(entries.size());
+                for (final Entry entry : entries) {
+                    out.write(entry.key);
+                    out.write(new byte[width - entry.key.length]);
+                    out.writeLong(entry.position);
+                }
+            }
+            ActivityFiles.delete(ids);
+            if (!tmp.renameTo(ids)) {
+                throw new IOException(String.format("Unable to rename %s to %s", tmp, ids));
+            }
+        } finally {
+            if (tmp.exists()) {
+                ActivityFiles.delete(tmp);
+            }
+        }
+    }
+
+    /**
+     * Finds the positions of the records of an id, and of the ids starting with it.
+     * @param file The id file.
+     * @param key The id.
+     * @param exact The positions of the records of the id are added to it.
+     * @param prefixed The positions of the records of other ids starting with the id are added to it, {@code null}
+     *                 to not look them up.
+     * @param limit The maximum number of positions to add to each collection.
+     */
+    static void find(final File file, final String key, final Collection<Long> exact, final Collection<Long> prefixed, final int limit) throws IOException {
+        final byte[] bytes = key.getBytes(UTF_8);
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            final int width = in.readInt();
+            final int count = in.readInt();
+            if (bytes.length > width) {
+                return;
+            }
+
+            final byte[] entry = new byte[width];
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                read(in, width, middle, entry);
+                if (compareKeys(entry, bytes) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            int exactCount = 0;
+            int prefixedCount = 0;
+            for (int i = low; i < count; i++) {
+                final long position = read(in, width, i, entry);
+                if (!startsWith(entry, bytes)) {
+                    break;
+                }
+
+                if (isKey(entry, bytes)) {
+                    if (exactCount++ < limit) {
+                        exact.add(position);
+                    }
+                } else if (prefixed == null || prefixedCount++ >= limit) {
+                    break;
+                } else {
+                    prefixed.add(position);
+                }
+            }
+        }
+    }
+
+    private static int add(final List<Entry> entries, final String key, final long position, final int width) {
+        final byte[] bytes = key.getBytes(UTF_8);
+        if (bytes.length == 0 || bytes.length > MAX_KEY_BYTES) {
+            return width;
+        }
+        entries.add(new Entry(bytes, position));
+        return Math.max(width, bytes.length);
+    }
+
+    // reads the key of the entry into the buffer and returns its position
+    private static long read(final RandomAccessFile in, final int width, final int index, final byte[] key) throws IOException {
+        in.seek(HEADER_BYTES + (long) index * (width + 8));
+        in.readFully(key);
+        return in.readLong();
+    }
+
+    // unsigned, a key that is a prefix of another one is less, as are zeros padding it
+    private static int compareKeys(final byte[] a, final byte[] b) {
+        final int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            final int order = (a[i] & 0xff) - (b[i] & 0xff);
+            if (order != 0) {
+                return order;
+            }
+        }
+        for (int i = length; i < a.length; i++) {
+            if (a[i] != 0) {
+                return 1;
+            }
+        }
+        for (int i = length; i < b.length; i++) {
+            if (b[i] != 0) {
+                return -1;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean startsWith(final byte[] entry, final byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (entry[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isKey(final byte[] entry, final byte[] key) {
+        return key.length == entry.length || entry[key.length] == 0;
+    }
+
+    private static final class Entry {
+
+        private final byte[] key;
+        private final long position;
+
+        private Entry(final byte[] key, final long position) {
+            this.key = key;
+            this.position = position;
+        }
+    }
+}
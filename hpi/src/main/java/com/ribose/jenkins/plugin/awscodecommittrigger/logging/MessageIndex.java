@@ -0,0 +1,680 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.logging;
+
+import com.google.inject.Inject;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang.time.FastDateFormat;
+
+import javax.annotation.CheckForNull;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Maps SQS message ids and commit ids to the jobs that matched them and what those jobs decided, across all jobs.
+ * <p>
+ * Records are appended to a text file per day (UTC) in {@value #DIR_NAME} of the Jenkins home: one line per
+ * received message with the time, message id, commits and the jobs that matched it, and one line per decision of
+ * a matched job with the activity file and line of the job that logged it. Records are queued and written by a
+ * background thread, like the {@link ActivityAppender}, which writes {@link #FLUSH_INTERVAL_MILLIS} after the first
+ * record or as soon as {@link #BATCH_SIZE} records are queued, so recording never waits for the disk.
+ * <p>
+ * Once a day is over its ids are written to a sorted {@link MessageIdFile} next to its records, which a lookup
+ * searches without reading the records. The positions of the records of the current day are kept in memory by
+ * message id and commit, for at most {@value #MAX_IDS} ids, the oldest ids are dropped first. Only the records of
+ * the current day that are not in memory, those written before Jenkins started or of dropped ids, are found by
+ * reading the file of the day. Files are kept as long as activity logs, see
+ * {@link ActivityAppender#RETENTION_DAYS_PROPERTY}.
+ */
+public class MessageIndex {
+
+    private static final Log log = Log.get(MessageIndex.class);
+
+    public static final String DIR_NAME = "sqs-trigger-messages";
+    public static final int MAX_RESULTS = 1000;
+    public static final int MAX_IDS = 100000;
+
+    public static final long FLUSH_INTERVAL_MILLIS = 1000;
+    public static final int BATCH_SIZE = 256;
+
+    /**
+     * Shortest prefix of a commit id that is looked up by prefix when no id matches exactly.
+     */
+    public static final int MIN_PREFIX_LENGTH = 7;
+
+    public enum Decision {
+        MATCHED, NOT_MATCHED, SCHEDULED, NOT_SCHEDULED, NO_CHANGES, INTERRUPTED
+    }
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final FastDateFormat DAY_FORMAT = FastDateFormat.getInstance("yyyyMMdd", UTC);
+    private static final String FILE_PREFIX = "messages-";
+    private static final String FILE_SUFFIX = ".log";
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    // a position is the day of the file since the epoch in the upper bits and the offset in the file below
+    private static final int OFFSET_BITS = 40;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+
+    private static final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, "SQSTrigger message index");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final File configuredDir;
+
+    private final Queue<Record> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Runnable writeTask = new Runnable() {
+
+        @Override
+        public void run() {
+            MessageIndex.this.scheduled.set(false);
+            MessageIndex.this.write();
+        }
+    };
+
+    // guarded by this, the positions of the current day, sorted to look up prefixes, and its ids oldest first
+    private final TreeMap<String, Positions> positions = new TreeMap<>();
+    private final Queue<String> ids = new ArrayDeque<>();
+    private long currentDay = -1;
+    // records of the current day before this position are not all in memory
+    private long scanBefore;
+    private File dir;
+    private OutputStream out;
+    private long offset;
+
+    @Inject
+    public MessageIndex() {
+        this(null);
+    }
+
+    /**
+     * @param dir The dir of the index files, {@code null} for {@value #DIR_NAME} in the Jenkins home.
+     */
+    public MessageIndex(@CheckForNull final File dir) {
+        this.configuredDir = dir;
+    }
+
+    /**
+     * Records which jobs matched a received message.
+     * @param messageId The SQS message id.
+     * @param commits The commit ids of the message.
+     * @param jobs The full names of the jobs that matched the message, empty if none did.
+     */
+    public void record(final String messageId, final Collection<String> commits, final Collection<String> jobs) {
+        final Decision decision = jobs.isEmpty() ? Decision.NOT_MATCHED : Decision.MATCHED;
+        this.enqueue(new Record(System.currentTimeMillis(), messageId, new ArrayList<>(commits), new ArrayList<>(jobs), decision, null, -1));
+    }
+
+    /**
+     * Records what a job decided about a message it matched.
+     * @param messageId The SQS message id.
+     * @param commits The commit ids of the message.
+     * @param job The full name of the job.
+     * @param decision The decision.
+     * @param file The name of the activity file the decision was logged to, {@code null} if it was not.
+     * @param line The line of the activity file the decision was logged at.
+     */
+    public void record(final String messageId, final Collection<String> commits, final String job, final Decision decision, @CheckForNull final String file, final long line) {
+        this.enqueue(new Record(System.currentTimeMillis(), messageId, new ArrayList<>(commits), Collections.singletonList(job), decision, file, file == null ? -1 : line));
+    }
+
+    void enqueue(final Record record) {
+        this.pending.add(record);
+        if (this.pendingCount.incrementAndGet() == BATCH_SIZE) {
+            this.execute(this.writeTask, 0);
+        } else if (this.scheduled.compareAndSet(false, true)) {
+            this.execute(this.writeTask, FLUSH_INTERVAL_MILLIS);
+        }
+    }
+
+    private void execute(final Runnable task, final long delayMillis) {
+        try {
+            writer.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            this.write();
+        }
+    }
+
+    /**
+     * Writes everything queued so far.
+     */
+    public synchronized void write() {
+        if (this.pending.isEmpty()) {
+            return;
+        }
+
+        final List<Record> batch = new ArrayList<>(this.pendingCount.get());
+        Record record;
+        while ((record = this.pending.poll()) != null) {
+            this.pendingCount.decrementAndGet();
+            batch.add(record);
+        }
+
+        try {
+            this.getDir();
+            for (final Record next : batch) {
+                this.append(next);
+            }
+            this.out.flush();
+        } catch (IOException e) {
+            log.warning("Unable to index %d messages: %s", batch.size(), e);
+            this.closeStream();
+        }
+    }
+
+    // records of an earlier day than the current one, e.g. as the clock is set back, are added to the current day
+    private void append(final Record record) throws IOException {
+        final long day = Math.max(record.time / DAY_MILLIS, this.currentDay);
+        if (this.out == null || day != this.currentDay) {
+            this.open(day);
+        }
+
+        final byte[] bytes = record.toLine().getBytes(UTF_8);
+        final long position = (day << OFFSET_BITS) | this.offset;
+        this.out.write(bytes);
+        this.offset += bytes.length;
+
+        this.put(record.messageId, position);
+        for (final String commit : record.commits) {
+            this.put(commit, position);
+        }
+    }
+
+    /**
+     * Writes everything queued, then finds the records of the id. Only the positions of the current day are looked
+     * up while locked, the id files and records are read without blocking the writer.
+     * @param id A message id, a commit id or a prefix of a commit id of at least {@value #MIN_PREFIX_LENGTH}
+     *           characters.
+     * @return The records of the id, at most {@value #MAX_RESULTS}, oldest first.
+     */
+    public List<Record> find(final String id) throws IOException {
+        final String key = id == null ? "" : id.trim();
+        if (key.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final boolean prefix = key.length() >= MIN_PREFIX_LENGTH;
+        final SortedSet<Long> exact = new TreeSet<>();
+        final SortedSet<Long> prefixed = new TreeSet<>();
+        final File dir;
+        final long currentDay;
+        final long scanBefore;
+        synchronized (this) {
+            this.write();
+            dir = this.getDir();
+            currentDay = this.currentDay;
+            scanBefore = this.scanBefore;
+            addPositions(exact, this.positions.get(key));
+            if (prefix) {
+                for (final Map.Entry<String, Positions> entry : this.positions.tailMap(key, false).entrySet()) {
+                    if (!entry.getKey().startsWith(key) || prefixed.size() >= MAX_RESULTS) {
+                        break;
+                    }
+                    addPositions(prefixed, entry.getValue());
+                }
+            }
+        }
+
+        final SortedMap<Long, Record> exactRecords = new TreeMap<>();
+        final SortedMap<Long, Record> prefixedRecords = new TreeMap<>();
+        final long today = System.currentTimeMillis() / DAY_MILLIS;
+        final String[] names = dir.list();
+        for (final String name : names == null ? new String[0] : names) {
+            final long day = getDay(name, FILE_SUFFIX);
+            if (day < 0) {
+                continue;
+            }
+
+            final File file = new File(dir, name);
+            try {
+                if (day == currentDay) {
+                    scan(file, day, scanBefore, key, prefix, exactRecords, prefixedRecords);
+                } else if (day >= today) {
+                    scan(file, day, Long.MAX_VALUE, key, prefix, exactRecords, prefixedRecords);//not written since Jenkins started
+                } else {
+                    final File ids = MessageIdFile.getFile(file);
+                    if (!ids.exists()) {
+                        MessageIdFile.write(file, day, OFFSET_BITS);
+                    }
+                    MessageIdFile.find(ids, key, exact, prefix ? prefixed : null, MAX_RESULTS);
+                }
+            } catch (FileNotFoundException e) {
+                log.debug("Message index %s expired while reading: %s", name, e);
+            }
+        }
+
+        if (!exact.isEmpty() || !exactRecords.isEmpty()) {
+            return read(dir, exact, exactRecords);
+        }
+        return prefix ? read(dir, prefixed, prefixedRecords) : Collections.<Record>emptyList();
+    }
+
+    /**
+     * Writes everything queued and closes the current file, the next record opens it again.
+     */
+    public synchronized void close() {
+        this.write();
+        this.closeStream();
+    }
+
+    private void closeStream() {
+        if (this.out == null) {
+            return;
+        }
+
+        try {
+            this.out.close();
+        } catch (IOException e) {
+            log.warning("Unable to close message index: %s", e);
+        }
+        this.out = null;
+    }
+
+    private void put(final String key, final long position) {
+        Positions current = this.positions.get(key);
+        if (current == null) {
+            current = new Positions();
+            this.positions.put(key, current);
+            this.ids.add(key);
+            if (this.ids.size() > MAX_IDS) {
+                final Positions dropped = this.positions.remove(this.ids.remove());
+                this.scanBefore = Math.max(this.scanBefore, dropped.last() + 1);
+            }
+        }
+        current.add(position);
+    }
+
+    private static void addPositions(final SortedSet<Long> found, @CheckForNull final Positions positions) {
+        if (positions != null) {
+            for (int i = 0; i < positions.size; i++) {
+                found.add(positions.values[i]);
+            }
+        }
+    }
+
+    /**
+     * Opens the file of the day, once the current day is over its ids are written and its positions forgotten.
+     */
+    private void open(final long day) throws IOException {
+        this.closeStream();
+        this.expire(day);
+
+        final File file = this.getFile(day);
+        truncateIncomplete(file);
+        this.out = new BufferedOutputStream(new FileOutputStream(file, true));
+        this.offset = file.length();
+        if (day == this.currentDay) {
+            return;
+        }
+
+        final long previousDay = this.currentDay;
+        this.currentDay = day;
+        this.positions.clear();
+        this.ids.clear();
+        this.scanBefore = (day << OFFSET_BITS) | this.offset;
+
+        final File previous = previousDay < 0 ? null : this.getFile(previousDay);
+        if (previous != null && previous.exists()) {
+            try {
+                MessageIdFile.write(previous, previousDay, OFFSET_BITS);
+            } catch (IOException e) {
+                log.warning("Unable to write ids of %s, they are written on the next lookup: %s", previous, e);
+            }
+        }
+    }
+
+    private File getDir() throws IOException {
+        if (this.dir != null) {
+            return this.dir;
+        }
+
+        File dir = this.configuredDir;
+        if (dir == null) {
+            final Jenkins jenkins = Jenkins.getInstance();
+            if (jenkins == null) {
+                throw new IOException("Jenkins is not running, no message index dir");
+            }
+            dir = new File(jenkins.getRootDir(), DIR_NAME);
+        }
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Unable to create message index dir " + dir);
+        }
+        this.dir = dir;
+        return dir;
+    }
+
+    /**
+     * Truncates a record that was not written completely at the end of the file, e.g. when Jenkins was killed.
+     */
+    private static void truncateIncomplete(final File file) throws IOException {
+        if (!file.exists() || file.length() == 0) {
+            return;
+        }
+
+        try (RandomAccessFile in = new RandomAccessFile(file, "rw")) {
+            long complete = in.length();
+            while (complete > 0) {
+                in.seek(complete - 1);
+                if (in.read() == '\n') {
+                    break;
+                }
+                complete--;
+            }
+            if (complete < in.length()) {
+                log.warning("Truncate incomplete record at the end of %s", file);
+                in.setLength(complete);
+            }
+        }
+    }
+
+    /**
+     * Reads the records of the id in the file of the current day before the position, those that are not in
+     * memory. A record that is being written is skipped.
+     */
+    private static void scan(final File file, final long day, final long scanBefore, final String key, final boolean prefix,
+                             final SortedMap<Long, Record> exact, final SortedMap<Long, Record> prefixed) throws IOException {
+        // the records starting before the end
+        final long end = scanBefore == Long.MAX_VALUE ? Long.MAX_VALUE : scanBefore & OFFSET_MASK;
+        if (end == 0) {
+            return;
+        }
+
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+            long offset = 0;
+            long start = 0;
+            int b;
+            while (start < end && (b = in.read()) != -1) {
+                offset++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+
+                final String text = new String(line.toByteArray(), UTF_8);
+                line.reset();
+                if (text.contains(key)) {
+                    final Record record = Record.parse(text);
+                    if (record != null) {
+                        final long position = (day << OFFSET_BITS) | start;
+                        if (record.hasId(key)) {
+                            exact.put(position, record);
+                        } else if (prefix && record.hasIdPrefix(key)) {
+                            prefixed.put(position, record);
+                        }
+                    }
+                }
+                start = offset;
+            }
+        }
+    }
+
+    /**
+     * Reads the records at the positions and merges them with the scanned ones, oldest first.
+     */
+    private static List<Record> read(final File dir, final SortedSet<Long> positions, final SortedMap<Long, Record> scanned) throws IOException {
+        final SortedMap<Long, Record> records = new TreeMap<>(scanned);
+        RandomAccessFile in = null;
+        long inDay = -1;
+        try {
+            for (final long position : positions) {
+                if (records.size() >= MAX_RESULTS && position > records.lastKey()) {
+                    break;
+                }
+                if (records.containsKey(position)) {
+                    continue;
+                }
+
+                final long day = position >>> OFFSET_BITS;
+                if (in == null || day != inDay) {
+                    if (in != null) {
+                        in.close();
+                        in = null;
+                    }
+                    final File file = new File(dir, getFileName(day));
+                    if (!file.exists()) {
+                        continue;//expired
+                    }
+                    in = new RandomAccessFile(file, "r");
+                    inDay = day;
+                }
+                in.seek(position & OFFSET_MASK);
+                final Record record = Record.parse(readLine(in));
+                if (record != null) {
+                    records.put(position, record);
+                }
+            }
+        } finally {
+            if (in != null) {
+                in.close();
+            }
+        }
+
+        final List<Record> found = new ArrayList<>(records.values());
+        return found.size() > MAX_RESULTS ? new ArrayList<>(found.subList(0, MAX_RESULTS)) : found;
+    }
+
+    /**
+     * Deletes the files of days beyond retention, with their ids.
+     */
+    private void expire(final long day) {
+        final int retentionDays = Integer.getInteger(ActivityAppender.RETENTION_DAYS_PROPERTY, ActivityAppender.RETENTION_DAYS_DEFAULT);
+        if (retentionDays <= 0) {
+            return;
+        }
+
+        final long oldest = day - retentionDays + 1;
+        final String[] names = this.dir.list();
+        for (final String name : names == null ? new String[0] : names) {
+            final long fileDay = Math.max(getDay(name, FILE_SUFFIX), getDay(name, MessageIdFile.SUFFIX));
+            if (fileDay >= 0 && fileDay < oldest) {
+                log.debug("Delete expired message index %s", name);
+                ActivityFiles.delete(new File(this.dir, name));
+            }
+        }
+    }
+
+    private File getFile(final long day) {
+        return new File(this.dir, getFileName(day));
+    }
+
+    private static String getFileName(final long day) {
+        return FILE_PREFIX + DAY_FORMAT.format(day * DAY_MILLIS) + FILE_SUFFIX;
+    }
+
+    private static long getDay(final String name, final String suffix) {
+        if (!name.startsWith(FILE_PREFIX) || !name.endsWith(suffix)) {
+            return -1;
+        }
+
+        final SimpleDateFormat format = new SimpleDateFormat("yyyyMMdd");
+        format.setTimeZone(UTC);
+        format.setLenient(false);
+        try {
+            return format.parse(name.substring(FILE_PREFIX.length(), name.length() - suffix.length())).getTime() / DAY_MILLIS;
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+
+    private static String readLine(final RandomAccessFile in) throws IOException {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        return new String(line.toByteArray(), UTF_8);
+    }
+
+    /**
+     * Positions of the records of an id, oldest first.
+     */
+    private static final class Positions {
+
+        private long[] values = new long[2];
+        private int size;
+
+        private void add(final long position) {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            }
+            this.values[this.size++] = position;
+        }
+
+        private long last() {
+            return this.values[this.size - 1];
+        }
+    }
+
+    /**
+     * Which jobs matched a message, or what a job decided about it, one line of tab separated fields in the index
+     * files.
+     */
+    public static final class Record {
+
+        private static final String NONE = "-";
+
+        // not allowed in item names, see jenkins.model.Jenkins#checkGoodName
+        private static final String JOB_SEPARATOR = "|";
+
+        private final long time;
+        private final String messageId;
+        private final List<String> commits;
+        private final List<String> jobs;
+        private final Decision decision;
+        private final String file;
+        private final long line;
+
+        Record(final long time, final String messageId, final List<String> commits, final List<String> jobs, final Decision decision, @CheckForNull final String file, final long line) {
+            this.time = time;
+            this.messageId = messageId;
+            this.commits = commits;
+            this.jobs = jobs;
+            this.decision = decision;
+            this.file = file;
+            this.line = line;
+        }
+
+        @CheckForNull
+        static Record parse(final String text) {
+            final String[] fields = text.split("\t", -1);
+            if (fields.length != 7) {
+                return null;
+            }
+
+            try {
+                final List<String> commits = NONE.equals(fields[2]) ? Collections.<String>emptyList() : Arrays.asList(fields[2].split(","));
+                final List<String> jobs = NONE.equals(fields[3]) ? Collections.<String>emptyList() : Arrays.asList(fields[3].split("\\" + JOB_SEPARATOR));
+                final String file = NONE.equals(fields[5]) ? null : fields[5];
+                return new Record(Long.parseLong(fields[0]), fields[1], commits, jobs, Decision.valueOf(fields[4]), file, Long.parseLong(fields[6]));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        String toLine() {
+            final StringBuilder line = new StringBuilder(128)
+                .append(this.time).append('\t')
+                .append(clean(this.messageId)).append('\t');
+            if (this.commits.isEmpty()) {
+                line.append(NONE);
+            } else {
+                for (int i = 0; i < this.commits.size(); i++) {
+                    line.append(i == 0 ? "" : ",").append(clean(this.commits.get(i)).replace(',', ' '));
+                }
+            }
+            line.append('\t');
+            if (this.jobs.isEmpty()) {
+                line.append(NONE);
+            } else {
+                for (int i = 0; i < this.jobs.size(); i++) {
+                    line.append(i == 0 ? "" : JOB_SEPARATOR).append(clean(this.jobs.get(i)).replace(JOB_SEPARATOR, " "));
+                }
+            }
+            return line.append('\t')
+                .append(this.decision).append('\t')
+                .append(this.file == null ? NONE : clean(this.file)).append('\t')
+                .append(this.line).append('\n')
+                .toString();
+        }
+
+        private boolean hasId(final String id) {
+            return this.messageId.equals(id) || this.commits.contains(id);
+        }
+
+        private boolean hasIdPrefix(final String prefix) {
+            for (final String commit : this.commits) {
+                if (commit.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return this.messageId.startsWith(prefix);
+        }
+
+        private static String clean(final String value) {
+            return value == null || value.isEmpty() ? NONE : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+        }
+
+        public Date getTime() {
+            return new Date(this.time);
+        }
+
+        public String getMessageId() {
+            return this.messageId;
+        }
+
+        public List<String> getCommits() {
+            return this.commits;
+        }
+
+        /**
+         * @return The jobs that matched the message, or the job that decided about it.
+         */
+        public List<String> getJobs() {
+            return this.jobs;
+        }
+
+        public Decision getDecision() {
+            return this.decision;
+        }
+
+        @CheckForNull
+        public String getFile() {
+            return this.file;
+        }
+
+        public long getLine() {
+            return this.line;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.logging;
+
+import com.ribose.jenkins.plugin.awscodecommittrigger.Context;
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.RootAction;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.Stapler;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Answers which jobs matched an SQS message or commit, and what they decided, at <code>/sqs-messages/</code> from
+ * the {@link MessageIndex}. Only records of jobs the user can read are shown, messages that matched none of them
+ * are not.
+ */
+@Extension
+public class MessageIndexAction implements RootAction {
+
+    public String getQuery() {
+        return Stapler.getCurrentRequest().getParameter("q");
+    }
+
+    public List<MessageIndex.Record> getRecords() throws IOException {
+        final Jenkins jenkins = Jenkins.getActiveInstance();
+        jenkins.checkPermission(Jenkins.READ);
+
+        final MessageIndex index = Context.injector().getBinding(MessageIndex.class).getProvider().get();
+        final List<MessageIndex.Record> records = new ArrayList<>();
+        for (final MessageIndex.Record record : index.find(this.getQuery())) {
+            if (!this.getReadableJobs(record).isEmpty()) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * @return The jobs of the record the user can read.
+     */
+    public List<String> getReadableJobs(final MessageIndex.Record record) {
+        final List<String> jobs = new ArrayList<>(record.getJobs().size());
+        for (final String job : record.getJobs()) {
+            if (this.getJobUrl(job) != null) {
+                jobs.add(job);
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * @return The URL of the job, relative to the root URL, {@code null} if the user can not read it.
+     */
+    public String getJobUrl(final String name) {
+        final Job job = Jenkins.getActiveInstance().getItemByFullName(name, Job.class);
+        return job == null || !job.hasPermission(Item.READ) ? null : job.getUrl();
+    }
+
+    /**
+     * @return The URL of the activity log page the decision of the record was logged at, relative to the root URL,
+     * {@code null} if it was not logged.
+     */
+    public String getActivityUrl(final MessageIndex.Record record) throws UnsupportedEncodingException {
+        if (record.getFile() == null || record.getJobs().size() != 1) {
+            return null;
+        }
+        final String jobUrl = this.getJobUrl(record.getJobs().get(0));
+        if (jobUrl == null) {
+            return null;
+        }
+        return String.format("%ssqs-activity/lines?name=%s&line=%d", jobUrl, URLEncoder.encode(record.getFile(), "UTF-8"), record.getLine());
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "clipboard.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "SQS Message Lookup";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "sqs-messages";
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Monotonic count of events, created by {@link MetricsRegistry#counter(String, String, String...)}.
+ */
+public class Counter {
+
+    private final AtomicLong value = new AtomicLong();
+
+    Counter() {
+    }
+
+    /**
+     * @return The count after the increment.
+     */
+    public long increment() {
+        return this.value.incrementAndGet();
+    }
+
+    public void add(final long delta) {
+        this.value.addAndGet(delta);
+    }
+
+    public long get() {
+        return this.value.get();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Distribution of recorded values over fixed buckets, created by
+ * {@link MetricsRegistry#histogram(String, String, long[], double, String...)}.
+ * <p>
+ * Values are recorded as longs in the unit of the bucket bounds, for example milliseconds, and multiplied by
+ * the scale of the histogram when exported, for example to seconds.
+ */
+public class Histogram {
+
+    /**
+     * Bucket bounds for latencies in milliseconds.
+     */
+    public static final long[] LATENCY_MILLIS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000, 300000};
+
+    /**
+     * Bucket bounds for latencies in microseconds, for work that takes less than a millisecond.
+     */
+    public static final long[] LATENCY_MICROS = {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 25000, 50000, 100000, 250000, 1000000};
+
+    /**
+     * Bucket bounds for the number of messages of a receive, SQS returns at most 10.
+     */
+    public static final long[] BATCH_SIZE = {0, 1, 2, 5, 10};
+
+    private final long[] bounds;
+    private final double scale;
+
+    // one bucket per bound and one for larger values, not cumulative
+    private final AtomicLongArray buckets;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+
+    Histogram(final long[] bounds, final double scale) {
+        this.bounds = bounds.clone();
+        Arrays.sort(this.bounds);
+        this.scale = scale;
+        this.buckets = new AtomicLongArray(this.bounds.length + 1);
+    }
+
+    public void record(final long value) {
+        int bucket = Arrays.binarySearch(this.bounds, value);
+        if (bucket < 0) {
+            bucket = -bucket - 1;
+        }
+
+        this.buckets.incrementAndGet(bucket);
+        this.count.incrementAndGet();
+        this.sum.addAndGet(value);
+    }
+
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * @return The sum of all recorded values, scaled.
+     */
+    public double getSum() {
+        return this.scale(this.sum.get());
+    }
+
+    /**
+     * @return The upper bounds of the buckets, scaled, without the bucket of larger values.
+     */
+    double[] getBounds() {
+        final double[] bounds = new double[this.bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = this.scale(this.bounds[i]);
+        }
+        return bounds;
+    }
+
+    // divide by the inverse of small scales, 10 * 0.000001 is not exactly 0.00001 but 10 / 1000000 is
+    private double scale(final long value) {
+        return this.scale < 1 ? value / Math.rint(1 / this.scale) : value * this.scale;
+    }
+
+    /**
+     * @return The cumulative count of values less than or equal to each bound, the last element counts all
+     * values.
+     */
+    long[] getCumulativeCounts() {
+        final long[] counts = new long[this.buckets.length()];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            total += this.buckets.get(i);
+            counts[i] = total;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.metrics;
+
+import com.ribose.jenkins.plugin.awscodecommittrigger.Context;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.Log;
+import hudson.Extension;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.RootAction;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+
+/**
+ * Exposes the {@link MetricsRegistry} in the Prometheus text format at <code>/sqs-metrics/</code>, for
+ * administrators, and as the MBean {@value MetricsMBean#OBJECT_NAME}.
+ */
+@Extension
+public class MetricsAction implements RootAction {
+
+    private static final Log log = Log.get(MetricsAction.class);
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void registerMBean() {
+        final MetricsRegistry registry = Context.injector().getBinding(MetricsRegistry.class).getProvider().get();
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(registry), new ObjectName(MetricsMBean.OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            log.debug("MBean %s already registered", MetricsMBean.OBJECT_NAME);
+        } catch (JMException e) {
+            log.warning("Unable to register MBean %s, error: %s", MetricsMBean.OBJECT_NAME, e);
+        }
+    }
+
+    public void doIndex(final StaplerRequest req, final StaplerResponse rsp) throws IOException {
+        Jenkins.getActiveInstance().checkPermission(Jenkins.ADMINISTER);
+
+        final MetricsRegistry registry = Context.injector().getBinding(MetricsRegistry.class).getProvider().get();
+        rsp.setContentType(CONTENT_TYPE);
+        registry.write(rsp.getWriter());
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return "sqs-metrics";
+    }
+}
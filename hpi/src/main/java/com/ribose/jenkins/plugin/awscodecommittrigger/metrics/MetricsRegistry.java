@@ -0,0 +1,238 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * Counters and histograms of the plugin, identified by name and labels.
+ * <p>
+ * Metrics are created on first use and live as long as the registry, those of a job until it is deleted or renamed.
+ * {@link #write(Writer)} exports them in the Prometheus text format, {@link #getSamples()} as flat values for JMX.
+ */
+public class MetricsRegistry {
+
+    private static final String TYPE_COUNTER = "counter";
+    private static final String TYPE_HISTOGRAM = "histogram";
+
+    private final ConcurrentMap<String, Family> families = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, QueueMetrics> queues = new ConcurrentHashMap<>();
+
+    /**
+     * @param name The metric name.
+     * @param help The description of the metric, the one of the first call is kept.
+     * @param labels Label names and values, alternating.
+     * @return The counter of the name and labels.
+     */
+    public Counter counter(final String name, final String help, final String... labels) {
+        final Family family = this.getFamily(name, help, TYPE_COUNTER);
+        final String key = formatLabels(labels);
+
+        Object metric = family.metrics.get(key);
+        if (metric == null) {
+            final Object created = new Counter();
+            metric = family.metrics.putIfAbsent(key, created);
+            if (metric == null) {
+                metric = created;
+            }
+        }
+        return (Counter) metric;
+    }
+
+    /**
+     * @param name The metric name.
+     * @param help The description of the metric, the one of the first call is kept.
+     * @param bounds The upper bounds of the buckets, the ones of the first call are kept.
+     * @param scale The factor to export recorded values with.
+     * @param labels Label names and values, alternating.
+     * @return The histogram of the name and labels.
+     */
+    public Histogram histogram(final String name, final String help, final long[] bounds, final double scale, final String... labels) {
+        final Family family = this.getFamily(name, help, TYPE_HISTOGRAM);
+        final String key = formatLabels(labels);
+
+        Object metric = family.metrics.get(key);
+        if (metric == null) {
+            final Object created = new Histogram(bounds, scale);
+            metric = family.metrics.putIfAbsent(key, created);
+            if (metric == null) {
+                metric = created;
+            }
+        }
+        return (Histogram) metric;
+    }
+
+    /**
+     * @param queue The name of the queue.
+     * @return The metrics of the queue.
+     */
+    public QueueMetrics forQueue(final String queue) {
+        final String name = String.valueOf(queue);
+        QueueMetrics metrics = this.queues.get(name);
+        if (metrics == null) {
+            final QueueMetrics created = new QueueMetrics(this, name);
+            metrics = this.queues.putIfAbsent(name, created);
+            if (metrics == null) {
+                metrics = created;
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Removes the metrics of a job in all queues, see {@link QueueMetrics}, so those of deleted and renamed jobs are
+     * neither kept nor exported any longer.
+     * @param job The full name of the job, as the metrics were labeled.
+     * @return The number of metrics removed.
+     */
+    public int removeJob(final String job) {
+        return this.remove("job", job);
+    }
+
+    // the metrics of every name that have the label with the value
+    private int remove(final String label, final String value) {
+        final String pair = formatLabels(label, value);
+        int removed = 0;
+        for (final Family family : this.families.values()) {
+            final Iterator<String> keys = family.metrics.keySet().iterator();
+            while (keys.hasNext()) {
+                if (hasLabel(keys.next(), pair)) {
+                    keys.remove();
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format.
+     * @param writer The {@link Writer} to write to.
+     * @throws IOException If writing fails.
+     */
+    public void write(final Writer writer) throws IOException {
+        for (final Map.Entry<String, Family> entry : new TreeMap<>(this.families).entrySet()) {
+            final String name = entry.getKey();
+            final Family family = entry.getValue();
+            writer.write("# HELP " + name + " " + family.help + "\n");
+            writer.write("# TYPE " + name + " " + family.type + "\n");
+
+            for (final Map.Entry<String, Object> metric : new TreeMap<>(family.metrics).entrySet()) {
+                final String labels = metric.getKey();
+                if (metric.getValue() instanceof Counter) {
+                    writer.write(name + braces(labels) + " " + ((Counter) metric.getValue()).get() + "\n");
+                    continue;
+                }
+
+                final Histogram histogram = (Histogram) metric.getValue();
+                final double[] bounds = histogram.getBounds();
+                final long[] counts = histogram.getCumulativeCounts();
+                final String prefix = labels.isEmpty() ? "" : labels + ",";
+                for (int i = 0; i < bounds.length; i++) {
+                    writer.write(name + "_bucket{" + prefix + "le=\"" + bounds[i] + "\"} " + counts[i] + "\n");
+                }
+                writer.write(name + "_bucket{" + prefix + "le=\"+Inf\"} " + counts[bounds.length] + "\n");
+                writer.write(name + "_sum" + braces(labels) + " " + histogram.getSum() + "\n");
+                writer.write(name + "_count" + braces(labels) + " " + histogram.getCount() + "\n");
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * @return The value of every counter and the count and sum of every histogram, keyed by sample name with
+     * labels.
+     */
+    public Map<String, Double> getSamples() {
+        final Map<String, Double> samples = new TreeMap<>();
+        for (final Map.Entry<String, Family> entry : this.families.entrySet()) {
+            final String name = entry.getKey();
+            for (final Map.Entry<String, Object> metric : entry.getValue().metrics.entrySet()) {
+                final String labels = braces(metric.getKey());
+                if (metric.getValue() instanceof Counter) {
+                    samples.put(name + labels, (double) ((Counter) metric.getValue()).get());
+                } else {
+                    final Histogram histogram = (Histogram) metric.getValue();
+                    samples.put(name + "_count" + labels, (double) histogram.getCount());
+                    samples.put(name + "_sum" + labels, histogram.getSum());
+                }
+            }
+        }
+        return samples;
+    }
+
+    private Family getFamily(final String name, final String help, final String type) {
+        Family family = this.families.get(name);
+        if (family == null) {
+            final Family created = new Family(help, type);
+            family = this.families.putIfAbsent(name, created);
+            if (family == null) {
+                family = created;
+            }
+        }
+
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException(String.format("Metric %s is a %s", name, family.type));
+        }
+        return family;
+    }
+
+    private static String formatLabels(final String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name and value pairs");
+        }
+
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return builder.toString();
+    }
+
+    // values have their quotes escaped, so a label pair can only match a whole label
+    private static boolean hasLabel(final String labels, final String pair) {
+        return labels.equals(pair) || labels.startsWith(pair + ",") || labels.endsWith("," + pair) || labels.contains("," + pair + ",");
+    }
+
+    private static String escape(final String value) {
+        return String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String braces(final String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    private static final class Family {
+
+        private final String help;
+        private final String type;
+        private final ConcurrentMap<String, Object> metrics = new ConcurrentHashMap<>();
+
+        private Family(final String help, final String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The metrics of one queue, every metric is labeled with the queue name and, for job metrics, the full name
+ * of the job. Latencies are recorded in milliseconds, those of parsing and matching in microseconds since they
+ * mostly take less than a millisecond, and exported in seconds.
+ */
+public class QueueMetrics {
+
+    private static final double MILLIS_TO_SECONDS = 0.001;
+    private static final double MICROS_TO_SECONDS = 0.000001;
+
+    private final MetricsRegistry registry;
+    private final String queue;
+
+    private final Counter receives;
+    private final Counter emptyReceives;
+    private final Counter receiveErrors;
+    private final Counter deleteFailures;
+    private final Histogram receiveLatency;
+    private final Histogram batchSize;
+    private final Histogram parseLatency;
+    private final Histogram receiveLag;
+    private final Counter redeliveries;
+
+    QueueMetrics(final MetricsRegistry registry, final String queue) {
+        this.registry = registry;
+        this.queue = queue;
+
+        this.receives = registry.counter("sqs_trigger_receives_total", "Receive requests sent to the queue.", "queue", queue);
+        this.emptyReceives = registry.counter("sqs_trigger_empty_receives_total", "Receive requests that returned no message.", "queue", queue);
+        this.receiveErrors = registry.counter("sqs_trigger_receive_errors_total", "Receive requests that failed.", "queue", queue);
+        this.deleteFailures = registry.counter("sqs_trigger_delete_failures_total", "Messages that could not be deleted from the queue.", "queue", queue);
+        this.receiveLatency = registry.histogram("sqs_trigger_receive_seconds", "Duration of receive requests, including long polling.", Histogram.LATENCY_MILLIS, MILLIS_TO_SECONDS, "queue", queue);
+        this.batchSize = registry.histogram("sqs_trigger_messages_per_receive", "Number of messages returned by a receive request.", Histogram.BATCH_SIZE, 1, "queue", queue);
+        this.parseLatency = registry.histogram("sqs_trigger_parse_seconds", "Duration of parsing the messages of one receive.", Histogram.LATENCY_MICROS, MICROS_TO_SECONDS, "queue", queue);
+        this.receiveLag = registry.histogram("sqs_trigger_receive_lag_seconds", "Time from sending a message to the queue until it was received.", Histogram.LATENCY_MILLIS, MILLIS_TO_SECONDS, "queue", queue);
+        this.redeliveries = registry.counter("sqs_trigger_redeliveries_total", "Messages received more than once.", "queue", queue);
+    }
+
+    /**
+     * @param queue The name of the queue.
+     * @return Metrics of the queue that are not exported anywhere, for components created outside of the
+     * plugin context.
+     */
+    public static QueueMetrics detached(final String queue) {
+        return new MetricsRegistry().forQueue(queue);
+    }
+
+    /**
+     * @param queue The name of a queue.
+     * @return The metrics of the queue in the same registry as these metrics.
+     */
+    public QueueMetrics forQueue(final String queue) {
+        return this.registry.forQueue(queue);
+    }
+
+    public String getQueue() {
+        return this.queue;
+    }
+
+    public Counter getReceives() {
+        return this.receives;
+    }
+
+    public Counter getEmptyReceives() {
+        return this.emptyReceives;
+    }
+
+    public Counter getReceiveErrors() {
+        return this.receiveErrors;
+    }
+
+    public Counter getDeleteFailures() {
+        return this.deleteFailures;
+    }
+
+    public Histogram getReceiveLatency() {
+        return this.receiveLatency;
+    }
+
+    public Histogram getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * @return The duration of parsing, record it in microseconds.
+     */
+    public Histogram getParseLatency() {
+        return this.parseLatency;
+    }
+
+    public Histogram getReceiveLag() {
+        return this.receiveLag;
+    }
+
+    public Counter getRedeliveries() {
+        return this.redeliveries;
+    }
+
+    /**
+     * @param job The full name of the job.
+     * @return The duration of matching, record it in microseconds.
+     */
+    public Histogram getMatchLatency(final String job) {
+        return this.registry.histogram("sqs_trigger_match_seconds", "Duration of matching the events of a message against a job.", Histogram.LATENCY_MICROS, MICROS_TO_SECONDS, "queue", this.queue, "job", job);
+    }
+
+    public Histogram getPollLatency(final String job) {
+        return this.registry.histogram("sqs_trigger_scm_poll_seconds", "Duration of SCM polls triggered by messages, including the wait for admission.", Histogram.LATENCY_MILLIS, MILLIS_TO_SECONDS, "queue", this.queue, "job", job);
+    }
+
+    public Counter getBuildsScheduled(final String job) {
+        return this.registry.counter("sqs_trigger_builds_scheduled_total", "Builds scheduled for messages.", "queue", this.queue, "job", job);
+    }
+
+    public Histogram getQueuedLag(final String job) {
+        return this.registry.histogram("sqs_trigger_push_to_queue_seconds", "Time from sending the earliest message of a trigger to the queue until its build was scheduled.", Histogram.LATENCY_MILLIS, MILLIS_TO_SECONDS, "queue", this.queue, "job", job);
+    }
+
+    /**
+     * @param startNanos The start time, from {@link System#nanoTime()}.
+     * @return The milliseconds elapsed since the start time.
+     */
+    public static long elapsedMillis(final long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @param startNanos The start time, from {@link System#nanoTime()}.
+     * @return The microseconds elapsed since the start time.
+     */
+    public static long elapsedMicros(final long startNanos) {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @param sentMillis The time a message was sent, in epoch millis.
+     * @return The milliseconds elapsed since then, never negative so clock skew does not distort histograms.
+     */
+    public static long lagMillis(final long sentMillis) {
+        return Math.max(0, System.currentTimeMillis() - sentMillis);
+    }
+}
@@ -46,7 +46,7 @@ public class CodeCommitMessageParser implements MessageParser {
 
         try {
             log.info("Retrieved message-id: %s", message.getMessageId());
-            log.debug("Parse Message:\n%s", message.toString());
+            log.debug("Parse Message:\n%s", message);
 
             String messageBody = message.getBody();
             log.debug("Retrieved message-body: %s", messageBody);
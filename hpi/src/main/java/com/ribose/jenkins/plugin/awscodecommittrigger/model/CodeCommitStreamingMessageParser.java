@@ -0,0 +1,242 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.model;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.Event;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.MessageParser;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.Log;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.entities.codecommit.CodeCommitEvent;
+import com.ribose.jenkins.plugins.awscodecommittrigger.shaded.com.fasterxml.jackson.core.JsonFactory;
+import com.ribose.jenkins.plugins.awscodecommittrigger.shaded.com.fasterxml.jackson.core.JsonParser;
+import com.ribose.jenkins.plugins.awscodecommittrigger.shaded.com.fasterxml.jackson.core.JsonToken;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.CheckForNull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Parse CodeCommit messages with a streaming JSON parser, straight to {@link CodeCommitEvent}s without
+ * intermediate trees or entities.
+ * <p>
+ * Accepts an SNS notification whose <code>Message</code> holds the records, or the records themselves. Any other
+ * body is handed to the fallback parser.
+ */
+public class CodeCommitStreamingMessageParser implements MessageParser {
+
+    private static final Log log = Log.get(CodeCommitStreamingMessageParser.class);
+
+    private static final String EVENT_SOURCE_CODECOMMIT = "aws:codecommit";
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final MessageParser fallback;
+
+    public CodeCommitStreamingMessageParser(final MessageParser fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public List<Event> parseMessage(final Message message) {
+        log.info("Retrieved message-id: %s", message.getMessageId());
+
+        final String messageBody = message.getBody();
+        if (StringUtils.isBlank(messageBody)) {
+            log.warning("Message %s has no body", message.getMessageId());
+            return Collections.emptyList();
+        }
+
+        try {
+            final List<Event> events = this.parseBody(messageBody);
+            if (events != null) {
+                return events;
+            }
+            log.debug("Message %s not recognised, fall back to default parser", message.getMessageId());
+        } catch (IOException e) {
+            log.warning("Unable to parse message %s, fall back to default parser, error: %s", message.getMessageId(), e);
+        }
+
+        return this.fallback.parseMessage(message);
+    }
+
+    // return null if the body is not recognised
+    @CheckForNull
+    private List<Event> parseBody(final String messageBody) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(messageBody)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+
+            List<Event> events = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                final JsonToken token = parser.nextToken();
+
+                if ("Message".equals(name)) {
+                    final String recordsJson = readString(parser, token);
+                    if (StringUtils.isNotBlank(recordsJson)) {
+                        return this.parseRecordsJson(recordsJson);
+                    }
+                } else if ("Records".equals(name) && token == JsonToken.START_ARRAY) {
+                    events = this.parseRecords(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            return events;
+        }
+    }
+
+    @CheckForNull
+    private List<Event> parseRecordsJson(final String recordsJson) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(recordsJson)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                log.warning("Message text is no JSON");
+                return Collections.emptyList();
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                final JsonToken token = parser.nextToken();
+
+                if ("Records".equals(name) && token == JsonToken.START_ARRAY) {
+                    return this.parseRecords(parser);
+                }
+                parser.skipChildren();
+            }
+
+            return null;
+        }
+    }
+
+    private List<Event> parseRecords(final JsonParser parser) throws IOException {
+        final List<Event> events = new ArrayList<>();
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.START_OBJECT) {
+                this.parseRecord(parser, events);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return events;
+    }
+
+    private void parseRecord(final JsonParser parser, final List<Event> events) throws IOException {
+        String eventSource = null;
+        String arn = null;
+        String user = null;
+        List<String[]> references = Collections.emptyList();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+
+            switch (name) {
+                case "eventSource":
+                    eventSource = readString(parser, token);
+                    break;
+
+                case "eventSourceARN":
+                    arn = readString(parser, token);
+                    break;
+
+                case "userIdentityARN":
+                    user = readString(parser, token);
+                    break;
+
+                case "codecommit":
+                    if (token == JsonToken.START_OBJECT) {
+                        references = this.parseReferences(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (!EVENT_SOURCE_CODECOMMIT.equals(eventSource) || arn == null) {
+            return;
+        }
+
+        for (final String[] reference : references) {
+            events.add(new CodeCommitEvent(arn, user, reference[0], reference[1]));
+        }
+    }
+
+    // return [ref, commit] pairs
+    private List<String[]> parseReferences(final JsonParser parser) throws IOException {
+        final List<String[]> references = new ArrayList<>(1);
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+
+            if (!"references".equals(name) || token != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+
+            JsonToken item;
+            while ((item = parser.nextToken()) != JsonToken.END_ARRAY && item != null) {
+                if (item != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                String reference = null;
+                String commit = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String field = parser.getCurrentName();
+                    final JsonToken value = parser.nextToken();
+                    if ("ref".equals(field)) {
+                        reference = readString(parser, value);
+                    } else if ("commit".equals(field)) {
+                        commit = readString(parser, value);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+
+                if (reference != null) {
+                    references.add(new String[]{reference, commit});
+                }
+            }
+        }
+
+        return references;
+    }
+
+    @CheckForNull
+    private static String readString(final JsonParser parser, final JsonToken token) throws IOException {
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getValueAsString();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.model.entities;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.Event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * An SQS {@link Message} together with the {@link Event}s parsed from its body.
+ * <p>
+ * Instances are immutable, a monitor parses every received message once and shares the result with
+ * all listeners of the queue.
+ */
+public final class ParsedMessage {
+
+    private final Message message;
+    private final List<Event> events;
+
+    public ParsedMessage(final Message message, final List<Event> events) {
+        this.message = message;
+
+        if (events == null || events.isEmpty()) {
+            this.events = Collections.emptyList();
+        } else {
+            this.events = Collections.unmodifiableList(new ArrayList<>(events));
+        }
+    }
+
+    public Message getMessage() {
+        return this.message;
+    }
+
+    public String getMessageId() {
+        return this.message.getMessageId();
+    }
+
+    /**
+     * Returns the events contained in the message.
+     * @return The unmodifiable collection of {@link Event} items, never {@code null}.
+     */
+    public List<Event> getEvents() {
+        return this.events;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%d events)", this.message.getMessageId(), this.events.size());
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.model.entities;
+
+import com.amazonaws.services.sqs.model.Message;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+
+/**
+ * Trigger work of one job that was not done when Jenkins stopped, its messages are already deleted from the
+ * queue. Instances are persisted on shutdown and resumed on the next start.
+ */
+public final class UnfinishedTrigger {
+
+    private final String jobName;
+    private final List<Message> messages;
+    private final List<String> userarns;
+    private final List<String> commits;
+
+    public UnfinishedTrigger(final String jobName, final Collection<Message> messages, final Collection<String> userarns, final Collection<String> commits) {
+        this.jobName = jobName;
+        this.messages = new ArrayList<>(messages);
+        this.userarns = new ArrayList<>(userarns);
+        this.commits = new ArrayList<>(commits);
+    }
+
+    /**
+     * @return The full name of the job.
+     */
+    public String getJobName() {
+        return this.jobName;
+    }
+
+    public List<Message> getMessages() {
+        return this.messages;
+    }
+
+    public List<String> getUserarns() {
+        return this.userarns;
+    }
+
+    public List<String> getCommits() {
+        return this.commits;
+    }
+}
@@ -27,8 +27,10 @@ public class CodeCommitEvent implements Event {
 
     private static final Log log = Log.get(CodeCommitEvent.class);
 
-    private final static String HOST = "git-codecommit.%s.amazonaws.com";
-    private final static String PATH = "/v1/repos/%s";
+    private final static String HOST_PREFIX = "git-codecommit.";
+    private final static String HOST_SUFFIX = ".amazonaws.com";
+    private final static String PATH_PREFIX = "/v1/repos/";
+    private final static String[] BRANCH_PREFIXES = {"refs/heads", "refs/remotes", "remotes"};
 
     private final String host;
     private final String path;
@@ -36,17 +38,75 @@ public class CodeCommitEvent implements Event {
     private final String noPrefixBranch;
     private final String arn;
     private final String user;
+    private final String commit;
 
     public CodeCommitEvent(final Record record, final Reference reference) {
-        this.arn = record.getEventSourceARN();
+        this(record.getEventSourceARN(), record.getUserIdentityARN(), reference.getReference(), reference.getCommit());
+    }
+
+    /**
+     * @param arn the event source ARN, <code>arn:aws:codecommit:region:account:repository</code>
+     * @param user the user identity ARN
+     * @param branch the full reference name, e.g. <code>refs/heads/master</code>
+     * @param commit the commit id the reference points to, can be null
+     */
+    public CodeCommitEvent(final String arn, final String user, final String branch, final String commit) {
+        this.arn = arn;
+
+        // same as arn.split(":", 6), token 3 is the region and token 5 the repository
+        final int regionStart = indexOfColon(arn, 3);
+        final int regionEnd = regionStart < 0 ? -1 : arn.indexOf(':', regionStart);
+        final int repoStart = regionEnd < 0 ? -1 : arn.indexOf(':', regionEnd + 1);
+        if (repoStart < 0) {
+            log.warning("Invalid event source ARN %s", arn);
+            this.host = null;
+            this.path = null;
+        } else {
+            this.host = HOST_PREFIX + arn.substring(regionStart, regionEnd) + HOST_SUFFIX;
+            this.path = PATH_PREFIX + arn.substring(repoStart + 1);
+        }
+
+        this.branch = branch;
+        this.noPrefixBranch = stripBranchPrefixes(branch); //truncate all possible git remote prefix, ref hudson.plugins.git.BranchSpec.getPattern
+        this.user = user;
+        this.commit = commit;
+    }
 
-        final String[] tokens = arn.split(":", 6);
-        this.host = String.format(HOST, tokens[3]);
-        this.path = String.format(PATH, tokens[5]);
+    // index after the n-th colon, or -1
+    private static int indexOfColon(final String str, final int n) {
+        if (str == null) {
+            return -1;
+        }
 
-        this.branch = reference.getReference();
-        this.noPrefixBranch = reference.getReference().replaceAll("(refs/heads|refs/remotes|remotes)", ""); //truncate all possible git remote prefix, ref hudson.plugins.git.BranchSpec.getPattern
-        this.user = record.getUserIdentityARN();
+        int index = -1;
+        for (int i = 0; i < n; i++) {
+            index = str.indexOf(':', index + 1);
+            if (index < 0) {
+                return -1;
+            }
+        }
+        return index + 1;
+    }
+
+    // same result as branch.replaceAll("(refs/heads|refs/remotes|remotes)", "") without the regex
+    private static String stripBranchPrefixes(final String branch) {
+        if (branch == null || branch.indexOf("remotes") < 0 && branch.indexOf("refs/heads") < 0) {
+            return branch;
+        }
+
+        final StringBuilder sb = new StringBuilder(branch.length());
+        int i = 0;
+        outer:
+        while (i < branch.length()) {
+            for (String prefix : BRANCH_PREFIXES) {
+                if (branch.startsWith(prefix, i)) {
+                    i += prefix.length();
+                    continue outer;
+                }
+            }
+            sb.append(branch.charAt(i++));
+        }
+        return sb.toString();
     }
 
     @Override
@@ -74,6 +134,11 @@ public class CodeCommitEvent implements Event {
         return this.noPrefixBranch;
     }
 
+    @Override
+    public String getCommit() {
+        return this.commit;
+    }
+
     @Override
     public boolean isMatch(final URIish uri) {
         if (uri == null) {
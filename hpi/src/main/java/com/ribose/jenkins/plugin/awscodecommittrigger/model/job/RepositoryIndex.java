@@ -0,0 +1,145 @@
+package com.ribose.jenkins.plugin.awscodecommittrigger.model.job;
+
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.Event;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSQueueListener;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.Log;
+import com.ribose.jenkins.plugin.awscodecommittrigger.utils.StringUtils;
+
+import javax.annotation.CheckForNull;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * Global index of all started triggers by the repositories they are subscribed to, so an {@link Event} resolves to
+ * the triggers of its repository with one hash lookup, no matter how many jobs there are.
+ * <p>
+ * For CodeCommit the repository key, see {@link StringUtils#getRepositoryKey(String, String)}, is made of the host
+ * of the region and the path of the repository. Every entry keeps the {@link ScmMatchPlan} of its trigger, so the
+ * branch patterns are matched by the index too. Triggers whose repositories are not known in advance, such as
+ * pipelines subscribed to their own SCMs, are unrouted and are candidates of every event.
+ * <p>
+ * The index is updated incrementally when a trigger starts or stops and when a job is created, changed, renamed or
+ * deleted. Updates are serialized, lookups never lock: the entries of each repository are a concurrent map by
+ * listener, so adding or removing a listener costs the same whether a repository has one job or thousands.
+ */
+public class RepositoryIndex {
+
+    private static final Log log = Log.get(RepositoryIndex.class);
+
+    private final ConcurrentMap<String, ConcurrentMap<SQSQueueListener, ScmMatchPlan>> byRepository = new ConcurrentHashMap<>();
+    private final ConcurrentMap<SQSQueueListener, ScmMatchPlan> plans = new ConcurrentHashMap<>();
+    private final Set<SQSQueueListener> unrouted = Collections.newSetFromMap(new ConcurrentHashMap<SQSQueueListener, Boolean>());
+
+    /**
+     * Adds the listener or replaces its entries.
+     * @param listener The listener, usually an {@code SQSTrigger}.
+     * @param plan The match plan of the listener, {@code null} if it is unrouted.
+     */
+    public synchronized void put(final SQSQueueListener listener, @CheckForNull final ScmMatchPlan plan) {
+        final ScmMatchPlan previous = this.plans.get(listener);
+        final Set<String> keys = new HashSet<>();
+        if (previous != null) {
+            keys.addAll(previous.getRepositoryKeys());
+        }
+
+        if (plan == null) {
+            this.unrouted.add(listener);
+            this.plans.remove(listener);
+        } else {
+            keys.addAll(plan.getRepositoryKeys());
+            this.plans.put(listener, plan);
+            this.unrouted.remove(listener);
+        }
+
+        for (final String key : keys) {
+            this.replace(key, listener, plan != null && plan.getRepositoryKeys().contains(key) ? plan : null);
+        }
+        log.debug("Index listener of queue %s for repositories %s", listener.getQueueUuid(), plan == null ? "all" : plan.getRepositoryKeys());
+    }
+
+    /**
+     * @param listener The listener to remove.
+     * @return {@code true} if the listener was indexed.
+     */
+    public synchronized boolean remove(final SQSQueueListener listener) {
+        if (this.unrouted.remove(listener)) {
+            return true;
+        }
+
+        final ScmMatchPlan previous = this.plans.remove(listener);
+        if (previous == null) {
+            return false;
+        }
+
+        for (final String key : previous.getRepositoryKeys()) {
+            this.replace(key, listener, null);
+        }
+        return true;
+    }
+
+    public boolean contains(final SQSQueueListener listener) {
+        return this.plans.containsKey(listener) || this.unrouted.contains(listener);
+    }
+
+    /**
+     * @param event The event.
+     * @return The listeners subscribed to the repository and branch of the event, unrouted listeners not included.
+     */
+    public List<SQSQueueListener> resolve(final Event event) {
+        final String key = StringUtils.getRepositoryKey(event.getHost(), event.getPath());
+        final Map<SQSQueueListener, ScmMatchPlan> subscriptions = key == null ? null : this.byRepository.get(key);
+        if (subscriptions == null) {
+            return Collections.emptyList();
+        }
+
+        final List<SQSQueueListener> listeners = new ArrayList<>(subscriptions.size());
+        for (final Map.Entry<SQSQueueListener, ScmMatchPlan> subscription : subscriptions.entrySet()) {
+            if (subscription.getValue().matches(event)) {
+                listeners.add(subscription.getKey());
+            }
+        }
+        return listeners;
+    }
+
+    /**
+     * @param key The key of a repository.
+     * @return The listeners subscribed to any branch of the repository.
+     */
+    public List<SQSQueueListener> getListeners(final String key) {
+        final Map<SQSQueueListener, ScmMatchPlan> subscriptions = this.byRepository.get(key);
+        if (subscriptions == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(subscriptions.keySet());
+    }
+
+    /**
+     * @return The listeners that are candidates of every event.
+     */
+    public Collection<SQSQueueListener> getUnrouted() {
+        return Collections.unmodifiableSet(this.unrouted);
+    }
+
+    public int size() {
+        return this.plans.size() + this.unrouted.size();
+    }
+
+    // replace the plan of the listener in the entries of the repository, or remove it if plan is null
+    private void replace(final String key, final SQSQueueListener listener, @CheckForNull final ScmMatchPlan plan) {
+        ConcurrentMap<SQSQueueListener, ScmMatchPlan> subscriptions = this.byRepository.get(key);
+        if (plan != null) {
+            if (subscriptions == null) {
+                subscriptions = new ConcurrentHashMap<>();
+                this.byRepository.put(key, subscriptions);
+            }
+            subscriptions.put(listener, plan);
+        } else if (subscriptions != null) {
+            subscriptions.remove(listener);
+            if (subscriptions.isEmpty()) {
+                this.byRepository.remove(key);
+            }
+        }
+    }
+}
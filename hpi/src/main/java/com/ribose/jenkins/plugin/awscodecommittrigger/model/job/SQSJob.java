@@ -1,6 +1,7 @@
 package com.ribose.jenkins.plugin.awscodecommittrigger.model.job;
 
 import com.ribose.jenkins.plugin.awscodecommittrigger.SQSTrigger;
+import hudson.model.Action;
 import hudson.model.Cause;
 import hudson.model.Job;
 import hudson.model.TaskListener;
@@ -17,7 +18,29 @@ public interface SQSJob {
 
     <J extends Job> J getJenkinsJob();
 
-    boolean scheduleBuild(Cause cause);
+    /**
+     * Schedule a build with the default quiet period of the job.
+     * @param cause The {@link Cause} of the build.
+     * @param actions Further {@link Action}s attached to the queue item and then to the build.
+     * @return {@code true} if the build was scheduled or merged into one already waiting in the queue.
+     */
+    boolean scheduleBuild(Cause cause, Action... actions);
 
     PollingResult poll(TaskListener listener);
+
+    /**
+     * @return The cached {@link ScmMatchPlan} of this job, compiled on first use.
+     */
+    ScmMatchPlan getMatchPlan();
+
+    /**
+     * Drop the cached {@link ScmMatchPlan}, the next {@link #getMatchPlan()} compiles a new one.
+     */
+    void invalidateMatchPlan();
+
+    /**
+     * Compile the {@link ScmMatchPlan} again and replace the cached one only if it differs.
+     * @return {@code true} if the plan changed.
+     */
+    boolean refreshMatchPlan();
 }
@@ -0,0 +1,146 @@
+package com.ribose.jenkins.plugin.awscodecommittrigger.model.job;
+
+import com.ribose.jenkins.plugin.awscodecommittrigger.Context;
+import com.ribose.jenkins.plugin.awscodecommittrigger.SQSActivityAction;
+import com.ribose.jenkins.plugin.awscodecommittrigger.SQSTrigger;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.ActivityAppender;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.Log;
+import com.ribose.jenkins.plugin.awscodecommittrigger.metrics.MetricsRegistry;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.AbstractProject;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Items;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.triggers.Trigger;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Invalidate the {@link ScmMatchPlan} of a job when its configuration is saved, or refresh it when a pipeline build
+ * completes since pipeline jobs only know their SCMs from the last build, and keep the {@link RepositoryIndex} up to date as jobs
+ * are created, changed, renamed and deleted. The activity logs of deleted and moved jobs are closed, their metrics
+ * are dropped.
+ */
+@Extension
+public class SQSJobChangeListener extends SaveableListener {
+
+    private static final Log log = Log.get(SQSJobChangeListener.class);
+
+    @Override
+    public void onChange(final Saveable o, final XmlFile file) {
+        if (o instanceof Job) {
+            invalidate((Job) o);
+        }
+    }
+
+    @CheckForNull
+    public static SQSTrigger getTrigger(final Job job) {
+        if (job instanceof AbstractProject) {
+            return (SQSTrigger) ((AbstractProject) job).getTrigger(SQSTrigger.class);
+        } else if (job instanceof WorkflowJob) {
+            for (Trigger<?> trigger : ((WorkflowJob) job).getTriggers().values()) {
+                if (trigger instanceof SQSTrigger) {
+                    return (SQSTrigger) trigger;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void invalidate(final Job job) {
+        final SQSTrigger trigger = getTrigger(job);
+        if (trigger != null) {
+            log.debug("Invalidate match plan", job);
+            trigger.invalidateMatchPlan();
+        }
+    }
+
+    @Extension
+    public static class ItemChangeListener extends ItemListener {
+
+        @Override
+        public void onCreated(final Item item) {
+            if (item instanceof Job) {
+                invalidate((Job) item);
+            }
+        }
+
+        @Override
+        public void onUpdated(final Item item) {
+            if (item instanceof Job) {
+                invalidate((Job) item);
+            }
+        }
+
+        @Override
+        public void onLocationChanged(final Item item, final String oldFullName, final String newFullName) {
+            ActivityAppender.removeMissing();//the activity dirs moved along with the jobs
+            final MetricsRegistry metrics = getMetricsRegistry();
+            for (final Job job : getJobs(item)) {
+                final String fullName = job.getFullName();
+                if (fullName.startsWith(newFullName)) {
+                    metrics.removeJob(oldFullName + fullName.substring(newFullName.length()));
+                }
+                invalidate(job);
+            }
+        }
+
+        @Override
+        public void onDeleted(final Item item) {
+            final MetricsRegistry metrics = getMetricsRegistry();
+            for (final Job job : getJobs(item)) {
+                ActivityAppender.remove(SQSActivityAction.getActivityDir(job));
+                metrics.removeJob(job.getFullName());
+                final SQSTrigger trigger = getTrigger(job);
+                if (trigger != null) {
+                    log.debug("Remove deleted job from repository index", job);
+                    trigger.removeFromRepositoryIndex();
+                }
+            }
+        }
+
+        private static MetricsRegistry getMetricsRegistry() {
+            return Context.injector().getBinding(MetricsRegistry.class).getProvider().get();
+        }
+
+        // the job, or all jobs in a folder
+        private static List<Job> getJobs(final Item item) {
+            if (item instanceof Job) {
+                return Collections.singletonList((Job) item);
+            } else if (item instanceof ItemGroup) {
+                return Items.getAllItems((ItemGroup) item, Job.class);
+            }
+            return Collections.emptyList();
+        }
+    }
+
+    @Extension
+    public static class RunCompletedListener extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onCompleted(final Run<?, ?> run, @Nonnull final TaskListener listener) {
+            final Job job = run.getParent();
+            if (!(job instanceof WorkflowJob)) {
+                return;//other jobs do not change their SCMs by building, see onChange
+            }
+
+            final SQSTrigger trigger = getTrigger(job);
+            if (trigger != null && trigger.refreshMatchPlan()) {
+                log.debug("SCMs changed by build %s, refreshed match plan", job, run.getNumber());
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.ribose.jenkins.plugin.awscodecommittrigger.model.job;
+
+import com.ribose.jenkins.plugin.awscodecommittrigger.SQSScmConfig;
+import com.ribose.jenkins.plugin.awscodecommittrigger.SQSTrigger;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.Event;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.Log;
+import com.ribose.jenkins.plugin.awscodecommittrigger.utils.StringUtils;
+import hudson.plugins.git.BranchSpec;
+import hudson.plugins.git.GitSCM;
+import hudson.scm.NullSCM;
+import hudson.scm.SCM;
+import jenkins.model.Jenkins;
+import org.apache.commons.collections.CollectionUtils;
+import org.eclipse.jgit.transport.RemoteConfig;
+import org.eclipse.jgit.transport.URIish;
+import org.jenkinsci.plugins.multiplescms.MultiSCM;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * Immutable, precompiled view of the repositories and branches a {@link SQSJob} is subscribed to.
+ * <p>
+ * A plan is compiled once from the job and its {@link SQSTrigger} configuration, matching an {@link Event}
+ * against it needs no access to the Jenkins model. Plans are cached by {@link SQSJob#getMatchPlan()} and
+ * dropped by {@link SQSJob#invalidateMatchPlan()} when the job changes.
+ */
+public final class ScmMatchPlan {
+
+    private static final Log log = Log.get(ScmMatchPlan.class);
+
+    public static final ScmMatchPlan EMPTY = new ScmMatchPlan(Collections.<String, List<BranchMatcher>>emptyMap(), Collections.<String>emptySet());
+
+    private final Map<String, List<BranchMatcher>> matchersByRepository;
+    private final Set<String> hosts;
+
+    private ScmMatchPlan(final Map<String, List<BranchMatcher>> matchersByRepository, final Set<String> hosts) {
+        this.matchersByRepository = matchersByRepository;
+        this.hosts = hosts;
+    }
+
+    public static ScmMatchPlan compile(final SQSJob job) {
+        final SQSTrigger trigger = job.getTrigger();
+        if (trigger == null) {
+            return EMPTY;
+        }
+
+        final Jenkins jenkins = Jenkins.getActiveInstance();
+        final Compiler compiler = new Compiler(jenkins.getPlugin("git") != null, jenkins.getPlugin("multiple-scms") != null);
+
+        final List<SQSScmConfig> scmConfigs = trigger.getSqsScmConfigs();
+        if (CollectionUtils.isNotEmpty(scmConfigs)) {
+            for (final SQSScmConfig scmConfig : scmConfigs) {
+                switch (scmConfig.getType()) {
+                    case IR:
+                        compiler.add(job.getScmList());
+                        break;
+
+                    case ER:
+                        compiler.add(Collections.<SCM>singletonList(scmConfig.toGitSCM()));
+                        break;
+                }
+            }
+        }
+
+        if (trigger.isSubscribeInternalScm()) {
+            compiler.add(job.getScmList());
+        }
+
+        final ScmMatchPlan plan = new ScmMatchPlan(compiler.build(), compiler.buildHosts());
+        log.debug("Compiled match plan for repositories %s", job, plan.getRepositoryKeys());
+        return plan;
+    }
+
+    /**
+     * Compile a plan for the specified SCMs without looking up installed plugins, they must be {@link GitSCM}s,
+     * for use outside of a running Jenkins, e.g. by benchmarks.
+     */
+    public static ScmMatchPlan compile(final List<SCM> scms) {
+        final Compiler compiler = new Compiler(true, false);
+        compiler.add(scms);
+        return new ScmMatchPlan(compiler.build(), compiler.buildHosts());
+    }
+
+    /**
+     * @return The keys of all subscribed repositories, see {@link StringUtils#getRepositoryKey(String, String)}.
+     */
+    public Set<String> getRepositoryKeys() {
+        return this.matchersByRepository.keySet();
+    }
+
+    /**
+     * @return The remote hosts of all subscribed repositories, polling the job contacts these hosts.
+     */
+    public Set<String> getHosts() {
+        return this.hosts;
+    }
+
+    public boolean isEmpty() {
+        return this.matchersByRepository.isEmpty();
+    }
+
+    public boolean matches(final Event event) {
+        if (event == null) {
+            return false;
+        }
+
+        final String key = StringUtils.getRepositoryKey(event.getHost(), event.getPath());
+        final List<BranchMatcher> matchers = key == null ? null : this.matchersByRepository.get(key);
+        if (matchers == null) {
+            log.debug("Event %s not match any repository", event.getArn());
+            return false;
+        }
+
+        for (final BranchMatcher matcher : matchers) {
+            if (matcher.matches(event)) {
+                return true;
+            }
+        }
+
+        log.debug("Event %s not match any branch", event.getArn());
+        return false;
+    }
+
+    /**
+     * Plans are equal if they subscribe the same branch specs of the same repositories, a job whose SCMs did not
+     * change compiles an equal plan.
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ScmMatchPlan)) {
+            return false;
+        }
+        return this.matchersByRepository.equals(((ScmMatchPlan) o).matchersByRepository);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.matchersByRepository.hashCode();
+    }
+
+    private static final class Compiler {
+
+        private final boolean gitAvailable;
+        private final boolean multiScmAvailable;
+        private final Map<String, List<BranchMatcher>> matchersByRepository = new HashMap<>();
+        private final Set<String> hosts = new TreeSet<>();
+
+        private Compiler(final boolean gitAvailable, final boolean multiScmAvailable) {
+            this.gitAvailable = gitAvailable;
+            this.multiScmAvailable = multiScmAvailable;
+        }
+
+        private void add(final List<SCM> scms) {
+            for (final SCM scm : scms) {
+                if (scm == null || scm instanceof NullSCM) {
+                    continue;
+                }
+
+                if (this.gitAvailable && scm instanceof GitSCM) {
+                    this.add((GitSCM) scm);
+                } else if (this.multiScmAvailable && scm instanceof MultiSCM) {
+                    this.add(((MultiSCM) scm).getConfiguredSCMs());
+                }
+            }
+        }
+
+        private void add(final GitSCM git) {
+            final BranchMatcher matcher = new BranchMatcher(git.getBranches());
+            for (final RemoteConfig config : git.getRepositories()) {
+                for (final URIish uri : config.getURIs()) {
+                    final String key = StringUtils.getRepositoryKey(uri.getHost(), uri.getPath());
+                    if (key == null) {
+                        continue;
+                    }
+                    this.hosts.add(uri.getHost());
+
+                    List<BranchMatcher> matchers = this.matchersByRepository.get(key);
+                    if (matchers == null) {
+                        matchers = new ArrayList<>();
+                        this.matchersByRepository.put(key, matchers);
+                    }
+                    if (!matchers.contains(matcher)) {
+                        matchers.add(matcher);
+                    }
+                }
+            }
+        }
+
+        private Map<String, List<BranchMatcher>> build() {
+            final Map<String, List<BranchMatcher>> result = new HashMap<>();
+            for (final Map.Entry<String, List<BranchMatcher>> entry : this.matchersByRepository.entrySet()) {
+                result.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+            }
+            return Collections.unmodifiableMap(result);
+        }
+
+        private Set<String> buildHosts() {
+            return Collections.unmodifiableSet(new TreeSet<>(this.hosts));
+        }
+    }
+
+    /**
+     * Branch specs of one {@link GitSCM}, {@link BranchSpec} compiles its pattern on every call so results are
+     * memoized per branch name.
+     */
+    private static final class BranchMatcher {
+
+        private static final int MAX_CACHED_BRANCHES = 1024;
+
+        private final List<BranchSpec> branchSpecs;
+        private final List<String> names;
+        private final ConcurrentMap<String, Boolean> results = new ConcurrentHashMap<>();
+
+        private BranchMatcher(final List<BranchSpec> branchSpecs) {
+            this.branchSpecs = branchSpecs == null
+                ? Collections.<BranchSpec>emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(branchSpecs));
+
+            this.names = new ArrayList<>(this.branchSpecs.size());
+            for (final BranchSpec branchSpec : this.branchSpecs) {
+                this.names.add(branchSpec.getName());
+            }
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return this == o || (o instanceof BranchMatcher && this.names.equals(((BranchMatcher) o).names));
+        }
+
+        @Override
+        public int hashCode() {
+            return this.names.hashCode();
+        }
+
+        private boolean matches(final Event event) {
+            final String branch = event.getBranch();
+            if (branch == null) {
+                return false;
+            }
+
+            Boolean matched = this.results.get(branch);
+            if (matched == null) {
+                matched = this.compute(event);
+                if (this.results.size() >= MAX_CACHED_BRANCHES) {
+                    this.results.clear();
+                }
+                this.results.put(branch, matched);
+            }
+            return matched;
+        }
+
+        private boolean compute(final Event event) {
+            for (final BranchSpec branchSpec : this.branchSpecs) {
+                if (branchSpec.matches(event.getBranch())) {
+                    log.info("Event branch: %s matched branch: %s", event.getBranch(), branchSpec.getName());
+                    return true;
+                } else if (branchSpec.matches(event.getNoPrefixBranch())) {
+                    log.info("Event no-prefix-branch: %s matched branch: %s", event.getNoPrefixBranch(), branchSpec.getName());
+                    return true;
+                }
+            }
+
+            log.info("Found no event matched any branch", event.getArn());
+            return false;
+        }
+    }
+}
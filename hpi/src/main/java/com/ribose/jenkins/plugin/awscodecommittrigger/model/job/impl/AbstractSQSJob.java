@@ -2,11 +2,17 @@ package com.ribose.jenkins.plugin.awscodecommittrigger.model.job.impl;
 
 import com.ribose.jenkins.plugin.awscodecommittrigger.SQSTrigger;
 import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.SQSJob;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.ScmMatchPlan;
+
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class AbstractSQSJob implements SQSJob {
 
     protected final SQSTrigger trigger;
 
+    private final AtomicInteger matchPlanVersion = new AtomicInteger();
+    private volatile ScmMatchPlan matchPlan;
+
     public AbstractSQSJob(SQSTrigger trigger) {
         this.trigger = trigger;
     }
@@ -15,4 +21,45 @@ public abstract class AbstractSQSJob implements SQSJob {
     public SQSTrigger getTrigger() {
         return this.trigger;
     }
+
+    @Override
+    public ScmMatchPlan getMatchPlan() {
+        ScmMatchPlan plan = this.matchPlan;
+        if (plan == null) {
+            final int version = this.matchPlanVersion.get();
+            plan = ScmMatchPlan.compile(this);
+            synchronized (this.matchPlanVersion) {
+                if (version == this.matchPlanVersion.get()) {
+                    this.matchPlan = plan;
+                }
+            }
+        }
+        return plan;
+    }
+
+    @Override
+    public void invalidateMatchPlan() {
+        synchronized (this.matchPlanVersion) {
+            this.matchPlanVersion.incrementAndGet();
+            this.matchPlan = null;
+        }
+    }
+
+    @Override
+    public boolean refreshMatchPlan() {
+        final int version = this.matchPlanVersion.get();
+        final ScmMatchPlan current = this.matchPlan;
+        final ScmMatchPlan plan = ScmMatchPlan.compile(this);
+        if (current != null && current.equals(plan)) {
+            return false;
+        }
+
+        synchronized (this.matchPlanVersion) {
+            if (version == this.matchPlanVersion.get()) {
+                this.matchPlanVersion.incrementAndGet();
+                this.matchPlan = plan;
+            }
+        }
+        return true;
+    }
 }
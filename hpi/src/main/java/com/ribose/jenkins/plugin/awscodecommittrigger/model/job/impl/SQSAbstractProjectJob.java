@@ -2,6 +2,7 @@ package com.ribose.jenkins.plugin.awscodecommittrigger.model.job.impl;
 
 import com.ribose.jenkins.plugin.awscodecommittrigger.SQSTrigger;
 import hudson.model.AbstractProject;
+import hudson.model.Action;
 import hudson.model.Cause;
 import hudson.model.TaskListener;
 import hudson.scm.PollingResult;
@@ -30,8 +31,8 @@ public class SQSAbstractProjectJob extends AbstractSQSJob {
     }
 
     @Override
-    public boolean scheduleBuild(Cause cause) {
-        return job.scheduleBuild(cause);
+    public boolean scheduleBuild(Cause cause, Action... actions) {
+        return job.scheduleBuild(job.getQuietPeriod(), cause, actions);
     }
 
     @Override
@@ -1,12 +1,15 @@
 package com.ribose.jenkins.plugin.awscodecommittrigger.model.job.impl;
 
 import com.ribose.jenkins.plugin.awscodecommittrigger.SQSTrigger;
+import hudson.model.Action;
 import hudson.model.Cause;
+import hudson.model.CauseAction;
 import hudson.model.TaskListener;
 import hudson.scm.PollingResult;
 import hudson.scm.SCM;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -30,8 +33,10 @@ public class SQSWorkflowJob extends AbstractSQSJob {
     }
 
     @Override
-    public boolean scheduleBuild(Cause cause) {
-        return job.scheduleBuild(cause);
+    public boolean scheduleBuild(Cause cause, Action... actions) {
+        List<Action> all = new ArrayList<>(Arrays.asList(actions));
+        all.add(0, new CauseAction(cause));
+        return job.scheduleBuild2(job.getQuietPeriod(), all.toArray(new Action[all.size()])) != null;
     }
 
     @Override
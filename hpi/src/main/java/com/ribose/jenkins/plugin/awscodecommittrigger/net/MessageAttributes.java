@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.net;
+
+import com.amazonaws.services.sqs.model.Message;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * System attributes requested with every receive, used to measure the time from a push to its build.
+ */
+public final class MessageAttributes {
+
+    /** Epoch millis at which SQS accepted the message, i.e. shortly after the push. */
+    public static final String SENT_TIMESTAMP = "SentTimestamp";
+
+    /** Number of times the message was received, more than one means it was redelivered. */
+    public static final String APPROXIMATE_RECEIVE_COUNT = "ApproximateReceiveCount";
+
+    public static final List<String> NAMES = Arrays.asList(SENT_TIMESTAMP, APPROXIMATE_RECEIVE_COUNT);
+
+    private MessageAttributes() {
+    }
+
+    /**
+     * @param message The received {@link Message}.
+     * @return The time the message was sent in epoch millis, {@code -1} if unknown.
+     */
+    public static long getSentTimestamp(final Message message) {
+        return getLong(message, SENT_TIMESTAMP, -1);
+    }
+
+    /**
+     * @param message The received {@link Message}.
+     * @return The number of times the message was received, {@code 0} if unknown.
+     */
+    public static int getReceiveCount(final Message message) {
+        return (int) getLong(message, APPROXIMATE_RECEIVE_COUNT, 0);
+    }
+
+    /**
+     * @param messages The received {@link Message}s.
+     * @return The earliest time any of the messages was sent in epoch millis, {@code -1} if unknown.
+     */
+    public static long getEarliestSentTimestamp(final Collection<Message> messages) {
+        long earliest = -1;
+        for (final Message message : messages) {
+            final long sent = getSentTimestamp(message);
+            if (sent >= 0 && (earliest < 0 || sent < earliest)) {
+                earliest = sent;
+            }
+        }
+        return earliest;
+    }
+
+    /**
+     * @param messages The received {@link Message}s.
+     * @return The highest receive count of the messages, {@code 0} if unknown.
+     */
+    public static int getMaxReceiveCount(final Collection<Message> messages) {
+        int max = 0;
+        for (final Message message : messages) {
+            max = Math.max(max, getReceiveCount(message));
+        }
+        return max;
+    }
+
+    private static long getLong(final Message message, final String name, final long defaultValue) {
+        final Map<String, String> attributes = message.getAttributes();
+        final String value = attributes == null ? null : attributes.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -39,6 +39,7 @@ public class RequestFactoryImpl implements RequestFactory {
         final ReceiveMessageRequest request = new ReceiveMessageRequest(queueUrl);
         request.setMaxNumberOfMessages(maxNumberMessages);
         request.setWaitTimeSeconds(waitTimeSeconds);
+        request.setAttributeNames(MessageAttributes.NAMES);
         return request;
     }
 
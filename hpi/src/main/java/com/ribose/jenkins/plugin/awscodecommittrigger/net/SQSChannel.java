@@ -27,5 +27,17 @@ public interface SQSChannel {
 
     void deleteMessages(List<Message> messages);
 
+    /**
+     * Delete the messages without waiting for the result, failures are only logged.
+     * @param messages The messages to delete.
+     */
+    void deleteMessagesAsync(List<Message> messages);
+
     String getQueueUuid();
+
+    /**
+     * Cancels receives in flight, they return no messages, and releases the SQS client of this channel, other
+     * requests in flight may fail. Closing a channel more than once has no effect.
+     */
+    void close();
 }
@@ -17,59 +17,148 @@
 package com.ribose.jenkins.plugin.awscodecommittrigger.net;
 
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
 import com.amazonaws.services.sqs.model.*;
 import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSQueue;
 import com.ribose.jenkins.plugin.awscodecommittrigger.logging.Log;
+import com.ribose.jenkins.plugin.awscodecommittrigger.metrics.QueueMetrics;
 import org.apache.commons.collections.CollectionUtils;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 
 public class SQSChannelImpl implements SQSChannel {
 
     private static final Log log = Log.get(SQSChannelImpl.class);
 
+    // how often a receive in flight checks whether the channel was closed
+    private static final long CLOSED_CHECK_MILLIS = 250;
+
     private final AmazonSQS sqs;
     private final SQSQueue queue;
     private final RequestFactory factory;
+    private final SQSClientPool.Lease lease;
+    private final QueueMetrics metrics;
 
-    /**
-     * Number of requests that were sent (for logging)
-     */
-    private final AtomicInteger requestCount = new AtomicInteger(0);
+    // receives in flight, abandoned on close so that a long poll does not hold up shutdown
+    private final Set<Future<ReceiveMessageResult>> receives = Collections.newSetFromMap(new ConcurrentHashMap<Future<ReceiveMessageResult>, Boolean>());
+    private volatile boolean closed;
 
     public SQSChannelImpl(final AmazonSQS sqs, final SQSQueue queue, final RequestFactory factory) {
+        this(sqs, queue, factory, null, QueueMetrics.detached(queue.getName()));
+    }
+
+    public SQSChannelImpl(final SQSClientPool.Lease lease, final SQSQueue queue, final RequestFactory factory, final QueueMetrics metrics) {
+        this(lease.getClient(), queue, factory, lease, metrics);
+    }
+
+    private SQSChannelImpl(final AmazonSQS sqs, final SQSQueue queue, final RequestFactory factory, final SQSClientPool.Lease lease, final QueueMetrics metrics) {
         this.sqs = sqs;
         this.queue = queue;
         this.factory = factory;
+        this.lease = lease;
+        this.metrics = metrics;
     }
 
     @Override
     public List<Message> getMessages() {
         log.debug("Star polling messages");
+        if (this.closed) {
+            return Collections.emptyList();
+        }
 
         List<Message> messages = Collections.emptyList();
+        final long start = System.nanoTime();
 
         try {
-            log.debug("Requests count %d for %s", this.requestCount.incrementAndGet(), this.queue);
+            log.debug("Requests count %d for %s", this.metrics.getReceives().increment(), this.queue);
 
             final ReceiveMessageRequest request = this.factory.createReceiveMessageRequest(this.queue);
-            final ReceiveMessageResult result = this.sqs.receiveMessage(request);
+            final ReceiveMessageResult result = this.receiveMessage(request);
             log.debug("Send request to receive messages from queue %s", this.queue);
             if (result != null) {
                 messages = result.getMessages();
             }
         } catch (AmazonServiceException e) {
+            this.metrics.getReceiveErrors().increment();
             log.error("Poll request error", e);
             throw e;
+        } catch (RuntimeException e) {
+            this.metrics.getReceiveErrors().increment();
+            throw e;
+        } finally {
+            this.metrics.getReceiveLatency().record(QueueMetrics.elapsedMillis(start));
         }
 
+        this.metrics.getBatchSize().record(messages.size());
+        if (messages.isEmpty()) {
+            this.metrics.getEmptyReceives().increment();
+        }
+        this.recordLag(messages);
         return messages;
     }
 
+    private void recordLag(final List<Message> messages) {
+        for (final Message message : messages) {
+            final long sent = MessageAttributes.getSentTimestamp(message);
+            if (sent >= 0) {
+                this.metrics.getReceiveLag().record(QueueMetrics.lagMillis(sent));
+            }
+            if (MessageAttributes.getReceiveCount(message) > 1) {
+                this.metrics.getRedeliveries().increment();
+            }
+        }
+    }
+
+    private ReceiveMessageResult receiveMessage(final ReceiveMessageRequest request) {
+        if (!(this.sqs instanceof AmazonSQSAsync)) {
+            return this.sqs.receiveMessage(request);
+        }
+
+        final Future<ReceiveMessageResult> future = ((AmazonSQSAsync) this.sqs).receiveMessageAsync(request);
+        this.receives.add(future);
+        try {
+            // cancelling does not abort the long poll of every client, stop waiting for it once closed instead
+            while (true) {
+                if (this.closed) {
+                    future.cancel(true);
+                    log.debug("Channel of %s closed, abandon receive", this.queue);
+                    return null;
+                }
+
+                try {
+                    return future.get(CLOSED_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // still polling, check again
+                }
+            }
+        } catch (CancellationException e) {
+            log.debug("Receive from %s cancelled", this.queue);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new AmazonServiceException(String.valueOf(e.getCause()), e.getCause());
+        } finally {
+            this.receives.remove(future);
+        }
+    }
+
     @Override
     public void deleteMessages(final List<Message> messages) {
         if (CollectionUtils.isEmpty(messages)) {
@@ -77,12 +166,53 @@ public class SQSChannelImpl implements SQSChannel {
         }
 
         final DeleteMessageBatchResult result = this.deleteMessageBatch(messages);
+        if (result == null) {
+            this.metrics.getDeleteFailures().add(messages.size());
+        }
+        this.logDeleteResult(result);
+    }
+
+    @Override
+    public void deleteMessagesAsync(final List<Message> messages) {
+        if (CollectionUtils.isEmpty(messages)) {
+            return;
+        }
+
+        if (!(this.sqs instanceof AmazonSQSAsync)) {
+            this.deleteMessages(messages);
+            return;
+        }
+
+        try {
+            final DeleteMessageBatchRequest request = this.factory.createDeleteMessageBatchRequest(this.queue, messages);
+            log.debug("Send async request to delete messages from queue %s", this.queue);
+            ((AmazonSQSAsync) this.sqs).deleteMessageBatchAsync(request, new AsyncHandler<DeleteMessageBatchRequest, DeleteMessageBatchResult>() {
+
+                @Override
+                public void onError(final Exception e) {
+                    SQSChannelImpl.this.metrics.getDeleteFailures().add(messages.size());
+                    log.warning("Unable delete messages from queue %s, error: %s", SQSChannelImpl.this.queue, e);
+                }
+
+                @Override
+                public void onSuccess(final DeleteMessageBatchRequest request, final DeleteMessageBatchResult result) {
+                    SQSChannelImpl.this.logDeleteResult(result);
+                }
+            });
+        } catch (AmazonServiceException e) {
+            this.metrics.getDeleteFailures().add(messages.size());
+            log.warning("Unable delete messages from queue %s, error: %s", this.queue, e);
+        }
+    }
+
+    private void logDeleteResult(final DeleteMessageBatchResult result) {
         if (result == null) {
             return;
         }
 
         final List<?> failed = result.getFailed();
         final List<?> success = result.getSuccessful();
+        this.metrics.getDeleteFailures().add(failed.size());
         log.debug("Delete %d message(s) (%d failed) from %s", success.size(), failed.size(), this.queue);
     }
 
@@ -91,6 +221,18 @@ public class SQSChannelImpl implements SQSChannel {
         return this.queue.getUuid();
     }
 
+    @Override
+    public void close() {
+        this.closed = true;
+        for (final Future<ReceiveMessageResult> future : this.receives) {
+            future.cancel(true);
+        }
+
+        if (this.lease != null) {
+            this.lease.close();
+        }
+    }
+
     private DeleteMessageBatchResult deleteMessageBatch(final List<Message> messages) {
         try {
             final DeleteMessageBatchRequest request = this.factory.createDeleteMessageBatchRequest(this.queue, messages);
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.net;
+
+import com.amazonaws.services.sqs.AmazonSQS;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.Log;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * Shares SQS clients, and their connection pools and threads, between all queues and monitors with the same
+ * {@link Key}.
+ * <p>
+ * Every {@link #acquire(Key, ClientFactory)} returns a {@link Lease} that must be closed when the client is no
+ * longer used, the client is shut down when its last lease is closed.
+ */
+public class SQSClientPool {
+
+    private static final Log log = Log.get(SQSClientPool.class);
+
+    public interface ClientFactory {
+        AmazonSQS create();
+    }
+
+    private final Map<Key, Entry> entries = new HashMap<>();
+
+    public synchronized Lease acquire(final Key key, final ClientFactory factory) {
+        Entry entry = this.entries.get(key);
+        if (entry == null) {
+            log.debug("Create SQS client for %s", key);
+            entry = new Entry(factory.create());
+            this.entries.put(key, entry);
+        }
+
+        entry.references++;
+        log.debug("Acquire SQS client for %s, %d references", key, entry.references);
+        return new Lease(key, entry.client);
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    public synchronized void shutDown() {
+        for (final Map.Entry<Key, Entry> entry : this.entries.entrySet()) {
+            log.debug("Shut down SQS client for %s", entry.getKey());
+            entry.getValue().client.shutdown();
+        }
+        this.entries.clear();
+    }
+
+    private synchronized void release(final Key key, final AmazonSQS client) {
+        final Entry entry = this.entries.get(key);
+        if (entry == null || entry.client != client) {
+            return;
+        }
+
+        entry.references--;
+        log.debug("Release SQS client for %s, %d references", key, entry.references);
+        if (entry.references <= 0) {
+            this.entries.remove(key);
+            log.debug("Shut down SQS client for %s", key);
+            client.shutdown();
+        }
+    }
+
+    private static final class Entry {
+
+        private final AmazonSQS client;
+        private int references;
+
+        private Entry(final AmazonSQS client) {
+            this.client = client;
+        }
+    }
+
+    /**
+     * One reference to a pooled client, closing it more than once has no effect.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final Key key;
+        private final AmazonSQS client;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Lease(final Key key, final AmazonSQS client) {
+            this.key = key;
+            this.client = client;
+        }
+
+        public AmazonSQS getClient() {
+            return this.client;
+        }
+
+        @Override
+        public void close() {
+            if (this.closed.compareAndSet(false, true)) {
+                SQSClientPool.this.release(this.key, this.client);
+            }
+        }
+    }
+
+    /**
+     * Identifies clients that can be shared: same credentials, region, endpoint, proxy and long polling time.
+     */
+    public static final class Key {
+
+        private final Object[] values;
+
+        public Key(final String credentialsId, final String region, final String endpoint, final String proxy, final int waitTimeSeconds) {
+            this.values = new Object[]{credentialsId, region, endpoint, proxy, waitTimeSeconds};
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return this == o || (o instanceof Key && Arrays.equals(this.values, ((Key) o).values));
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.values);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("(credentials: %s, region: %s, endpoint: %s, proxy: %s, wait: %ss)", this.values);
+        }
+    }
+}
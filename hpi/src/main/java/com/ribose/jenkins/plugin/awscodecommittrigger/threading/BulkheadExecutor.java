@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.threading;
+
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.BulkheadExecutorService;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.Log;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * {@link ThreadPoolExecutor} with a fixed number of threads and a queue bounded by {@link #getQueueCapacity()},
+ * both can be changed while running. Idle threads time out so an unused executor holds no threads.
+ */
+public class BulkheadExecutor extends ThreadPoolExecutor implements BulkheadExecutorService {
+
+    private static final Log log = Log.get(BulkheadExecutor.class);
+
+    private final static int      KEEP_ALIVE_TIME      = 1;
+    private final static TimeUnit KEEP_ALIVE_TIME_UNIT = TimeUnit.MINUTES;
+
+    private final String name;
+    private volatile int queueCapacity;
+    private final AtomicLong rejectedCount;
+
+    public BulkheadExecutor(final String name,
+                            final int maxConcurrency,
+                            final int queueCapacity,
+                            final ThreadFactory threadFactory,
+                            final RejectedExecutionHandler policy) {
+        this(name, maxConcurrency, queueCapacity, threadFactory, new CountingPolicy(name, policy));
+    }
+
+    private BulkheadExecutor(final String name,
+                             final int maxConcurrency,
+                             final int queueCapacity,
+                             final ThreadFactory threadFactory,
+                             final CountingPolicy policy) {
+        super(maxConcurrency,
+            maxConcurrency,
+            KEEP_ALIVE_TIME,
+            KEEP_ALIVE_TIME_UNIT,
+            new LinkedBlockingQueue<Runnable>(),
+            new NamingThreadFactory(name, threadFactory),
+            policy);
+
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+        }
+
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        this.rejectedCount = policy.count;
+        this.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        // the queue itself is unbounded so its capacity can change, the bound is enforced here
+        if (command != null && this.getQueue().size() >= this.queueCapacity) {
+            this.getRejectedExecutionHandler().rejectedExecution(command, this);
+            return;
+        }
+        super.execute(command);
+    }
+
+    @Override
+    public synchronized void resize(final int maxConcurrency, final int queueCapacity) {
+        if (maxConcurrency < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException(String.format("Invalid limits for %s: %d threads, %d queued", this.name, maxConcurrency, queueCapacity));
+        }
+
+        if (maxConcurrency > this.getMaximumPoolSize()) {
+            this.setMaximumPoolSize(maxConcurrency);
+            this.setCorePoolSize(maxConcurrency);
+        } else {
+            this.setCorePoolSize(maxConcurrency);
+            this.setMaximumPoolSize(maxConcurrency);
+        }
+        this.queueCapacity = queueCapacity;
+        log.debug("Resized executor %s to %d threads, %d queued", this.name, maxConcurrency, queueCapacity);
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public int getMaxConcurrency() {
+        return this.getMaximumPoolSize();
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return this.queueCapacity;
+    }
+
+    @Override
+    public int getQueueSize() {
+        return this.getQueue().size();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return this.rejectedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d/%d active, %d/%d queued, %d completed, %d rejected",
+            this.name,
+            this.getActiveCount(),
+            this.getMaxConcurrency(),
+            this.getQueueSize(),
+            this.queueCapacity,
+            this.getCompletedTaskCount(),
+            this.getRejectedCount());
+    }
+
+    private static class CountingPolicy implements RejectedExecutionHandler {
+
+        private final String name;
+        private final RejectedExecutionHandler policy;
+        private final AtomicLong count = new AtomicLong();
+
+        private CountingPolicy(final String name, final RejectedExecutionHandler policy) {
+            this.name = name;
+            this.policy = policy;
+        }
+
+        @Override
+        public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor) {
+            this.count.incrementAndGet();
+            log.debug("Executor %s is saturated, apply %s", this.name, this.policy.getClass().getSimpleName());
+            this.policy.rejectedExecution(r, executor);
+        }
+    }
+
+    private static class NamingThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final ThreadFactory threadFactory;
+        private final AtomicInteger count = new AtomicInteger();
+
+        private NamingThreadFactory(final String name, final ThreadFactory threadFactory) {
+            this.name = name;
+            this.threadFactory = threadFactory;
+        }
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = this.threadFactory.newThread(r);
+            thread.setName(String.format("%s-%d", this.name, this.count.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.threading;
+
+import javax.annotation.CheckForNull;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Recovery policy of a {@link SQSQueueMonitorImpl}, one instance per queue.
+ * <p>
+ * Every failure delays the next request with exponential backoff and jitter. After
+ * {@link #FAILURE_THRESHOLD} failures in a row the breaker opens and requests are held back for
+ * {@link #OPEN_MILLIS}, then a single probe request is let through: a success closes the breaker, a failure
+ * opens it again.
+ * <p>
+ * The consumers of a queue receive concurrently, so one outage fails a request of each of them. A failure only
+ * counts if its request started after the last counted failure, the requests that were in flight when it was
+ * recorded fail for the same cause, so the threshold counts rounds of requests whatever the number of consumers.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    static final long BASE_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(1);
+    static final long MAX_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    static final long OPEN_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    static final int FAILURE_THRESHOLD = 5;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long retryAt;
+    private long failedAt;
+    private String lastError;
+
+    /**
+     * Records a failed request that started now, e.g. one that failed before it was sent.
+     * @param error The cause of the failure.
+     * @return The time, in milliseconds, to wait before the next request.
+     */
+    public long onFailure(final Throwable error) {
+        return this.onFailure(error, System.currentTimeMillis());
+    }
+
+    /**
+     * Records a failed request.
+     * @param error The cause of the failure.
+     * @param startedAt The time the request started, in epoch milliseconds.
+     * @return The time, in milliseconds, to wait before the next request.
+     */
+    public synchronized long onFailure(final Throwable error, final long startedAt) {
+        this.lastError = String.valueOf(error);
+        final long now = System.currentTimeMillis();
+        if (this.failures > 0 && startedAt < this.failedAt) {
+            return Math.max(0, this.retryAt - now);//in flight when the last failure was counted
+        }
+
+        this.failures++;
+        this.failedAt = now;
+
+        final long delay;
+        if (this.state == State.HALF_OPEN || this.failures >= FAILURE_THRESHOLD) {
+            this.state = State.OPEN;
+            delay = jitter(OPEN_MILLIS);
+        } else {
+            final int exponent = Math.min(this.failures - 1, 16);
+            delay = jitter(Math.min(MAX_DELAY_MILLIS, BASE_DELAY_MILLIS << exponent));
+        }
+
+        this.retryAt = now + delay;
+        return delay;
+    }
+
+    /**
+     * Records a successful request and closes the breaker.
+     * @return {@code true} if the breaker recovered from failures; otherwise, {@code false}.
+     */
+    public synchronized boolean onSuccess() {
+        final boolean recovered = this.failures > 0;
+        this.state = State.CLOSED;
+        this.failures = 0;
+        this.retryAt = 0;
+        this.failedAt = 0;
+        this.lastError = null;
+        return recovered;
+    }
+
+    /**
+     * Returns how long the next request has to wait. Once an open breaker's wait time is over it lets one
+     * probe request through.
+     * @return The time, in milliseconds, to wait before the next request, {@code 0} to proceed now.
+     */
+    public synchronized long getDelay() {
+        final long delay = this.retryAt - System.currentTimeMillis();
+        if (delay > 0) {
+            return delay;
+        }
+
+        switch (this.state) {
+            case OPEN:
+                this.state = State.HALF_OPEN;
+                return 0;
+
+            case HALF_OPEN:
+                // a probe is in flight, wait for its result
+                return BASE_DELAY_MILLIS;
+
+            default:
+                return 0;
+        }
+    }
+
+    public synchronized State getState() {
+        return this.state;
+    }
+
+    public synchronized int getFailures() {
+        return this.failures;
+    }
+
+    @CheckForNull
+    public synchronized String getLastError() {
+        return this.lastError;
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (this.state == State.CLOSED) {
+            return this.state.name();
+        }
+        return String.format("%s (%d failures, last error: %s)", this.state, this.failures, this.lastError);
+    }
+
+    // half of the delay is fixed, the other half random, spreads retries of many queues
+    private static long jitter(final long delay) {
+        final long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+}
@@ -17,34 +17,64 @@
 package com.ribose.jenkins.plugin.awscodecommittrigger.threading;
 
 import com.google.inject.Inject;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.BulkheadExecutorService;
 import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.ExecutorProvider;
 import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSExecutorFactory;
 
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ThreadPoolExecutor;
 
 
 public class ExecutorProviderImpl implements ExecutorProvider {
 
-    private final ThreadPoolExecutor executor;
+    private final SQSExecutorFactory factory;
+    private final Map<Stage, BulkheadExecutorService> executors = new EnumMap<>(Stage.class);
+    private final Map<Stage, KeyedLaneExecutor> lanes = new EnumMap<>(Stage.class);
 
     @Inject
     public ExecutorProviderImpl(final SQSExecutorFactory factory) {
-        this.executor = (ThreadPoolExecutor) factory.newExecutor();
+        this.factory = factory;
+        for (final Stage stage : Stage.values()) {
+            final BulkheadExecutorService executor = factory.newExecutor(stage, factory.getDefaultMaxConcurrency(stage), stage.getDefaultQueueCapacity());
+            this.executors.put(stage, executor);
+            this.lanes.put(stage, new KeyedLaneExecutor(executor));
+        }
     }
 
     @Override
     public int getCorePoolSize() {
-        return this.executor.getCorePoolSize();
+        return this.get(Stage.POLLING).getMaxConcurrency();
     }
 
     @Override
     public void setCorePoolSize(final int corePoolSize) throws IllegalArgumentException {
-        this.executor.setCorePoolSize(corePoolSize);
+        final BulkheadExecutorService executor = this.get(Stage.POLLING);
+        executor.resize(corePoolSize, executor.getQueueCapacity());
+    }
+
+    @Override
+    public BulkheadExecutorService get(final Stage stage) {
+        return this.executors.get(stage);
+    }
+
+    @Override
+    public KeyedLaneExecutor getLanes(final Stage stage) {
+        return this.lanes.get(stage);
+    }
+
+    @Override
+    public int getDefaultMaxConcurrency(final Stage stage) {
+        return this.factory.getDefaultMaxConcurrency(stage);
+    }
+
+    @Override
+    public void configure(final Stage stage, final int maxConcurrency, final int queueCapacity) throws IllegalArgumentException {
+        this.get(stage).resize(maxConcurrency, queueCapacity);
     }
 
     @Override
     public ExecutorService get() {
-        return this.executor;
+        return this.get(Stage.POLLING);
     }
 }
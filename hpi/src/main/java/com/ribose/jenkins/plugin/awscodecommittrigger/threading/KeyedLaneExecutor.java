@@ -0,0 +1,249 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.threading;
+
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Runs tasks of the same key one at a time on an {@link Executor}, tasks of different keys run concurrently.
+ * <p>
+ * Each key has a lane holding the running task and at most one pending task, a newer task replaces the
+ * pending one. A {@link Coalescing} task is handed the task it replaces so that it can take over its work.
+ * <p>
+ * A task the executor rejects is never run by the submitting thread, it stays in its lane as the pending task and
+ * is dispatched again after {@link #RETRY_DELAY_MILLIS}, so a saturated executor delays a lane instead of blocking
+ * whoever submitted to it.
+ * <p>
+ * After {@link #shutDown()} running tasks complete but no further task is started, pending and new tasks are
+ * held back for {@link #drainHeld()}.
+ */
+public class KeyedLaneExecutor {
+
+    private static final Log log = Log.get(KeyedLaneExecutor.class);
+
+    public static final long RETRY_DELAY_MILLIS = 500;
+
+    private static final ScheduledExecutorService retries = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, "SQSTrigger lane retry");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /**
+     * A task that can absorb the work of the pending task it replaces.
+     */
+    public interface Coalescing extends Runnable {
+
+        /**
+         * Called while the lane is locked, must not block.
+         * @param replaced The pending task that will not run.
+         */
+        void coalesce(Runnable replaced);
+    }
+
+    private final Executor executor;
+
+    // lanes with a running task, guarded by this
+    private final Map<String, Lane> lanes = new HashMap<>();
+    private final List<Runnable> held = new ArrayList<>();
+    private boolean isShutDown;
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong retriedCount = new AtomicLong();
+
+    public KeyedLaneExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    public void execute(final String key, final Runnable task) {
+        synchronized (this) {
+            if (this.isShutDown) {
+                this.held.add(task);
+                return;
+            }
+
+            final Lane lane = this.lanes.get(key);
+            if (lane != null) {
+                if (lane.pending != null) {
+                    if (task instanceof Coalescing) {
+                        ((Coalescing) task).coalesce(lane.pending);
+                    }
+                    this.coalescedCount.incrementAndGet();
+                    log.debug("Replace pending task of lane %s", key);
+                }
+                lane.pending = task;
+                return;
+            }
+            this.lanes.put(key, new Lane());
+        }
+
+        this.dispatch(key, task);
+    }
+
+    /**
+     * Waits until no lane has a running or pending task.
+     * @param timeout The maximum time to wait.
+     * @param unit The unit of the timeout.
+     * @return {@code true} if all lanes are idle; {@code false} if the timeout elapsed before.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public synchronized boolean awaitIdle(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!this.lanes.isEmpty()) {
+            final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return false;
+            }
+            this.wait(remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Stops starting tasks, running tasks complete.
+     */
+    public synchronized void shutDown() {
+        this.isShutDown = true;
+        for (final Lane lane : this.lanes.values()) {
+            if (lane.pending != null) {
+                this.held.add(lane.pending);
+                lane.pending = null;
+            }
+        }
+    }
+
+    /**
+     * @return The tasks held back since {@link #shutDown()}, they are removed from this executor.
+     */
+    public synchronized List<Runnable> drainHeld() {
+        final List<Runnable> tasks = new ArrayList<>(this.held);
+        this.held.clear();
+        return tasks;
+    }
+
+    public synchronized int getActiveLanes() {
+        return this.lanes.size();
+    }
+
+    public long getCoalescedCount() {
+        return this.coalescedCount.get();
+    }
+
+    /**
+     * @return The number of tasks the executor rejected, they were dispatched again later.
+     */
+    public long getRetriedCount() {
+        return this.retriedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d active lanes, %d coalesced tasks, %d retried tasks", this.getActiveLanes(), this.getCoalescedCount(), this.getRetriedCount());
+    }
+
+    private void dispatch(final String key, final Runnable task) {
+        try {
+            this.executor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        if (KeyedLaneExecutor.this.hold(task)) {
+                            return;
+                        }
+                        task.run();
+                    } finally {
+                        KeyedLaneExecutor.this.next(key);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Executor rejected task of lane %s, retry in %d ms", key, RETRY_DELAY_MILLIS);
+            this.retry(key, task);
+        }
+    }
+
+    // keep a rejected task pending in its lane, a newer pending task replaces it, and dispatch the lane again later
+    private void retry(final String key, final Runnable task) {
+        synchronized (this) {
+            this.retriedCount.incrementAndGet();
+            if (this.isShutDown) {
+                this.held.add(task);
+                this.lanes.remove(key);
+                this.notifyAll();
+                return;
+            }
+
+            final Lane lane = this.lanes.get(key);
+            if (lane.pending == null) {
+                lane.pending = task;
+            } else {
+                if (lane.pending instanceof Coalescing) {
+                    ((Coalescing) lane.pending).coalesce(task);
+                }
+                this.coalescedCount.incrementAndGet();
+            }
+        }
+
+        retries.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                KeyedLaneExecutor.this.next(key);
+            }
+        }, RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // hold back a dispatched task that did not start before shut down
+    private synchronized boolean hold(final Runnable task) {
+        if (this.isShutDown) {
+            this.held.add(task);
+        }
+        return this.isShutDown;
+    }
+
+    private void next(final String key) {
+        final Runnable task;
+        synchronized (this) {
+            final Lane lane = this.lanes.get(key);
+            if (lane == null || lane.pending == null || this.isShutDown) {
+                this.lanes.remove(key);
+                this.notifyAll();
+                return;
+            }
+            task = lane.pending;
+            lane.pending = null;
+        }
+
+        this.dispatch(key, task);
+    }
+
+    private static final class Lane {
+        private Runnable pending;
+    }
+}
@@ -18,65 +18,114 @@
 package com.ribose.jenkins.plugin.awscodecommittrigger.threading;
 
 import com.amazonaws.services.sqs.model.Message;
-import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSQueue;
-import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSQueueListener;
-import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSQueueMonitor;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.*;
 import com.ribose.jenkins.plugin.awscodecommittrigger.logging.Log;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.MessageIndex;
+import com.ribose.jenkins.plugin.awscodecommittrigger.metrics.QueueMetrics;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.entities.ParsedMessage;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.RepositoryIndex;
 import com.ribose.jenkins.plugin.awscodecommittrigger.net.SQSChannel;
+import com.ribose.jenkins.plugin.awscodecommittrigger.utils.StringUtils;
+import jenkins.util.Timer;
 
-import java.util.ArrayList;
-import java.util.List;
+import javax.annotation.CheckForNull;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 public class SQSQueueMonitorImpl implements SQSQueueMonitor {
 
     private final static Log log = Log.get(SQSQueueMonitorImpl.class);
     private final ExecutorService executor;
+    private final ExecutorService matchingExecutor;
 
     private final SQSQueue queue;
     private final SQSChannel channel;
+    private final MessageParserFactory parserFactory;
+    private final QueueMetrics metrics;
+    private final RepositoryIndex repositoryIndex;
+    private final MessageIndex messageIndex;
 
-    private final Object listenersLock = new Object();
-    private final List<SQSQueueListener> listeners;
+    // immutable snapshot, replaced on every change so that receiving never locks or copies
+    private final AtomicReference<Listeners> listeners;
 
-    private final AtomicBoolean isRunning = new AtomicBoolean();
+    // each consumer is one receive loop, all of them notify the same listeners
+    private final int consumers;
+    private final AtomicInteger receivers = new AtomicInteger();
+    private final Semaphore processing;
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
     private volatile boolean isShutDown;
 
-    public SQSQueueMonitorImpl(final ExecutorService executor, final SQSQueue queue, final SQSChannel channel) {
-        this.executor = executor;
-        this.queue = queue;
-        this.channel = channel;
-        this.listeners = new ArrayList<>();
+    // the channel is closed once the batches in flight are processed, their messages are deleted through it
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final CountDownLatch terminated = new CountDownLatch(1);
+
+    /**
+     * @param matchingExecutor Executor to process received messages on, {@code null} to process them on the
+     *                         receiving thread.
+     * @param repositoryIndex Global index to route messages to the listeners it contains, {@code null} to route
+     *                        all listeners by the repositories they had when they were added.
+     * @param messageIndex Index to record every message with the listeners that matched it, {@code null} to not
+     *                     record messages.
+     */
+    public SQSQueueMonitorImpl(final ExecutorService executor, @CheckForNull final ExecutorService matchingExecutor, final SQSQueue queue, final SQSChannel channel, final MessageParserFactory parserFactory, final QueueMetrics metrics, @CheckForNull final RepositoryIndex repositoryIndex, @CheckForNull final MessageIndex messageIndex) {
+        this(executor, matchingExecutor, queue, channel, parserFactory, metrics, repositoryIndex, messageIndex, Listeners.EMPTY);
     }
 
-    private SQSQueueMonitorImpl(final ExecutorService executor, final SQSQueue queue, final SQSChannel channel, final List<SQSQueueListener> listeners) {
+    private SQSQueueMonitorImpl(final ExecutorService executor, final ExecutorService matchingExecutor, final SQSQueue queue, final SQSChannel channel, final MessageParserFactory parserFactory, final QueueMetrics metrics, final RepositoryIndex repositoryIndex, final MessageIndex messageIndex, final Listeners listeners) {
         this.executor = executor;
+        this.matchingExecutor = matchingExecutor;
         this.queue = queue;
         this.channel = channel;
-        this.listeners = listeners;
+        this.parserFactory = parserFactory;
+        this.metrics = metrics;
+        this.repositoryIndex = repositoryIndex;
+        this.messageIndex = messageIndex;
+        this.listeners = new AtomicReference<>(listeners);
+        this.consumers = Math.max(SQSQueue.CONSUMERS_MIN, queue.getConsumers());
+        this.processing = new Semaphore(this.consumers);
     }
 
     @Override
     public SQSQueueMonitor clone(final SQSQueue queue, final SQSChannel channel) {
-        synchronized (this.listenersLock) {
-            return new SQSQueueMonitorImpl(this.executor, queue, channel, this.listeners);
-        }
+        return new SQSQueueMonitorImpl(this.executor, this.matchingExecutor, queue, channel, this.parserFactory, this.metrics.forQueue(queue.getName()), this.repositoryIndex, this.messageIndex, this.listeners.get());
     }
 
     @Override
     public boolean add(final SQSQueueListener listener) {
         assert listener.getQueueUuid().equals(this.channel.getQueueUuid());
+        return this.addAll(Collections.singletonList(listener));
+    }
+
+    @Override
+    public boolean addAll(final Collection<? extends SQSQueueListener> listeners) {
+        if (listeners.isEmpty()) {
+            return false;
+        }
+
+        while (true) {
+            final Listeners current = this.listeners.get();
+            if (!this.listeners.compareAndSet(current, current.with(listeners, this.repositoryIndex))) {
+                continue;
+            }
+
+            if (!current.isEmpty()) {
+                return false;
+            }
 
-        synchronized (this.listenersLock) {
-            if (this.listeners.add(listener) && this.listeners.size() == 1) {
-                this.isShutDown = false;
+            this.isShutDown = false;
+            for (int i = 0; i < this.consumers; i++) {
                 this.execute();
-                return true;
             }
+            return true;
         }
-        return false;
     }
 
     @Override
@@ -85,37 +134,107 @@ public class SQSQueueMonitorImpl implements SQSQueueMonitor {
             return false;
         }
 
-        synchronized (this.listenersLock) {
-            if (this.listeners.remove(listener) && this.listeners.isEmpty()) {
+        while (true) {
+            final Listeners current = this.listeners.get();
+            if (!current.contains(listener)) {
+                return false;
+            }
+
+            final Listeners next = current.without(listener);
+            if (!this.listeners.compareAndSet(current, next)) {
+                continue;
+            }
+
+            if (next.isEmpty()) {
                 this.shutDown();
                 return true;
             }
+            return false;
         }
-        return false;
     }
 
     @Override
     public void run() {
-        try {
-            if (this.isShutDown) {
-                return;
-            }
+        if (this.isShutDown) {
+            return;
+        }
 
-            if (!this.isRunning.compareAndSet(false, true)) {
-                log.warning("Monitor for %s already started", this.queue);
-                return;
-            }
+        final long delay = this.circuitBreaker.getDelay();
+        if (delay > 0) {
+            this.schedule(delay);
+            return;
+        }
 
+        if (this.receivers.incrementAndGet() > this.consumers) {
+            this.receivers.decrementAndGet();
+            log.warning("Monitor for %s already started %d consumers", this.queue, this.consumers);
+            return;
+        }
+
+        List<Message> received = null;
+        Exception error = null;
+        final long started = System.currentTimeMillis();
+        try {
             log.debug("Start monitor for %s", this.queue);
-            this.processMessages();
+            received = this.channel.getMessages();
         } catch (Exception e) {
-            log.warning("Monitor for %s stopped, error: %s", this.queue, e);
-            this.isShutDown = true;
+            error = e;
         } finally {
-            if (!this.isRunning.compareAndSet(true, false)) {
-                log.warning("Monitor for %s already stopped", this.queue);
-            }
+            this.receivers.decrementAndGet();
+        }
+
+        if (error != null) {
+            this.schedule(this.onFailure(error, started));
+            return;
+        }
+
+        final List<Message> messages = received;
+        if (this.isShutDown) {
+            this.drop(messages);
+            return;
+        }
+
+        if (messages == null || messages.isEmpty()) {
+            this.onSuccess();
             this.execute();
+            return;
+        }
+
+        // double buffering: wait until a previous batch is processed, then receive the next batch while this one is processed
+        this.processing.acquireUninterruptibly();
+        if (this.isShutDown) {
+            this.processing.release();
+            this.closeWhenIdle();
+            this.drop(messages);
+            return;
+        }
+
+        final Runnable task = new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    SQSQueueMonitorImpl.this.processMessages(messages);
+                } finally {
+                    SQSQueueMonitorImpl.this.processing.release();
+                    if (SQSQueueMonitorImpl.this.isShutDown) {
+                        SQSQueueMonitorImpl.this.closeWhenIdle();
+                    }
+                }
+            }
+        };
+
+        this.execute();
+        if (this.matchingExecutor == null) {
+            task.run();
+            return;
+        }
+
+        try {
+            this.matchingExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.debug("Matching executor rejected messages of %s, process them on receiving thread", this.queue);
+            task.run();
         }
     }
 
@@ -123,6 +242,35 @@ public class SQSQueueMonitorImpl implements SQSQueueMonitor {
     public void shutDown() {
         log.debug("Shut down monitor for %s", this.channel);
         this.isShutDown = true;
+        this.closeWhenIdle();
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return this.terminated.await(timeout, unit);
+    }
+
+    // close the channel unless a batch is processed, the last batch closes it when it is done
+    private void closeWhenIdle() {
+        if (!this.processing.tryAcquire(this.consumers)) {
+            return;
+        }
+
+        try {
+            if (this.closed.compareAndSet(false, true)) {
+                this.channel.close();
+                this.terminated.countDown();
+            }
+        } finally {
+            this.processing.release(this.consumers);
+        }
+    }
+
+    // messages received after shut down are not processed, they are received again once visible
+    private void drop(@CheckForNull final List<Message> messages) {
+        if (messages != null && !messages.isEmpty()) {
+            log.debug("Monitor for %s is shut down, drop %d received messages", this.queue, messages.size());
+        }
     }
 
     @Override
@@ -130,6 +278,11 @@ public class SQSQueueMonitorImpl implements SQSQueueMonitor {
         return this.isShutDown;
     }
 
+    @Override
+    public CircuitBreaker getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+
     @Override
     public SQSQueue getQueue() {
         return this.queue;
@@ -141,39 +294,336 @@ public class SQSQueueMonitorImpl implements SQSQueueMonitor {
     }
 
     private void execute() {
-        if (!this.isShutDown) {
+        if (this.isShutDown) {
+            return;
+        }
+
+        try {
             this.executor.execute(this);
+        } catch (RejectedExecutionException e) {
+            log.warning("Polling executor is saturated, retry monitor for %s", this.queue);
+            this.schedule(CircuitBreaker.BASE_DELAY_MILLIS);
         }
     }
 
-    private void processMessages() {
+    private void schedule(final long delay) {
         if (this.isShutDown) {
             return;
         }
 
-        final List<Message> messages = this.channel.getMessages();
-        List<Message> proceedMessages = notifyListeners(messages);
-        log.debug("Received %d messages, proceed %d messages", messages.size(), proceedMessages.size());
-        this.channel.deleteMessages(messages);
+        Timer.get().schedule(new Runnable() {
+            @Override
+            public void run() {
+                SQSQueueMonitorImpl.this.execute();
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private long onFailure(final Exception error, final long started) {
+        final long delay = this.circuitBreaker.onFailure(error, started);
+        log.warning("Monitor for %s failed, circuit: %s, retry in %d ms", this.queue, this.circuitBreaker, delay);
+        return delay;
+    }
+
+    private void onSuccess() {
+        if (this.circuitBreaker.onSuccess()) {
+            log.info("Monitor for %s recovered", this.queue);
+        }
+    }
+
+    // the batch is always deleted, a message that fails a listener would otherwise trigger all other jobs again
+    private void processMessages(final List<Message> messages) {
+        try {
+            List<Message> proceedMessages = notifyListeners(messages);
+            log.debug("Received %d messages, proceed %d messages", messages.size(), proceedMessages.size());
+        } catch (RuntimeException e) {
+            log.error("Unable to dispatch %d messages of %s, error: %s", messages.size(), this.queue, e);
+        }
+
+        final long started = System.currentTimeMillis();
+        try {
+            this.channel.deleteMessagesAsync(messages);
+            this.onSuccess();
+        } catch (RuntimeException e) {
+            // only channel errors count, the next receive is already running, it backs off before its request
+            this.onFailure(e, started);
+        }
     }
 
     private List<Message> notifyListeners(final List<Message> messages) {
         List<Message> proceedMessages = new ArrayList<>();
 
         if (!messages.isEmpty()) {
-            final List<SQSQueueListener> listeners = this.getListeners();
-            for (final SQSQueueListener listener : listeners) {
-                List<Message> msgs = listener.handleMessages(messages);
-                proceedMessages.addAll(msgs);
+            final Listeners listeners = this.listeners.get();
+            if (listeners.isEmpty()) {
+                return proceedMessages;
+            }
+
+            final long start = System.nanoTime();
+            final List<ParsedMessage> parsedMessages = this.parseMessages(messages);
+            this.metrics.getParseLatency().record(QueueMetrics.elapsedMicros(start));
+            final Map<SQSQueueListener, List<ParsedMessage>> routes = this.route(listeners, parsedMessages);
+            log.debug("Dispatch %d messages to %d of %d listeners", parsedMessages.size(), routes.size(), listeners.size());
+
+            final Map<Message, List<String>> matched = new IdentityHashMap<>();
+            for (final Map.Entry<SQSQueueListener, List<ParsedMessage>> route : routes.entrySet()) {
+                try {
+                    List<Message> msgs = route.getKey().handleParsedMessages(route.getValue());
+                    proceedMessages.addAll(msgs);
+                    this.addMatched(matched, route.getKey(), msgs);
+                } catch (RuntimeException e) {
+                    log.error("Listener of %s failed to handle %d messages, error: %s", this.queue, route.getValue().size(), e);
+                }
             }
+            this.record(parsedMessages, matched);
         }
 
         return proceedMessages;
     }
 
-    private List<SQSQueueListener> getListeners() {
-        synchronized (this.listenersLock) {
-            return new ArrayList<>(this.listeners);
+    private void addMatched(final Map<Message, List<String>> matched, final SQSQueueListener listener, final List<Message> messages) {
+        final String name = this.messageIndex == null ? null : listener.getName();
+        if (name == null) {
+            return;
+        }
+
+        for (final Message message : messages) {
+            List<String> names = matched.get(message);
+            if (names == null) {
+                names = new ArrayList<>();
+                matched.put(message, names);
+            }
+            names.add(name);
+        }
+    }
+
+    // one record per message with the jobs that matched it, written asynchronously by the index
+    private void record(final List<ParsedMessage> parsedMessages, final Map<Message, List<String>> matched) {
+        if (this.messageIndex == null) {
+            return;
+        }
+
+        for (final ParsedMessage parsedMessage : parsedMessages) {
+            final List<String> commits = new ArrayList<>();
+            for (final Event event : parsedMessage.getEvents()) {
+                if (event.getCommit() != null) {
+                    commits.add(event.getCommit());
+                }
+            }
+
+            final List<String> names = matched.get(parsedMessage.getMessage());
+            this.messageIndex.record(parsedMessage.getMessage().getMessageId(), commits, names == null ? Collections.<String>emptyList() : names);
+        }
+    }
+
+    private List<ParsedMessage> parseMessages(final List<Message> messages) {
+        final List<ParsedMessage> parsedMessages = new ArrayList<>(messages.size());
+
+        for (final Message message : messages) {
+            List<Event> events = Collections.emptyList();
+            try {
+                final MessageParser parser = this.parserFactory.createParser(message);
+                events = parser.parseMessage(message);
+            } catch (RuntimeException e) {
+                log.warning("Unable to parse message %s from %s, error: %s", message.getMessageId(), this.queue, e);
+            }
+            parsedMessages.add(new ParsedMessage(message, events));
+        }
+
+        return Collections.unmodifiableList(parsedMessages);
+    }
+
+    private Map<SQSQueueListener, List<ParsedMessage>> route(final Listeners listeners, final List<ParsedMessage> parsedMessages) {
+        final Map<SQSQueueListener, List<ParsedMessage>> routes = new LinkedHashMap<>();
+
+        for (final SQSQueueListener listener : listeners.unrouted) {
+            routes.put(listener, parsedMessages);
+        }
+
+        final boolean indexed = this.repositoryIndex != null && !listeners.indexed.isEmpty();
+        if (indexed) {
+            for (final SQSQueueListener listener : this.repositoryIndex.getUnrouted()) {
+                if (listeners.indexed.contains(listener)) {
+                    routes.put(listener, parsedMessages);
+                }
+            }
+        }
+
+        for (final ParsedMessage parsedMessage : parsedMessages) {
+            for (final Event event : parsedMessage.getEvents()) {
+                final String key = StringUtils.getRepositoryKey(event.getHost(), event.getPath());
+                final List<SQSQueueListener> routed = key == null ? null : listeners.byRepository.get(key);
+                if (routed != null) {
+                    addRoutes(routes, routed, parsedMessages, parsedMessage);
+                }
+
+                // listeners in the global index are resolved by repository and branch as they are now
+                if (indexed) {
+                    final List<SQSQueueListener> resolved = this.repositoryIndex.resolve(event);
+                    resolved.retainAll(listeners.indexed);
+                    addRoutes(routes, resolved, parsedMessages, parsedMessage);
+                }
+            }
+        }
+
+        return routes;
+    }
+
+    private static void addRoutes(final Map<SQSQueueListener, List<ParsedMessage>> routes, final List<SQSQueueListener> routed,
+                                  final List<ParsedMessage> parsedMessages, final ParsedMessage parsedMessage) {
+        for (final SQSQueueListener listener : routed) {
+            List<ParsedMessage> msgs = routes.get(listener);
+            if (msgs == null) {
+                msgs = new ArrayList<>();
+                routes.put(listener, msgs);
+            }
+
+            if (msgs != parsedMessages && (msgs.isEmpty() || msgs.get(msgs.size() - 1) != parsedMessage)) {
+                msgs.add(parsedMessage);
+            }
+        }
+    }
+
+    /**
+     * Immutable set of listeners with their routing index. A listener may be added more than once, it stays
+     * routed until it is removed as often as it was added. Listeners that are in the {@link RepositoryIndex} when
+     * they are added are routed by that index instead.
+     */
+    private static final class Listeners {
+
+        private static final Listeners EMPTY = new Listeners(
+            Collections.<SQSQueueListener>emptyList(),
+            Collections.<SQSQueueListener, Collection<String>>emptyMap(),
+            Collections.<String, List<SQSQueueListener>>emptyMap(),
+            Collections.<SQSQueueListener>emptyList(),
+            Collections.<SQSQueueListener>emptySet());
+
+        private final List<SQSQueueListener> all;
+        private final Map<SQSQueueListener, Collection<String>> repositoriesByListener;
+        private final Map<String, List<SQSQueueListener>> byRepository;
+        private final List<SQSQueueListener> unrouted;
+        private final Set<SQSQueueListener> indexed;
+
+        private Listeners(final List<SQSQueueListener> all, final Map<SQSQueueListener, Collection<String>> repositoriesByListener,
+                          final Map<String, List<SQSQueueListener>> byRepository, final List<SQSQueueListener> unrouted,
+                          final Set<SQSQueueListener> indexed) {
+            this.all = all;
+            this.repositoriesByListener = repositoriesByListener;
+            this.byRepository = byRepository;
+            this.unrouted = unrouted;
+            this.indexed = indexed;
+        }
+
+        private boolean isEmpty() {
+            return this.all.isEmpty();
+        }
+
+        private int size() {
+            return this.all.size();
+        }
+
+        private boolean contains(final SQSQueueListener listener) {
+            return this.all.contains(listener);
+        }
+
+        private Listeners with(final Collection<? extends SQSQueueListener> listeners, @CheckForNull final RepositoryIndex index) {
+            final List<SQSQueueListener> all = new ArrayList<>(this.all.size() + listeners.size());
+            all.addAll(this.all);
+            all.addAll(listeners);
+
+            // copy each part of the index at most once per change
+            List<SQSQueueListener> unrouted = this.unrouted;
+            Map<SQSQueueListener, Collection<String>> repositoriesByListener = this.repositoriesByListener;
+            Map<String, List<SQSQueueListener>> byRepository = this.byRepository;
+            Set<SQSQueueListener> indexed = this.indexed;
+            final Set<String> copiedKeys = new HashSet<>();
+
+            for (final SQSQueueListener listener : listeners) {
+                if (repositoriesByListener.containsKey(listener) || unrouted.contains(listener) || indexed.contains(listener)) {
+                    continue;
+                }
+
+                if (index != null && index.contains(listener)) {
+                    if (indexed == this.indexed) {
+                        indexed = new HashSet<>(this.indexed);
+                    }
+                    indexed.add(listener);
+                    continue;
+                }
+
+                final Collection<String> keys = listener.getRepositoryKeys();
+                if (keys == null) {
+                    if (unrouted == this.unrouted) {
+                        unrouted = new ArrayList<>(this.unrouted);
+                    }
+                    unrouted.add(listener);
+                    continue;
+                }
+
+                if (repositoriesByListener == this.repositoriesByListener) {
+                    repositoriesByListener = new HashMap<>(this.repositoriesByListener);
+                    byRepository = new HashMap<>(this.byRepository);
+                }
+                repositoriesByListener.put(listener, keys);
+
+                for (final String key : keys) {
+                    List<SQSQueueListener> routed = byRepository.get(key);
+                    if (copiedKeys.add(key)) {
+                        routed = routed == null ? new ArrayList<SQSQueueListener>(1) : new ArrayList<>(routed);
+                        byRepository.put(key, routed);
+                    }
+                    routed.add(listener);
+                }
+            }
+
+            return new Listeners(all, repositoriesByListener, byRepository, unrouted, indexed);
+        }
+
+        private Listeners without(final SQSQueueListener listener) {
+            final List<SQSQueueListener> all = new ArrayList<>(this.all);
+            all.remove(listener);
+
+            if (all.contains(listener)) {
+                return new Listeners(all, this.repositoriesByListener, this.byRepository, this.unrouted, this.indexed);
+            }
+
+            if (this.indexed.contains(listener)) {
+                final Set<SQSQueueListener> indexed = new HashSet<>(this.indexed);
+                indexed.remove(listener);
+                return new Listeners(all, this.repositoriesByListener, this.byRepository, this.unrouted, indexed);
+            }
+
+            if (this.unrouted.contains(listener)) {
+                final List<SQSQueueListener> unrouted = new ArrayList<>(this.unrouted);
+                unrouted.remove(listener);
+                return new Listeners(all, this.repositoriesByListener, this.byRepository, unrouted, this.indexed);
+            }
+
+            final Collection<String> keys = this.repositoriesByListener.get(listener);
+            if (keys == null) {
+                return new Listeners(all, this.repositoriesByListener, this.byRepository, this.unrouted, this.indexed);
+            }
+
+            final Map<SQSQueueListener, Collection<String>> repositoriesByListener = new HashMap<>(this.repositoriesByListener);
+            repositoriesByListener.remove(listener);
+
+            final Map<String, List<SQSQueueListener>> byRepository = new HashMap<>(this.byRepository);
+            for (final String key : keys) {
+                final List<SQSQueueListener> current = byRepository.get(key);
+                if (current == null) {
+                    continue;
+                }
+
+                final List<SQSQueueListener> routed = new ArrayList<>(current);
+                routed.remove(listener);
+                if (routed.isEmpty()) {
+                    byRepository.remove(key);
+                } else {
+                    byRepository.put(key, routed);
+                }
+            }
+
+            return new Listeners(all, repositoriesByListener, byRepository, this.unrouted, this.indexed);
         }
     }
 }
@@ -24,21 +24,31 @@ import com.ribose.jenkins.plugin.awscodecommittrigger.model.events.Configuration
 import com.ribose.jenkins.plugin.awscodecommittrigger.model.events.EventBroker;
 import org.apache.commons.lang3.StringUtils;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 
+/**
+ * Keeps one {@link SQSQueueMonitor} per queue.
+ * <p>
+ * Monitors are held in {@link Slot}s of a concurrent map: {@link #getMonitor(String)} never locks, changes of
+ * one queue lock only the slot of that queue, so registering listeners of different queues never contend.
+ */
 public class SQSQueueMonitorSchedulerImpl implements SQSQueueMonitorScheduler {
     private static final Log log = Log.get(SQSQueueMonitorSchedulerImpl.class);
 
     private final ExecutorService executor;
     private final SQSQueueProvider provider;
-    private SQSFactory factory;
+    private volatile SQSFactory factory;
+
+    private final ConcurrentMap<String, Slot> slots = new ConcurrentHashMap<>();
 
-    private final Map<String, SQSQueueMonitor> monitors = new HashMap<>();
+    // monitors stopped by shutDown(), until they processed their messages
+    private final List<SQSQueueMonitor> terminating = new CopyOnWriteArrayList<>();
 
     @Inject
     public SQSQueueMonitorSchedulerImpl(final ExecutorService executor, final SQSQueueProvider provider, final SQSFactory factory) {
@@ -60,76 +70,183 @@ public class SQSQueueMonitorSchedulerImpl implements SQSQueueMonitorScheduler {
             return false;
         }
 
-        this.register(listener, uuid, queue);
+        this.register(Collections.singletonList(listener), uuid, queue);
         return true;
     }
 
     @Override
-    public synchronized boolean unregister(final SQSQueueListener listener) {
+    public int registerAll(final Collection<? extends SQSQueueListener> listeners) {
+        final Map<String, List<SQSQueueListener>> listenersByQueue = new LinkedHashMap<>();
+        for (final SQSQueueListener listener : listeners) {
+            List<SQSQueueListener> queueListeners = listenersByQueue.get(listener.getQueueUuid());
+            if (queueListeners == null) {
+                queueListeners = new ArrayList<>();
+                listenersByQueue.put(listener.getQueueUuid(), queueListeners);
+            }
+            queueListeners.add(listener);
+        }
+
+        int registered = 0;
+        for (final Map.Entry<String, List<SQSQueueListener>> entry : listenersByQueue.entrySet()) {
+            final String uuid = entry.getKey();
+            final SQSQueue queue = this.provider.getSqsQueue(uuid);
+
+            if (queue == null) {
+                log.warning("No queue for {%s}, skip %d listeners", uuid, entry.getValue().size());
+                continue;
+            }
+
+            this.register(entry.getValue(), uuid, queue);
+            registered += entry.getValue().size();
+        }
+
+        log.debug("Registered %d SQS listeners on %d queues", registered, listenersByQueue.size());
+        return registered;
+    }
+
+    @Override
+    public boolean unregister(final SQSQueueListener listener) {
         if (listener == null) {
             return false;
         }
 
         log.debug("Unregister SQS listener");
         final String uuid = listener.getQueueUuid();
-        final SQSQueueMonitor monitor = this.monitors.get(uuid);
+        final Slot slot = this.slots.get(uuid);
 
-        if (monitor == null) {
+        if (slot == null) {
             log.warning("No monitor for {%s}, aborted", uuid);
             return false;
         }
 
-        log.debug("Remove listener from monitor for {%s}", uuid);
-        if (monitor.remove(listener)) {
-            monitor.shutDown();
-        }
+        synchronized (slot) {
+            final SQSQueueMonitor monitor = slot.monitor;
+            if (monitor == null) {
+                log.warning("No monitor for {%s}, aborted", uuid);
+                return false;
+            }
+
+            log.debug("Remove listener from monitor for {%s}", uuid);
+            monitor.remove(listener);//shuts the monitor down once its last listener is removed
 
-        if (monitor.isShutDown()) {
-            log.debug("Monitor is shut down, remove monitor for {%s}", uuid);
-            this.monitors.remove(uuid);
+            if (monitor.isShutDown()) {
+                log.debug("Monitor is shut down, remove monitor for {%s}", uuid);
+                this.remove(uuid, slot);
+            }
         }
 
         return true;
     }
 
+    @Override
+    public SQSQueueMonitor getMonitor(final String queueUuid) {
+        final Slot slot = this.slots.get(queueUuid);
+        return slot == null ? null : slot.monitor;
+    }
+
     @Override
     @Subscribe
-    public synchronized void onConfigurationChanged(final ConfigurationChangedEvent event) {
-        final Iterator<Entry<String, SQSQueueMonitor>> entries = this.monitors.entrySet().iterator();
+    public void onConfigurationChanged(final ConfigurationChangedEvent event) {
+        for (final Map.Entry<String, Slot> entry : this.slots.entrySet()) {
+            final Slot slot = entry.getValue();
+            synchronized (slot) {
+                if (slot.monitor != null) {
+                    this.reconfigure(entry.getKey(), slot);
+                }
+            }
+        }
+    }
 
-        while (entries.hasNext()) {
-            final Entry<String, SQSQueueMonitor> entry = entries.next();
-            this.reconfigure(entries, entry);
+    @Override
+    public void shutDown() {
+        for (final Map.Entry<String, Slot> entry : this.slots.entrySet()) {
+            final Slot slot = entry.getValue();
+            synchronized (slot) {
+                if (slot.monitor != null) {
+                    log.debug("Shut down monitor for {%s}", entry.getKey());
+                    slot.monitor.shutDown();
+                    this.terminating.add(slot.monitor);
+                }
+                this.remove(entry.getKey(), slot);
+            }
         }
     }
 
-    private synchronized void register(final SQSQueueListener listener, final String uuid, final SQSQueue queue) {
-        SQSQueueMonitor monitor = this.monitors.get(uuid);
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (final SQSQueueMonitor monitor : this.terminating) {
+            if (!monitor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                log.warning("Monitor for %s still processing messages", monitor.getQueue());
+                return false;
+            }
+            this.terminating.remove(monitor);
+        }
+        return true;
+    }
+
+    private void register(final List<SQSQueueListener> listeners, final String uuid, final SQSQueue queue) {
+        while (true) {
+            final Slot slot = this.getSlot(uuid);
+
+            synchronized (slot) {
+                if (slot.isRemoved) {
+                    // the last listener of the queue was removed meanwhile, start over with a new slot
+                    continue;
+                }
+
+                if (slot.monitor == null) {
+                    log.debug("No monitor exists, creating new monitor for %s", queue);
+                    slot.monitor = this.factory.createMonitor(this.executor, queue);
+                }
+
+                log.debug("Add %d listeners to monitor for %s", listeners.size(), queue);
+                if (listeners.size() == 1) {
+                    slot.monitor.add(listeners.get(0));
+                } else {
+                    slot.monitor.addAll(listeners);
+                }
+                return;
+            }
+        }
+    }
 
-        if (monitor == null) {
-            log.debug("No monitor exists, creating new monitor for %s", queue);
-            monitor = this.factory.createMonitor(this.executor, queue);
-            this.monitors.put(uuid, monitor);
+    private Slot getSlot(final String uuid) {
+        final Slot slot = this.slots.get(uuid);
+        if (slot != null) {
+            return slot;
         }
 
-        log.debug("Add listener to monitor for %s", queue);
-        monitor.add(listener);
+        final Slot created = new Slot();
+        final Slot existing = this.slots.putIfAbsent(uuid, created);
+        return existing == null ? created : existing;
+    }
+
+    // guarded by the slot
+    private void remove(final String uuid, final Slot slot) {
+        slot.monitor = null;
+        slot.isRemoved = true;
+        this.slots.remove(uuid, slot);
     }
 
-    private synchronized void reconfigure(final Iterator<Entry<String, SQSQueueMonitor>> entries, final Entry<String, SQSQueueMonitor> entry) {
-        final String uuid = entry.getKey();
-        SQSQueueMonitor monitor = entry.getValue();
+    // guarded by the slot
+    private void reconfigure(final String uuid, final Slot slot) {
+        SQSQueueMonitor monitor = slot.monitor;
         final SQSQueue queue = this.provider.getSqsQueue(uuid);
 
         if (queue == null) {
             log.debug("Queue {%s} removed, shut down monitor", uuid);
             monitor.shutDown();
-            entries.remove();
+            this.remove(uuid, slot);
         } else if (monitor.isShutDown() || this.hasQueueChanged(monitor, queue)) {
             log.debug("Queue {%s} changed or monitor stopped, create new monitor", uuid);
-            monitor = this.factory.createMonitor(monitor, queue);
-            entry.setValue(monitor).shutDown();
-            this.executor.execute(monitor);
+            final SQSQueueMonitor previous = monitor;
+            monitor = this.factory.createMonitor(previous, queue);
+            slot.monitor = monitor;
+            previous.shutDown();
+            for (int i = Math.max(SQSQueue.CONSUMERS_MIN, queue.getConsumers()); i > 0; i--) {
+                this.executor.execute(monitor);
+            }
         }
     }
 
@@ -153,6 +270,10 @@ public class SQSQueueMonitorSchedulerImpl implements SQSQueueMonitorScheduler {
                 return true;
             }
 
+            if (current.getConsumers() != queue.getConsumers()) {
+                return true;
+            }
+
             return false;
         } catch (Exception e) {
             log.warning("Cannot compare queues: %s, error: %s", e.getMessage(), e);
@@ -160,7 +281,16 @@ public class SQSQueueMonitorSchedulerImpl implements SQSQueueMonitorScheduler {
         return true;
     }
 
-    public synchronized void setFactory(SQSFactory factory) {
+    public void setFactory(SQSFactory factory) {
         this.factory = factory;
     }
+
+    /**
+     * Holder of the monitor of one queue, a removed slot is never reused.
+     */
+    private static final class Slot {
+
+        private volatile SQSQueueMonitor monitor;
+        private boolean isRemoved;
+    }
 }
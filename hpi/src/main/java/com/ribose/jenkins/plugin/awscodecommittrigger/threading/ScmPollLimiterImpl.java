@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.threading;
+
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.ScmPollLimiter;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.Log;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+public class ScmPollLimiterImpl implements ScmPollLimiter {
+
+    private static final Log log = Log.get(ScmPollLimiterImpl.class);
+
+    private final Limit global = new Limit(MAX_POLLS_DEFAULT);
+
+    // per host limits, guarded by hostLimits
+    private final Map<String, Limit> hostLimits = new HashMap<>();
+    private volatile int maxPollsPerHost = MAX_POLLS_PER_HOST_DEFAULT;
+    private volatile int jitterMillis = JITTER_MILLIS_DEFAULT;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong admittedCount = new AtomicLong();
+    private final AtomicLong waitMillis = new AtomicLong();
+
+    @Override
+    public Permit acquire(final Collection<String> hosts) throws InterruptedException {
+        final int jitter = this.jitterMillis;
+        if (jitter > 0) {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(jitter + 1));
+        }
+
+        // acquire hosts in a fixed order so that two polls never wait for each other
+        final List<Limit> limits = new ArrayList<>();
+        for (final String host : new TreeSet<>(hosts)) {
+            limits.add(this.getHostLimit(host));
+        }
+        limits.add(this.global);
+
+        final long start = System.nanoTime();
+        this.waiting.incrementAndGet();
+        final List<Limit> acquired = new ArrayList<>(limits.size());
+        try {
+            for (final Limit limit : limits) {
+                limit.acquire();
+                acquired.add(limit);
+            }
+        } catch (InterruptedException e) {
+            release(acquired);
+            throw e;
+        } finally {
+            this.waiting.decrementAndGet();
+        }
+
+        final long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        this.waitMillis.addAndGet(waited);
+        this.admittedCount.incrementAndGet();
+        log.debug("Admitted poll against %s after %d ms", hosts, waited);
+
+        return new Permit() {
+
+            private final AtomicBoolean closed = new AtomicBoolean();
+
+            @Override
+            public void close() {
+                if (this.closed.compareAndSet(false, true)) {
+                    release(acquired);
+                }
+            }
+        };
+    }
+
+    @Override
+    public void configure(final int maxPolls, final int maxPollsPerHost, final int jitterMillis) {
+        this.global.setMax(maxPolls);
+        this.maxPollsPerHost = maxPollsPerHost;
+        this.jitterMillis = jitterMillis;
+
+        synchronized (this.hostLimits) {
+            for (final Limit limit : this.hostLimits.values()) {
+                limit.setMax(maxPollsPerHost);
+            }
+        }
+    }
+
+    @Override
+    public int getInFlight() {
+        return this.global.getInFlight();
+    }
+
+    @Override
+    public int getWaiting() {
+        return this.waiting.get();
+    }
+
+    @Override
+    public long getAdmittedCount() {
+        return this.admittedCount.get();
+    }
+
+    @Override
+    public long getAverageWaitMillis() {
+        final long count = this.admittedCount.get();
+        return count == 0 ? 0 : this.waitMillis.get() / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d in flight, %d waiting, %d admitted, %d ms average wait",
+            this.getInFlight(), this.global.getMax(), this.getWaiting(), this.getAdmittedCount(), this.getAverageWaitMillis());
+    }
+
+    private Limit getHostLimit(final String host) {
+        synchronized (this.hostLimits) {
+            Limit limit = this.hostLimits.get(host);
+            if (limit == null) {
+                limit = new Limit(this.maxPollsPerHost);
+                this.hostLimits.put(host, limit);
+            }
+            return limit;
+        }
+    }
+
+    private static void release(final List<Limit> limits) {
+        for (int i = limits.size() - 1; i >= 0; i--) {
+            limits.get(i).release();
+        }
+    }
+
+    /**
+     * Counting semaphore whose maximum can change while permits are held.
+     */
+    private static final class Limit {
+
+        private int max;
+        private int inFlight;
+
+        private Limit(final int max) {
+            this.max = max;
+        }
+
+        private synchronized void acquire() throws InterruptedException {
+            while (this.inFlight >= this.max) {
+                this.wait();
+            }
+            this.inFlight++;
+        }
+
+        private synchronized void release() {
+            this.inFlight--;
+            this.notifyAll();
+        }
+
+        private synchronized void setMax(final int max) {
+            this.max = max;
+            this.notifyAll();
+        }
+
+        private synchronized int getMax() {
+            return this.max;
+        }
+
+        private synchronized int getInFlight() {
+            return this.inFlight;
+        }
+    }
+}
@@ -125,6 +125,22 @@ public final class StringUtils {
         return true;
     }
 
+    /**
+     * Build the key identifying a git repository by its host and path, used to route events to the
+     * listeners subscribed to that repository
+     *
+     * @param host host of the repository, can be null
+     * @param path path of the repository, can be null
+     * @return the key, or <code>null</code> if host or path is blank
+     */
+    @CheckForNull
+    public static String getRepositoryKey(@Nullable final String host, @Nullable final String path) {
+        if (org.apache.commons.lang3.StringUtils.isBlank(host) || org.apache.commons.lang3.StringUtils.isBlank(path)) {
+            return null;
+        }
+        return host + path;
+    }
+
     // return true if "sourceVersion" compatible with "destVersion"
     public static boolean checkCompatibility(@Nullable String sourceVersion, @Nullable String destVersion) {
         if (org.apache.commons.lang3.StringUtils.isBlank(sourceVersion) || org.apache.commons.lang3.StringUtils.isBlank(destVersion)) {
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.Event;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.MessageParser;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.CodeCommitMessageParser;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.CodeCommitStreamingMessageParser;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.entities.codecommit.CodeCommitEvent;
+import org.apache.commons.io.IOUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+
+public class StreamingParserTest {
+
+    private final MessageParser gsonParser = new CodeCommitMessageParser();
+    private final MessageParser streamingParser = new CodeCommitStreamingMessageParser(this.gsonParser);
+
+    @Test
+    public void testParseSampleSqsResponse() throws IOException {
+        assertSameEvents("sqsmsg.json");
+    }
+
+    @Test
+    public void testIssue54() throws IOException {
+        assertSameEvents("issue_54.json");
+    }
+
+    @Test
+    public void testParseRecordsBody() {
+        Message message = new Message().withMessageId("id").withBody("{\"Records\":[{\"eventSource\":\"aws:codecommit\"," +
+            "\"codecommit\":{\"references\":[{\"commit\":\"c1\",\"ref\":\"refs/heads/master\"},{\"ref\":\"refs/tags/v1\"}]}," +
+            "\"eventSourceARN\":\"arn:aws:codecommit:us-west-2:123456789012:my-repo\",\"userIdentityARN\":\"arn:aws:iam::123456789012:user/me\"}," +
+            "{\"eventSource\":\"aws:s3\",\"eventSourceARN\":\"arn:aws:s3:::bucket\"}]}");
+
+        List<Event> events = this.streamingParser.parseMessage(message);
+
+        Assertions.assertThat(events).hasSize(2);
+        Assertions.assertThat(events.get(0).getHost()).isEqualTo("git-codecommit.us-west-2.amazonaws.com");
+        Assertions.assertThat(events.get(0).getPath()).isEqualTo("/v1/repos/my-repo");
+        Assertions.assertThat(events.get(0).getBranch()).isEqualTo("refs/heads/master");
+        Assertions.assertThat(events.get(0).getNoPrefixBranch()).isEqualTo("/master");
+        Assertions.assertThat(events.get(0).getUser()).isEqualTo("arn:aws:iam::123456789012:user/me");
+        Assertions.assertThat(events.get(0).getCommit()).isEqualTo("c1");
+        Assertions.assertThat(events.get(1).getBranch()).isEqualTo("refs/tags/v1");
+        Assertions.assertThat(events.get(1).getCommit()).isNull();
+    }
+
+    @Test
+    public void testFallbackForUnknownBody() {
+        MessageParser fallback = Mockito.mock(MessageParser.class);
+        Message message = new Message().withMessageId("id").withBody("{\"foo\":\"bar\"}");
+        Mockito.when(fallback.parseMessage(message)).thenReturn(Collections.<Event>emptyList());
+
+        new CodeCommitStreamingMessageParser(fallback).parseMessage(message);
+
+        Mockito.verify(fallback).parseMessage(message);
+    }
+
+    @Test
+    public void testNoPrefixBranchSameAsRegex() {
+        String[] refs = {"refs/heads/master", "refs/remotes/origin/dev", "remotes/origin/x", "master",
+            "refs/heads/feature/remotes-fix", "refs/heads/refs/heads", "refs/tags/v1"};
+        for (String ref : refs) {
+            CodeCommitEvent event = new CodeCommitEvent("arn:aws:codecommit:us-east-1:1:repo", "user", ref, null);
+            Assertions.assertThat(event.getNoPrefixBranch())
+                .isEqualTo(ref.replaceAll("(refs/heads|refs/remotes|remotes)", ""));
+        }
+    }
+
+    private void assertSameEvents(String resource) throws IOException {
+        String body = IOUtils.toString(Utils.getResource(StreamingParserTest.class, resource), StandardCharsets.UTF_8);
+        Message message = new Message().withMessageId("id").withBody(body);
+
+        List<Event> expected = this.gsonParser.parseMessage(message);
+        List<Event> actual = this.streamingParser.parseMessage(message);
+
+        Assertions.assertThat(actual).hasSameSizeAs(expected).isNotEmpty();
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertThat(actual.get(i))
+                .isEqualToComparingOnlyGivenFields(expected.get(i), "host", "path", "branch", "noPrefixBranch", "user", "arn", "commit");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.factories;
+
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.BulkheadExecutorService;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.ExecutorProvider.Stage;
+import org.junit.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class VirtualThreadExecutorFactoryTest {
+
+    private final ThreadFactory threadFactory = new ThreadFactoryImpl();
+
+    @Test
+    public void shouldFallBackToPlatformThreads() {
+        final VirtualThreadExecutorFactory factory = new VirtualThreadExecutorFactory(this.threadFactory, null);
+
+        final BulkheadExecutorService executor = factory.newExecutor(Stage.POLLING, 5, 10);
+        try {
+            assertThat(factory.isVirtual()).isFalse();
+            assertThat(executor.getName()).isEqualTo("sqs-polling");
+            assertThat(factory.getDefaultMaxConcurrency(Stage.POLLING)).isEqualTo(Stage.POLLING.getDefaultMaxConcurrency());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldRaiseDefaultsOfBlockingStagesForVirtualThreads() {
+        final VirtualThreadExecutorFactory factory = new VirtualThreadExecutorFactory(this.threadFactory, Executors.defaultThreadFactory());
+
+        final BulkheadExecutorService executor = factory.newExecutor(Stage.TRIGGERING, 5, 10);
+        try {
+            assertThat(factory.isVirtual()).isTrue();
+            assertThat(executor.getName()).isEqualTo("sqs-triggering-virtual");
+            assertThat(factory.getDefaultMaxConcurrency(Stage.POLLING)).isGreaterThan(Stage.POLLING.getDefaultMaxConcurrency());
+            assertThat(factory.getDefaultMaxConcurrency(Stage.MATCHING)).isEqualTo(Stage.MATCHING.getDefaultMaxConcurrency());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldDetectVirtualThreadsOfRunningJvm() {
+        boolean supported;
+        try {
+            Thread.class.getMethod("ofVirtual");
+            supported = true;
+        } catch (NoSuchMethodException e) {
+            supported = false;
+        }
+
+        assertThat(VirtualThreadExecutorFactory.createVirtualThreadFactory() != null).isEqualTo(supported);
+    }
+}
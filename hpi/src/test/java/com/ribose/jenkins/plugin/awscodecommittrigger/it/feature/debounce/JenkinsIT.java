@@ -0,0 +1,139 @@
+package com.ribose.jenkins.plugin.awscodecommittrigger.it.feature.debounce;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.util.Modules;
+import com.ribose.jenkins.plugin.awscodecommittrigger.InternalInjector;
+import com.ribose.jenkins.plugin.awscodecommittrigger.SQSScmConfig;
+import com.ribose.jenkins.plugin.awscodecommittrigger.SQSTrigger;
+import com.ribose.jenkins.plugin.awscodecommittrigger.it.AbstractFreestyleIT;
+import com.ribose.jenkins.plugin.awscodecommittrigger.it.load.RecordingSQSJobFactory;
+import com.ribose.jenkins.plugin.awscodecommittrigger.it.mock.MockGitSCM;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.SQSJobFactory;
+import hudson.model.FreeStyleProject;
+import hudson.plugins.git.BranchSpec;
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+public class JenkinsIT extends AbstractFreestyleIT {
+
+    private static final String TEMPLATE_COMMIT = "a6abadd78aa29cab902fd5f9ea6ec3ce063f47a9";
+    private static final String TEMPLATE_USER = "user/ext-phuong-huynh";
+    private static final int DEBOUNCE_SECONDS = 5;
+
+    private final RecordingSQSJobFactory recorder = new RecordingSQSJobFactory();
+
+    @Before
+    public void bindRecorder() {
+        final InternalInjector injector = this.jenkinsRule.jenkins.lookup.get(InternalInjector.class);
+        injector.setModule(Modules.override(injector.getModule()).with(new AbstractModule() {
+
+            @Override
+            protected void configure() {
+                this.bind(SQSJobFactory.class).toInstance(JenkinsIT.this.recorder);
+            }
+        }));
+    }
+
+    @After
+    public void clearQueue() {
+        this.jenkinsRule.jenkins.getQueue().clear();
+    }
+
+    @Test
+    public void shouldCoalesceMessagesInsideWindow() throws Exception {
+        this.createJob(DEBOUNCE_SECONDS);
+
+        for (int i = 1; i <= 3; i++) {
+            this.send(i);
+        }
+
+        Assertions.assertThat(this.recorder.awaitSchedules(1, 60, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(DEBOUNCE_SECONDS + 1));
+
+        Assertions.assertThat(this.recorder.getPolls()).isEqualTo(1);
+        Assertions.assertThat(this.recorder.getSchedules()).isEqualTo(1);
+        final String note = this.recorder.getCauses().get(0).getShortDescription();
+        for (int i = 1; i <= 3; i++) {
+            Assertions.assertThat(note).contains(commit(i), user(i));
+        }
+    }
+
+    @Test
+    public void shouldOpenNewWindowAfterWindowClosed() throws Exception {
+        this.createJob(DEBOUNCE_SECONDS);
+
+        this.send(1);
+        Assertions.assertThat(this.recorder.awaitSchedules(1, 60, TimeUnit.SECONDS)).isTrue();
+
+        this.send(2);
+        Assertions.assertThat(this.recorder.awaitSchedules(2, 60, TimeUnit.SECONDS)).isTrue();
+
+        Assertions.assertThat(this.recorder.getPolls()).isEqualTo(2);
+        Assertions.assertThat(this.recorder.getCauses().get(0).getShortDescription()).contains(commit(1)).doesNotContain(commit(2));
+        Assertions.assertThat(this.recorder.getCauses().get(1).getShortDescription()).contains(commit(2)).doesNotContain(commit(1));
+    }
+
+    @Test
+    public void shouldTriggerEveryMessageWithoutWindow() throws Exception {
+        this.createJob(0);
+
+        for (int i = 1; i <= 3; i++) {
+            this.send(i);
+            Assertions.assertThat(this.recorder.awaitSchedules(i, 60, TimeUnit.SECONDS)).isTrue();
+        }
+
+        Assertions.assertThat(this.recorder.getPolls()).isEqualTo(3);
+        for (int i = 1; i <= 3; i++) {
+            Assertions.assertThat(this.recorder.getCauses().get(i - 1).getShortDescription()).contains(commit(i));
+        }
+    }
+
+    @Test
+    public void shouldTriggerWindowOnceWhenFlushedEarly() throws Exception {
+        final SQSTrigger trigger = this.createJob(DEBOUNCE_SECONDS);
+
+        this.send(1);
+        while (!this.recorder.awaitSchedules(1, 100, TimeUnit.MILLISECONDS)) {
+            trigger.flushPending();
+        }
+        Thread.sleep(TimeUnit.SECONDS.toMillis(DEBOUNCE_SECONDS + 1));
+
+        // the timer of the window fires after it was flushed and must not trigger it again
+        Assertions.assertThat(this.recorder.getPolls()).isEqualTo(1);
+        Assertions.assertThat(this.recorder.getSchedules()).isEqualTo(1);
+    }
+
+    private SQSTrigger createJob(final int debounceSeconds) throws Exception {
+        final FreeStyleProject job = this.jenkinsRule.createFreeStyleProject();
+        job.setScm(MockGitSCM.fromUrlAndBranchSpecs(defaultSCMUrl, Collections.singletonList(new BranchSpec("master"))));
+
+        // builds stay in the queue, only scheduling is recorded
+        job.setQuietPeriod((int) TimeUnit.HOURS.toSeconds(1));
+
+        final SQSTrigger trigger = new SQSTrigger(this.sqsQueue.getUuid(), true, Collections.<SQSScmConfig>emptyList());
+        trigger.setDebounceSeconds(debounceSeconds);
+        trigger.start(job, false);
+        job.addTrigger(trigger);
+        return trigger;
+    }
+
+    private void send(final int index) {
+        final String message = defaultSqsMessageTemplate
+            .replace(TEMPLATE_COMMIT, commit(index))
+            .replace(TEMPLATE_USER, user(index));
+        this.mockAwsSqs.sendMessage(message, "refs/heads/master");
+    }
+
+    private static String commit(final int index) {
+        return String.format("d%039x", index);
+    }
+
+    private static String user(final int index) {
+        return "user/debounce-" + index;
+    }
+}
@@ -0,0 +1,66 @@
+package com.ribose.jenkins.plugin.awscodecommittrigger.it.feature.match_plan;
+
+import com.ribose.jenkins.plugin.awscodecommittrigger.Context;
+import com.ribose.jenkins.plugin.awscodecommittrigger.SQSTrigger;
+import com.ribose.jenkins.plugin.awscodecommittrigger.it.AbstractFreestyleIT;
+import com.ribose.jenkins.plugin.awscodecommittrigger.it.mock.MockGitSCM;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.RepositoryIndex;
+import hudson.model.FreeStyleProject;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JenkinsIT extends AbstractFreestyleIT {
+
+    private static final String HOST = "git-codecommit.us-west-2.amazonaws.com";
+    private static final String PATH_A = "/v1/repos/match-plan-a";
+    private static final String PATH_B = "/v1/repos/match-plan-b";
+
+    private RepositoryIndex index;
+    private FreeStyleProject job;
+    private SQSTrigger trigger;
+
+    @Before
+    public void subscribe() throws Exception {
+        this.index = Context.injector().getInstance(RepositoryIndex.class);
+
+        this.job = this.jenkinsRule.createFreeStyleProject();
+        this.job.setScm(new MockGitSCM("https://" + HOST + PATH_A));
+        this.trigger = new SQSTrigger(this.sqsQueue.getUuid(), true, null);
+        this.trigger.start(this.job, false);
+        this.job.addTrigger(this.trigger);
+
+        assertThat(this.index.getListeners(HOST + PATH_A)).containsExactly(this.trigger);
+    }
+
+    @Test
+    public void shouldInvalidateOnConfigSave() throws Exception {
+        this.job.setScm(new MockGitSCM("https://" + HOST + PATH_B));
+
+        assertThat(this.index.getListeners(HOST + PATH_A)).isEmpty();
+        assertThat(this.index.getListeners(HOST + PATH_B)).containsExactly(this.trigger);
+        assertThat(this.trigger.getRepositoryKeys()).containsExactly(HOST + PATH_B);
+    }
+
+    @Test
+    public void shouldKeepIndexOnRename() throws Exception {
+        this.job.renameTo("match-plan-renamed");
+
+        assertThat(this.index.getListeners(HOST + PATH_A)).containsExactly(this.trigger);
+        assertThat(this.trigger.getRepositoryKeys()).containsExactly(HOST + PATH_A);
+    }
+
+    @Test
+    public void shouldRemoveFromIndexOnDelete() throws Exception {
+        this.job.delete();
+
+        assertThat(this.index.contains(this.trigger)).isFalse();
+        assertThat(this.index.getListeners(HOST + PATH_A)).isEmpty();
+    }
+
+    @Test
+    public void shouldNotRefreshFreestyleOnBuild() throws Exception {
+        assertThat(this.trigger.refreshMatchPlan()).isFalse();
+    }
+}
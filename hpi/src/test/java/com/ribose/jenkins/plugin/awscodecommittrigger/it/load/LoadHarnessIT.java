@@ -0,0 +1,270 @@
+package com.ribose.jenkins.plugin.awscodecommittrigger.it.load;
+
+import com.amazonaws.services.sqs.AmazonSQS;
+import com.google.inject.AbstractModule;
+import com.google.inject.util.Modules;
+import com.ribose.jenkins.plugin.awscodecommittrigger.InternalInjector;
+import com.ribose.jenkins.plugin.awscodecommittrigger.PluginInfo;
+import com.ribose.jenkins.plugin.awscodecommittrigger.SQSScmConfig;
+import com.ribose.jenkins.plugin.awscodecommittrigger.SQSTrigger;
+import com.ribose.jenkins.plugin.awscodecommittrigger.it.AbstractFreestyleIT;
+import com.ribose.jenkins.plugin.awscodecommittrigger.it.mock.MockGitSCM;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.SQSJobFactory;
+import hudson.model.FreeStyleProject;
+import org.apache.commons.io.FileUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Load test of the whole receive pipeline: {@code jobs} jobs spread over {@code queues} queues, {@code messages}
+ * pushes published at {@code rate} messages per second, each to the repository of one job.
+ * <p>
+ * Measures sustained throughput, push-to-schedule latency percentiles and peak heap, and writes them to
+ * {@code target/load-harness} for comparison between releases. Parameters are system properties prefixed with
+ * {@code loadHarness.}, e.g. {@code mvn verify -Pit -Dit.test=LoadHarnessIT -DloadHarness.messages=5000}.
+ */
+public class LoadHarnessIT extends AbstractFreestyleIT {
+
+    private static final String PREFIX = "loadHarness.";
+    private static final String REGION = "us-west-2";
+    private static final String ACCOUNT = "239062223385";
+
+    private final int jobs = Integer.getInteger(PREFIX + "jobs", 50);
+    private final int queues = Integer.getInteger(PREFIX + "queues", 4);
+    private final int messages = Integer.getInteger(PREFIX + "messages", 1000);
+    private final int rate = Integer.getInteger(PREFIX + "rate", 100);
+    private final int timeoutSeconds = Integer.getInteger(PREFIX + "timeoutSeconds", 300);
+    private final File reportDir = new File(System.getProperty(PREFIX + "reportDir", "target/load-harness"));
+
+    private final RecordingSQSJobFactory recorder = new RecordingSQSJobFactory();
+    private final List<String> queueUrls = new ArrayList<>();
+    private AmazonSQS sqs;
+
+    @Before
+    public void setUpLoad() throws Exception {
+        this.sqs = this.mockAwsSqs.getSqsClient();
+
+        final StringBuilder config = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?>\n")
+            .append("<com.ribose.jenkins.plugin.awscodecommittrigger.SQSTrigger_-DescriptorImpl>\n<sqsQueues>\n");
+        for (int i = 0; i < this.queues; i++) {
+            final String url = this.sqs.createQueue("LoadHarness-" + i).getQueueUrl();
+            this.queueUrls.add(url);
+            config.append("<com.ribose.jenkins.plugin.awscodecommittrigger.SQSTriggerQueue>")
+                .append("<uuid>").append(UUID.randomUUID()).append("</uuid>")
+                .append("<credentialsId>sample</credentialsId>")
+                .append("<waitTimeSeconds>20</waitTimeSeconds>")
+                .append("<maxNumberOfMessages>10</maxNumberOfMessages>")
+                .append("<url>").append(url).append("</url>")
+                .append("<region>US_WEST_2</region>")
+                .append("</com.ribose.jenkins.plugin.awscodecommittrigger.SQSTriggerQueue>\n");
+        }
+        config.append("</sqsQueues>\n</com.ribose.jenkins.plugin.awscodecommittrigger.SQSTrigger_-DescriptorImpl>\n");
+
+        final SQSTrigger.DescriptorImpl descriptor = (SQSTrigger.DescriptorImpl) this.jenkinsRule.jenkins.getDescriptor(SQSTrigger.class);
+        FileUtils.write(new File(this.jenkinsRule.jenkins.getRootDir(), descriptor.getId() + ".xml"), config, "UTF-8");
+        descriptor.load();
+
+        final InternalInjector injector = this.jenkinsRule.jenkins.lookup.get(InternalInjector.class);
+        injector.setModule(Modules.override(injector.getModule()).with(new AbstractModule() {
+
+            @Override
+            protected void configure() {
+                this.bind(SQSJobFactory.class).toInstance(LoadHarnessIT.this.recorder);
+            }
+        }));
+
+        for (int job = 0; job < this.jobs; job++) {
+            this.createJob(job, descriptor.getSqsQueues().get(job % this.queues).getUuid());
+        }
+    }
+
+    @After
+    public void tearDownLoad() {
+        this.jenkinsRule.jenkins.getQueue().clear();
+        for (final String url : this.queueUrls) {
+            this.sqs.deleteQueue(url);
+        }
+    }
+
+    @Test
+    public void shouldScheduleAllPushes() throws Exception {
+        this.warmUp();
+        this.recorder.reset();
+
+        final HeapSampler heap = new HeapSampler();
+        heap.start();
+
+        final long start = System.nanoTime();
+        final long interval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, this.rate);
+        for (int i = 0; i < this.messages; i++) {
+            final long due = start + i * interval;
+            final long wait = due - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            this.push(i % this.jobs, String.format("%040x", i + 1));
+        }
+        final long published = System.nanoTime();
+
+        final boolean completed = this.recorder.awaitScheduled(this.messages, this.timeoutSeconds, TimeUnit.SECONDS);
+        final long end = completed ? this.recorder.getLastScheduled() : System.nanoTime();
+        heap.stop();
+
+        final LoadReport report = new LoadReport()
+            .put("plugin.version", PluginInfo.version)
+            .put("java.version", System.getProperty("java.version"))
+            .put("param.jobs", this.jobs)
+            .put("param.queues", this.queues)
+            .put("param.messages", this.messages)
+            .put("param.rate", this.rate)
+            .put("result.completed", completed)
+            .put("result.scheduled.commits", this.recorder.getLatencies().size())
+            .put("result.scheduled.calls", this.recorder.getSchedules())
+            .put("result.duplicates", this.recorder.getDuplicates())
+            .putRate("result.publish.rate", this.messages, published - start)
+            .putRate("result.throughput", this.recorder.getLatencies().size(), end - start)
+            .putPercentiles("result.latency", this.recorder.getLatencies())
+            .put("result.heap.baseline.mb", heap.getBaseline() / (1024 * 1024))
+            .put("result.heap.peak.mb", heap.getPeak() / (1024 * 1024));
+
+        final File file = report.write(this.reportDir, String.format("load-%s-%dj-%dq-%dm-%dr.properties",
+            PluginInfo.version, this.jobs, this.queues, this.messages, this.rate));
+        logger.info("Load report " + file.getAbsolutePath() + "\n" + report);
+
+        Assertions.assertThat(completed).as(report.toString()).isTrue();
+    }
+
+    private void createJob(final int index, final String queueUuid) throws Exception {
+        final FreeStyleProject job = this.jenkinsRule.getInstance().createProject(FreeStyleProject.class, "load-" + index);
+        job.setScm(new MockGitSCM(String.format("https://git-codecommit.%s.amazonaws.com/v1/repos/%s", REGION, repository(index))));
+
+        // builds stay in the queue, only scheduling is measured
+        job.setQuietPeriod((int) TimeUnit.HOURS.toSeconds(1));
+
+        final SQSTrigger trigger = new SQSTrigger(queueUuid, true, Collections.<SQSScmConfig>emptyList());
+        trigger.start(job, false);
+        job.addTrigger(trigger);
+    }
+
+    /**
+     * Push to every job until each had a build scheduled, so all triggers are registered and the pipeline is
+     * warm before measuring. Pushes that arrived before the trigger of their job was registered are sent again.
+     */
+    private void warmUp() throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(this.timeoutSeconds);
+        final List<Integer> pending = new ArrayList<>();
+        for (int job = 0; job < this.jobs; job++) {
+            pending.add(job);
+        }
+
+        while (!pending.isEmpty()) {
+            Assertions.assertThat(System.nanoTime()).as("Jobs not triggered while warming up: %s", pending).isLessThan(deadline);
+            for (final int job : pending) {
+                this.push(job, warmUpCommit(job));
+            }
+            this.recorder.awaitScheduled(this.jobs, 5, TimeUnit.SECONDS);
+
+            logger.info(String.format("Warm up: %d of %d jobs triggered", this.recorder.getLatencies().size(), this.jobs));
+            pending.clear();
+            for (int job = 0; job < this.jobs; job++) {
+                if (!this.recorder.isScheduled(warmUpCommit(job))) {
+                    pending.add(job);
+                }
+            }
+        }
+    }
+
+    private void push(final int job, final String commit) {
+        this.recorder.sent(commit);
+        this.sqs.sendMessage(this.queueUrls.get(job % this.queues), message(repository(job), commit));
+    }
+
+    private static String repository(final int job) {
+        return "load-repo-" + job;
+    }
+
+    private static String warmUpCommit(final int job) {
+        return String.format("f%039x", job);
+    }
+
+    /**
+     * A CodeCommit push notification as delivered by SNS, see {@code sqsmsg.json.tpl}.
+     */
+    private static String message(final String repository, final String commit) {
+        final String records = "{\"Records\":[{\"awsRegion\":\"" + REGION + "\","
+            + "\"codecommit\":{\"references\":[{\"commit\":\"" + commit + "\",\"ref\":\"refs/heads/master\"}]},"
+            + "\"eventId\":\"" + UUID.randomUUID() + "\",\"eventName\":\"ReferenceChanges\",\"eventPartNumber\":1,"
+            + "\"eventSource\":\"aws:codecommit\",\"eventSourceARN\":\"arn:aws:codecommit:" + REGION + ":" + ACCOUNT + ":" + repository + "\","
+            + "\"eventTime\":\"2017-06-15T06:46:42.325+0000\",\"eventTotalParts\":1,\"eventTriggerName\":\"AllEvents\","
+            + "\"eventVersion\":\"1.0\",\"userIdentityARN\":\"arn:aws:iam::" + ACCOUNT + ":user/load-harness\"}]}";
+
+        return "{\"Type\":\"Notification\",\"MessageId\":\"" + UUID.randomUUID() + "\","
+            + "\"TopicArn\":\"arn:aws:sns:" + REGION + ":" + ACCOUNT + ":load-harness\","
+            + "\"Subject\":\"UPDATE: AWS CodeCommit " + REGION + " push: " + repository + "\","
+            + "\"Message\":\"" + records.replace("\"", "\\\"") + "\","
+            + "\"Timestamp\":\"2017-06-15T06:46:42.385Z\"}";
+    }
+
+    /**
+     * Samples used heap while the load runs, the peak usage of the memory pools includes garbage not collected
+     * yet and depends on the collector.
+     */
+    private static final class HeapSampler implements Runnable {
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final AtomicLong peak = new AtomicLong();
+        private volatile boolean running;
+        private long baseline;
+        private Thread thread;
+
+        private void start() {
+            System.gc();
+            this.baseline = this.memory.getHeapMemoryUsage().getUsed();
+            this.running = true;
+            this.thread = new Thread(this, "load-harness-heap-sampler");
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        private void stop() throws InterruptedException {
+            this.running = false;
+            this.thread.join();
+        }
+
+        @Override
+        public void run() {
+            while (this.running) {
+                final long used = this.memory.getHeapMemoryUsage().getUsed();
+                if (used > this.peak.get()) {
+                    this.peak.set(used);
+                }
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        private long getBaseline() {
+            return this.baseline;
+        }
+
+        private long getPeak() {
+            return this.peak.get();
+        }
+    }
+}
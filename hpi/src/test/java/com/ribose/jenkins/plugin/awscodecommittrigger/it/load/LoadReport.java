@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.it.load;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Parameters and results of one load test run, written as sorted {@code key=value} lines so the reports of two
+ * releases can be compared with diff.
+ */
+public class LoadReport {
+
+    private static final double[] PERCENTILES = {50, 90, 95, 99, 99.9, 100};
+
+    private final Map<String, String> values = new TreeMap<>();
+
+    public LoadReport put(final String key, final Object value) {
+        this.values.put(key, String.valueOf(value));
+        return this;
+    }
+
+    public LoadReport putRate(final String key, final long count, final long nanos) {
+        final double seconds = nanos / (double) TimeUnit.SECONDS.toNanos(1);
+        return this.put(key, String.format(Locale.ROOT, "%.1f", seconds <= 0 ? 0 : count / seconds));
+    }
+
+    /**
+     * Put the percentiles of the specified latencies in milliseconds, nearest rank.
+     */
+    public LoadReport putPercentiles(final String key, final List<Long> nanos) {
+        final List<Long> sorted = new ArrayList<>(nanos);
+        Collections.sort(sorted);
+        this.put(key + ".count", sorted.size());
+        if (sorted.isEmpty()) {
+            return this;
+        }
+
+        for (final double percentile : PERCENTILES) {
+            final int rank = (int) Math.ceil(percentile / 100 * sorted.size());
+            final long value = sorted.get(Math.max(0, rank - 1));
+            final String name = String.format(Locale.ROOT, "%s.p%s", key, percentile == (long) percentile ? String.valueOf((long) percentile) : String.valueOf(percentile));
+            this.put(name + ".ms", String.format(Locale.ROOT, "%.1f", value / 1e6));
+        }
+        return this;
+    }
+
+    public String get(final String key) {
+        return this.values.get(key);
+    }
+
+    public File write(final File dir, final String name) throws IOException {
+        final File file = new File(dir, name);
+        FileUtils.write(file, this.toString(), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        for (final Map.Entry<String, String> entry : this.values.entrySet()) {
+            builder.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+        }
+        return builder.toString();
+    }
+}
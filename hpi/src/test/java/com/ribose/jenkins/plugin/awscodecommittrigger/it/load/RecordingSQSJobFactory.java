@@ -0,0 +1,223 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.it.load;
+
+import com.ribose.jenkins.plugin.awscodecommittrigger.SQSTrigger;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.SQSJob;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.SQSJobFactory;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.ScmMatchPlan;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.impl.SQSJobFactoryImpl;
+import hudson.model.Action;
+import hudson.model.Cause;
+import hudson.model.Job;
+import hudson.model.TaskListener;
+import hudson.scm.PollingResult;
+import hudson.scm.SCM;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * Creates the real {@link SQSJob}s, but records when a build is scheduled for each pushed commit and reports
+ * changes on every poll so the load test does not depend on remote repositories.
+ */
+public class RecordingSQSJobFactory implements SQSJobFactory {
+
+    private static final Pattern COMMIT_PATTERN = Pattern.compile("\\b[0-9a-f]{40}\\b");
+
+    private final SQSJobFactory delegate = new SQSJobFactoryImpl();
+
+    // commit -> System.nanoTime() when its message was sent
+    private final ConcurrentMap<String, Long> sent = new ConcurrentHashMap<>();
+
+    // commit -> nanos from sending its message until its build was scheduled
+    private final ConcurrentMap<String, Long> latencies = new ConcurrentHashMap<>();
+
+    private final AtomicInteger duplicates = new AtomicInteger();
+    private final AtomicInteger schedules = new AtomicInteger();
+    private final AtomicInteger polls = new AtomicInteger();
+    private final List<Cause> causes = new CopyOnWriteArrayList<>();
+    private final AtomicLong lastScheduled = new AtomicLong();
+
+    @Override
+    public SQSJob createSqsJob(final Job job, final SQSTrigger sqsTrigger) {
+        return new RecordingJob(this.delegate.createSqsJob(job, sqsTrigger));
+    }
+
+    /**
+     * Forget everything recorded so far, e.g. after warming up.
+     */
+    public void reset() {
+        this.sent.clear();
+        this.latencies.clear();
+        this.duplicates.set(0);
+        this.schedules.set(0);
+        this.polls.set(0);
+        this.causes.clear();
+        this.lastScheduled.set(0);
+    }
+
+    public void sent(final String commit) {
+        this.sent.put(commit, System.nanoTime());
+    }
+
+    /**
+     * @return {@code true} if a build was scheduled for the specified number of commits before the timeout.
+     */
+    public boolean awaitScheduled(final int commits, final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (this.latencies.size() < commits) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(50);
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code true} if a build was scheduled the specified number of times before the timeout.
+     */
+    public boolean awaitSchedules(final int schedules, final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (this.schedules.get() < schedules) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(50);
+        }
+        return true;
+    }
+
+    public boolean isScheduled(final String commit) {
+        return this.latencies.containsKey(commit);
+    }
+
+    public List<Long> getLatencies() {
+        return new ArrayList<>(this.latencies.values());
+    }
+
+    /**
+     * @return Commits scheduled more than once, because a message was received again before it was deleted.
+     */
+    public int getDuplicates() {
+        return this.duplicates.get();
+    }
+
+    /**
+     * @return Calls to schedule a build, each may cover several commits coalesced by the trigger.
+     */
+    public int getSchedules() {
+        return this.schedules.get();
+    }
+
+    /**
+     * @return Polls of the jobs, one for each trigger that was not coalesced with another.
+     */
+    public int getPolls() {
+        return this.polls.get();
+    }
+
+    /**
+     * @return The causes of all scheduled builds, in order.
+     */
+    public List<Cause> getCauses() {
+        return new ArrayList<>(this.causes);
+    }
+
+    public long getLastScheduled() {
+        return this.lastScheduled.get();
+    }
+
+    private void scheduled(final Cause cause) {
+        final long now = System.nanoTime();
+        this.causes.add(cause);
+        this.schedules.incrementAndGet();
+        this.lastScheduled.set(now);
+
+        final Matcher matcher = COMMIT_PATTERN.matcher(cause.getShortDescription());
+        while (matcher.find()) {
+            final Long sentAt = this.sent.get(matcher.group());
+            if (sentAt != null && this.latencies.putIfAbsent(matcher.group(), now - sentAt) != null) {
+                this.duplicates.incrementAndGet();
+            }
+        }
+    }
+
+    private final class RecordingJob implements SQSJob {
+
+        private final SQSJob job;
+
+        private RecordingJob(final SQSJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public List<SCM> getScmList() {
+            return this.job.getScmList();
+        }
+
+        @Override
+        public SQSTrigger getTrigger() {
+            return this.job.getTrigger();
+        }
+
+        @Override
+        public <J extends Job> J getJenkinsJob() {
+            return this.job.getJenkinsJob();
+        }
+
+        @Override
+        public boolean scheduleBuild(final Cause cause, final Action... actions) {
+            final boolean scheduled = this.job.scheduleBuild(cause, actions);
+            if (scheduled) {
+                RecordingSQSJobFactory.this.scheduled(cause);
+            }
+            return scheduled;
+        }
+
+        @Override
+        public PollingResult poll(final TaskListener listener) {
+            RecordingSQSJobFactory.this.polls.incrementAndGet();
+            return PollingResult.BUILD_NOW;
+        }
+
+        @Override
+        public ScmMatchPlan getMatchPlan() {
+            return this.job.getMatchPlan();
+        }
+
+        @Override
+        public void invalidateMatchPlan() {
+            this.job.invalidateMatchPlan();
+        }
+
+        @Override
+        public boolean refreshMatchPlan() {
+            return this.job.refreshMatchPlan();
+        }
+    }
+}
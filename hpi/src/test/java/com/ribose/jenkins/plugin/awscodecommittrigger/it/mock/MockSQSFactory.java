@@ -19,9 +19,13 @@ package com.ribose.jenkins.plugin.awscodecommittrigger.it.mock;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.services.sqs.AmazonSQS;
 import com.ribose.jenkins.plugin.awscodecommittrigger.Context;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.MessageParserFactory;
 import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSFactory;
 import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSQueue;
 import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSQueueMonitor;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.MessageIndex;
+import com.ribose.jenkins.plugin.awscodecommittrigger.metrics.QueueMetrics;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.RepositoryIndex;
 import com.ribose.jenkins.plugin.awscodecommittrigger.net.RequestFactory;
 import com.ribose.jenkins.plugin.awscodecommittrigger.net.SQSChannel;
 import com.ribose.jenkins.plugin.awscodecommittrigger.net.SQSChannelImpl;
@@ -37,6 +41,15 @@ public class MockSQSFactory implements SQSFactory {
     @Inject
     private RequestFactory factory;
 
+    @Inject
+    private MessageParserFactory messageParserFactory;
+
+    @Inject
+    private RepositoryIndex repositoryIndex;
+
+    @Inject
+    private MessageIndex messageIndex;
+
     public MockSQSFactory() {
         Context.injector().injectMembers(this);
     }
@@ -60,7 +73,7 @@ public class MockSQSFactory implements SQSFactory {
     public SQSQueueMonitor createMonitor(ExecutorService executor, SQSQueue queue) {
         final AmazonSQS sqs = this.createSQSAsync(queue);
         final SQSChannel channel = new SQSChannelImpl(sqs, queue, this.factory);
-        return new SQSQueueMonitorImpl(executor, queue, channel);
+        return new SQSQueueMonitorImpl(executor, null, queue, channel, this.messageParserFactory, QueueMetrics.detached(queue.getName()), this.repositoryIndex, this.messageIndex);
     }
 
     @Override
@@ -74,6 +87,10 @@ public class MockSQSFactory implements SQSFactory {
         return null;
     }
 
+    @Override
+    public void shutDown() {
+    }
+
     private SQSChannel createChannel(final SQSQueue queue) {
         final AmazonSQS sqs = this.createSQSAsync(queue);
         return new SQSChannelImpl(sqs, queue, this.factory);
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.logging;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class ActivityAppenderTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWritesQueuedEntriesOnFlush() throws IOException {
+        final File dir = new File(this.folder.getRoot(), "activities");
+        final ActivityAppender appender = ActivityAppender.get(dir);
+        final long now = System.currentTimeMillis();
+
+        appender.append(now, "first\n");
+        appender.append(now, "second\n");
+        appender.flush();
+
+        assertThat(FileUtils.readFileToString(appender.getFile(now), UTF_8)).isEqualTo("first\nsecond\n");
+        appender.close();
+    }
+
+    @Test
+    public void testStreamAppendsPerLine() throws IOException {
+        final ActivityAppender appender = ActivityAppender.get(this.folder.newFolder());
+        final OutputStream out = appender.newOutputStream();
+
+        out.write("line one\nline ".getBytes(UTF_8));
+        appender.flush();
+        final File file = appender.getFile(System.currentTimeMillis());
+        assertThat(FileUtils.readFileToString(file, UTF_8)).isEqualTo("line one\nline ");
+
+        out.write("two\n".getBytes(UTF_8));
+        out.close();
+        appender.close();
+        assertThat(FileUtils.readFileToString(file, UTF_8)).isEqualTo("line one\nline two\n");
+    }
+
+    @Test
+    public void testResetDropsQueuedEntries() throws IOException {
+        final ActivityAppender appender = ActivityAppender.get(this.folder.newFolder());
+        final long now = System.currentTimeMillis();
+
+        appender.append(now, "dropped\n");
+        appender.reset();
+        appender.append(now, "kept\n");
+        appender.close();
+
+        assertThat(FileUtils.readFileToString(appender.getFile(now), UTF_8)).isEqualTo("kept\n");
+    }
+
+    @Test
+    public void testMarkIsNotifiedWithLineOfNextEntry() throws IOException {
+        final ActivityAppender appender = ActivityAppender.get(this.folder.newFolder());
+        final long now = System.currentTimeMillis();
+        final List<Long> lines = new ArrayList<>();
+
+        appender.append(now, "first\nsecond\n");
+        appender.mark(now, new ActivityAppender.Mark() {
+
+            @Override
+            public void written(final File file, final long line) {
+                assertThat(file).isEqualTo(appender.getFile(now));
+                lines.add(line);
+            }
+        });
+        appender.append(now, "third\n");
+        appender.close();
+
+        assertThat(lines).containsExactly(2L);
+    }
+
+    @Test
+    public void testSameAppenderPerDir() throws IOException {
+        final File dir = this.folder.newFolder();
+        assertThat(ActivityAppender.get(dir)).isSameAs(ActivityAppender.get(new File(dir.getPath())));
+    }
+
+    @Test
+    public void testRemoveDropsEntriesOfRemovedAppender() throws IOException {
+        final File dir = this.folder.newFolder();
+        final ActivityAppender appender = ActivityAppender.get(dir);
+        final long now = System.currentTimeMillis();
+
+        appender.append(now, "dropped\n");
+        ActivityAppender.remove(dir);
+        appender.append(now, "dropped too\n");
+        appender.flush();
+        assertThat(appender.getFile(now)).doesNotExist();
+
+        final ActivityAppender created = ActivityAppender.get(dir);
+        assertThat(created).isNotSameAs(appender);
+        created.append(now, "kept\n");
+        created.close();
+        assertThat(FileUtils.readFileToString(created.getFile(now), UTF_8)).isEqualTo("kept\n");
+    }
+
+    @Test
+    public void testRemoveMissingDoesNotCreateMovedDir() throws IOException {
+        final File dir = this.folder.newFolder();
+        final ActivityAppender appender = ActivityAppender.get(dir);
+        final long now = System.currentTimeMillis();
+
+        appender.append(now, "first\n");
+        appender.flush();
+        FileUtils.moveDirectory(dir, new File(this.folder.getRoot(), "moved"));
+        ActivityAppender.removeMissing();
+
+        appender.append(now, "second\n");
+        appender.flush();
+        assertThat(dir).doesNotExist();
+        assertThat(ActivityAppender.get(dir)).isNotSameAs(appender);
+    }
+
+    @Test
+    public void testLogDoesNotAddHandlersToSharedLogger() throws IOException {
+        final ActivityAppender appender = ActivityAppender.get(this.folder.newFolder());
+        final int handlers = Log.get(ActivityAppenderTest.class).getLogger().getHandlers().length;
+
+        for (int i = 0; i < 10; i++) {
+            Log.get(ActivityAppenderTest.class, appender, true).info("run %d", i);
+        }
+        appender.close();
+
+        assertThat(Log.get(ActivityAppenderTest.class).getLogger().getHandlers()).hasSize(handlers);
+        assertThat(FileUtils.readFileToString(appender.getFile(System.currentTimeMillis()), UTF_8)).contains("run 0", "run 9");
+    }
+}
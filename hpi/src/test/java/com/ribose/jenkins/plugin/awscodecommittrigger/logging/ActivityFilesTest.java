@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.logging;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class ActivityFilesTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testIndexesEveryIntervalLines() throws IOException {
+        final File file = this.writeLines(this.folder.newFolder(), System.currentTimeMillis(), 2500);
+
+        assertThat(ActivityFiles.readIndex(file)).hasSize(2);
+        assertPage(ActivityFiles.read(file, 0, 10), 0);
+        assertPage(ActivityFiles.read(file, 1500, 10), 1500);
+
+        final ActivityFiles.Page last = ActivityFiles.read(file, 2495, 10);
+        assertThat(last.getLines()).hasSize(5);
+        assertThat(last.isMore()).isFalse();
+        assertThat(last.getPreviousLine()).isEqualTo(2485);
+    }
+
+    @Test
+    public void testArchivePagesLikeTheLogFile() throws IOException {
+        final File file = this.writeLines(this.folder.newFolder(), System.currentTimeMillis(), 2500);
+        final String text = FileUtils.readFileToString(file, UTF_8);
+
+        final File archive = ActivityFiles.archive(file);
+
+        assertThat(file).doesNotExist();
+        assertThat(ActivityFiles.getIndexFile(file)).doesNotExist();
+        assertThat(archive.getName()).isEqualTo(file.getName() + ".gz");
+        assertThat(ActivityFiles.isLogName(archive.getName())).isTrue();
+        assertThat(ActivityFiles.readIndex(archive)).hasSize(2);
+        try (InputStream in = new GZIPInputStream(new FileInputStream(archive))) {
+            assertThat(IOUtils.toString(in, UTF_8)).isEqualTo(text);
+        }
+
+        assertPage(ActivityFiles.read(archive, 0, 10), 0);
+        assertPage(ActivityFiles.read(archive, 999, 10), 999);
+        assertPage(ActivityFiles.read(archive, 2100, 10), 2100);
+    }
+
+    @Test
+    public void testRestoresIndexOfExistingFile() throws IOException {
+        final File dir = this.folder.newFolder();
+        final long now = System.currentTimeMillis();
+        final File file = this.writeLines(dir, now, 1500);
+        ActivityFiles.delete(ActivityFiles.getIndexFile(file));
+
+        final ActivityAppender appender = ActivityAppender.get(dir);
+        for (int i = 1500; i < 2500; i++) {
+            appender.append(now, "line " + i + "\n");
+        }
+        appender.close();
+
+        assertThat(ActivityFiles.readIndex(file)).hasSize(2);
+        assertPage(ActivityFiles.read(file, 2000, 10), 2000);
+    }
+
+    @Test
+    public void testArchivesPastDaysAndDeletesExpiredFiles() throws IOException {
+        final File dir = this.folder.newFolder();
+        final long now = System.currentTimeMillis();
+        final ActivityAppender appender = ActivityAppender.get(dir);
+        final File yesterday = appender.getFile(now - TimeUnit.DAYS.toMillis(1));
+        final File expired = appender.getFile(now - TimeUnit.DAYS.toMillis(ActivityAppender.RETENTION_DAYS_DEFAULT + 1));
+        FileUtils.write(yesterday, "yesterday\n", UTF_8);
+        FileUtils.write(expired, "expired\n", UTF_8);
+
+        appender.append(now, "today\n");
+        appender.close();
+
+        assertThat(yesterday).doesNotExist();
+        assertThat(expired).doesNotExist();
+        assertThat(appender.getLogNames()).containsExactly(appender.getFile(now).getName(), yesterday.getName() + ".gz");
+        assertThat(ActivityFiles.read(new File(dir, yesterday.getName() + ".gz"), 0, 10).getLines()).containsExactly("yesterday");
+    }
+
+    @Test
+    public void testResolvesMarkedLineAfterArchive() throws IOException {
+        final File dir = this.folder.newFolder();
+        final long now = System.currentTimeMillis();
+        final ActivityAppender appender = ActivityAppender.get(dir);
+        final List<String> names = new ArrayList<>();
+        final List<Long> lines = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            appender.append(now, "line " + i + "\n");
+        }
+        appender.mark(now, new ActivityAppender.Mark() {
+
+            @Override
+            public void written(final File file, final long line) {
+                names.add(file.getName());
+                lines.add(line);
+            }
+        });
+        appender.append(now, "decision\n");
+        appender.close();
+
+        final File archive = ActivityFiles.archive(new File(dir, names.get(0)));
+        final File resolved = ActivityFiles.resolve(dir, names.get(0));
+
+        assertThat(resolved).isEqualTo(archive);
+        assertThat(ActivityFiles.read(resolved, lines.get(0), 1).getLines()).containsExactly("decision");
+        assertThat(ActivityFiles.resolve(dir, "activities-on-20000101.log")).isNull();
+        assertThat(ActivityFiles.resolve(dir, "../" + names.get(0))).isNull();
+    }
+
+    @Test
+    public void testTailStartsAtLine() throws IOException {
+        final File file = this.folder.newFile();
+        FileUtils.write(file, "first line\nsecond line\n", UTF_8);
+
+        assertThat(ActivityFiles.getTailOffset(file, 100)).isEqualTo(0);
+        assertThat(ActivityFiles.getTailOffset(file, 15)).isEqualTo("first line\n".length());
+    }
+
+    private File writeLines(final File dir, final long now, final int count) {
+        final ActivityAppender appender = ActivityAppender.get(dir);
+        for (int i = 0; i < count; i++) {
+            appender.append(now, "line " + i + "\n");
+        }
+        appender.close();
+        return appender.getFile(now);
+    }
+
+    private static void assertPage(final ActivityFiles.Page page, final int firstLine) {
+        assertThat(page.getFirstLine()).isEqualTo(firstLine);
+        assertThat(page.getLines()).hasSize(10);
+        assertThat(page.getLines().get(0)).isEqualTo("line " + firstLine);
+        assertThat(page.getLines().get(9)).isEqualTo("line " + (firstLine + 9));
+        assertThat(page.isMore()).isTrue();
+    }
+}
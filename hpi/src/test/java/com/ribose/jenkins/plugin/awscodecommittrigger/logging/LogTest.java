@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.logging;
+
+import hudson.model.Job;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+
+public class LogTest {
+
+    private final Log log = Log.get(LogTest.class);
+    private final List<LogRecord> records = new ArrayList<>();
+    private final Handler handler = new Handler() {
+
+        @Override
+        public void publish(final LogRecord record) {
+            LogTest.this.records.add(record);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @Before
+    public void before() {
+        this.log.getLogger().addHandler(this.handler);
+        this.log.getLogger().setLevel(Level.INFO);
+    }
+
+    @After
+    public void after() {
+        this.log.getLogger().removeHandler(this.handler);
+        this.log.getLogger().setLevel(null);
+    }
+
+    @Test
+    public void shouldNotRenderArgumentsOfDisabledLevel() {
+        final Object argument = new Object() {
+
+            @Override
+            public String toString() {
+                throw new AssertionError("Argument rendered for disabled level");
+            }
+        };
+        final Job job = mock(Job.class);
+
+        this.log.debug("Message %s", argument);
+        this.log.debug("Message %s %s %s %s", argument, argument, argument, argument);
+        this.log.debug("Message %s", job, argument);
+
+        assertThat(this.log.isDebugEnabled()).isFalse();
+        assertThat(this.records).isEmpty();
+        verifyZeroInteractions(job);
+    }
+
+    @Test
+    public void shouldTagPublishedMessages() {
+        final Job job = mock(Job.class);
+        when(job.getName()).thenReturn("job");
+        this.log.getLogger().setLevel(Level.ALL);
+
+        this.log.debug("Events size: %d", job, 3);
+        this.log.error("Failed", new IllegalStateException("failure"));
+
+        final String thread = String.format("[thread-%06X]", Thread.currentThread().getId());
+        assertThat(this.records).hasSize(2);
+        assertThat(this.records.get(0).getSourceClassName()).endsWith("LogTest]" + thread + "[job-job]");
+        assertThat(this.records.get(0).getMessage()).isEqualTo("[DEBUG] Events size: 3");
+        assertThat(this.records.get(1).getSourceClassName()).endsWith("LogTest]" + thread);
+        assertThat(this.records.get(1).getMessage()).isEqualTo("[ERROR] Failed");
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.logging;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class MessageIndexTest {
+
+    private static final String COMMIT = "6f0a3b5e3f0c1f5b9d5e8f2a1c3b4d5e6f7a8b9c";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testFindsByMessageIdAndCommit() throws IOException {
+        final MessageIndex index = new MessageIndex(this.folder.getRoot());
+        index.record("message-1", Collections.singletonList(COMMIT), Arrays.asList("folder/job-a", "job-b"));
+        index.record("message-1", Collections.singletonList(COMMIT), "job-b", MessageIndex.Decision.SCHEDULED, "activities-on-20171010.log", 42);
+        index.record("message-2", Collections.<String>emptyList(), Collections.<String>emptyList());
+
+        final List<MessageIndex.Record> records = index.find("message-1");
+        assertThat(records).hasSize(2);
+        assertThat(records.get(0).getJobs()).containsExactly("folder/job-a", "job-b");
+        assertThat(records.get(0).getDecision()).isEqualTo(MessageIndex.Decision.MATCHED);
+        assertThat(records.get(0).getFile()).isNull();
+        assertThat(records.get(1).getJobs()).containsExactly("job-b");
+        assertThat(records.get(1).getDecision()).isEqualTo(MessageIndex.Decision.SCHEDULED);
+        assertThat(records.get(1).getFile()).isEqualTo("activities-on-20171010.log");
+        assertThat(records.get(1).getLine()).isEqualTo(42);
+        assertThat(records.get(1).getCommits()).containsExactly(COMMIT);
+
+        assertThat(index.find(COMMIT)).hasSize(2);
+        assertThat(index.find(COMMIT.substring(0, MessageIndex.MIN_PREFIX_LENGTH))).hasSize(2);
+        assertThat(index.find(COMMIT.substring(0, MessageIndex.MIN_PREFIX_LENGTH - 1))).isEmpty();
+        assertThat(index.find("message-2")).hasSize(1);
+        assertThat(index.find("message-2").get(0).getDecision()).isEqualTo(MessageIndex.Decision.NOT_MATCHED);
+        assertThat(index.find("message-2").get(0).getJobs()).isEmpty();
+        assertThat(index.find("unknown")).isEmpty();
+        assertThat(index.find(" ")).isEmpty();
+    }
+
+    @Test
+    public void testWritesRecordsInBackground() throws IOException {
+        final MessageIndex index = new MessageIndex(this.folder.getRoot());
+        index.record("message-1", Collections.<String>emptyList(), Collections.singletonList("job-a"));
+        assertThat(this.folder.getRoot().list()).isEmpty();
+
+        index.close();
+        assertThat(this.folder.getRoot().list()).hasSize(1);
+    }
+
+    @Test
+    public void testFindsRecordsOfEarlierRuns() throws IOException {
+        final MessageIndex index = new MessageIndex(this.folder.getRoot());
+        index.record("message-1", Arrays.asList(COMMIT, "other"), Collections.singletonList("job-a"));
+        index.close();
+
+        final MessageIndex loaded = new MessageIndex(this.folder.getRoot());
+        loaded.record("message-1", Arrays.asList(COMMIT, "other"), "job-a", MessageIndex.Decision.NO_CHANGES, null, 0);
+        assertThat(loaded.find("message-1")).hasSize(2);
+        assertThat(loaded.find("other").get(0).getCommits()).containsExactly(COMMIT, "other");
+        assertThat(loaded.find(COMMIT.substring(0, MessageIndex.MIN_PREFIX_LENGTH))).hasSize(2);
+    }
+
+    @Test
+    public void testFindsRecordsOfDroppedIds() throws IOException {
+        final MessageIndex index = new MessageIndex(this.folder.getRoot());
+        for (int i = 0; i <= MessageIndex.MAX_IDS; i++) {
+            index.record("message-" + i, Collections.<String>emptyList(), Collections.singletonList("job-a"));
+        }
+
+        assertThat(index.find("message-0")).hasSize(1);
+        assertThat(index.find("message-" + MessageIndex.MAX_IDS)).hasSize(1);
+    }
+
+    @Test
+    public void testWritesIdsOfDayOnRollover() throws IOException {
+        final long yesterday = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1);
+        final MessageIndex index = new MessageIndex(this.folder.getRoot());
+        index.enqueue(new MessageIndex.Record(yesterday, "message-1", Collections.singletonList(COMMIT), Collections.singletonList("job-a"), MessageIndex.Decision.MATCHED, null, -1));
+        index.write();
+        assertThat(this.folder.getRoot().list()).hasSize(1);
+
+        index.record("message-2", Collections.<String>emptyList(), Collections.singletonList("job-a"));
+        index.write();
+        assertThat(this.folder.getRoot().list()).hasSize(3);
+        assertThat(this.folder.getRoot().listFiles(new FilenameFilter() {
+
+            @Override
+            public boolean accept(final File dir, final String name) {
+                return name.endsWith(MessageIdFile.SUFFIX);
+            }
+        })).hasSize(1);
+
+        assertThat(index.find("message-1")).hasSize(1);
+        assertThat(index.find(COMMIT).get(0).getMessageId()).isEqualTo("message-1");
+        assertThat(index.find(COMMIT.substring(0, MessageIndex.MIN_PREFIX_LENGTH))).hasSize(1);
+        assertThat(index.find("message-2")).hasSize(1);
+        assertThat(index.find("unknown")).isEmpty();
+    }
+
+    @Test
+    public void testWritesIdsOfEarlierDayOnLookup() throws IOException {
+        final long yesterday = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1);
+        final MessageIndex index = new MessageIndex(this.folder.getRoot());
+        index.enqueue(new MessageIndex.Record(yesterday, "message-1", Collections.singletonList(COMMIT), Collections.singletonList("job-a"), MessageIndex.Decision.MATCHED, null, -1));
+        index.close();
+        assertThat(this.folder.getRoot().list()).hasSize(1);
+
+        final MessageIndex loaded = new MessageIndex(this.folder.getRoot());
+        assertThat(loaded.find(COMMIT.substring(0, MessageIndex.MIN_PREFIX_LENGTH))).hasSize(1);
+        assertThat(this.folder.getRoot().list()).hasSize(2);
+        assertThat(loaded.find("message-1").get(0).getCommits()).containsExactly(COMMIT);
+    }
+
+    @Test
+    public void testTruncatesIncompleteRecord() throws IOException {
+        final MessageIndex index = new MessageIndex(this.folder.getRoot());
+        index.record("message-1", Collections.<String>emptyList(), Collections.singletonList("job-a"));
+        index.close();
+
+        final File file = this.folder.getRoot().listFiles()[0];
+        FileUtils.write(file, "12345\tmessage-2\t-\tjob", Charset.forName("UTF-8"), true);
+
+        final MessageIndex loaded = new MessageIndex(this.folder.getRoot());
+        assertThat(loaded.find("message-2")).isEmpty();
+        loaded.record("message-3", Collections.<String>emptyList(), Collections.singletonList("job-a"));
+        assertThat(loaded.find("message-1")).hasSize(1);
+        assertThat(loaded.find("message-2")).isEmpty();
+        assertThat(loaded.find("message-3")).hasSize(1);
+    }
+
+    @Test
+    public void testExpiresDaysBeyondRetention() throws IOException {
+        final long expired = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(ActivityAppender.RETENTION_DAYS_DEFAULT + 1);
+        final MessageIndex index = new MessageIndex(this.folder.getRoot());
+        index.enqueue(new MessageIndex.Record(expired, "message-1", Collections.<String>emptyList(), Collections.singletonList("job-a"), MessageIndex.Decision.MATCHED, null, -1));
+        index.record("message-2", Collections.<String>emptyList(), Collections.singletonList("job-a"));
+        index.close();
+
+        final MessageIndex loaded = new MessageIndex(this.folder.getRoot());
+        assertThat(loaded.find("message-1")).isEmpty();
+        assertThat(loaded.find("message-2")).hasSize(1);
+        assertThat(this.folder.getRoot().list()).hasSize(1);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.metrics;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+
+public class MetricsRegistryTest {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Test
+    public void shouldReuseMetricOfSameNameAndLabels() {
+        final Counter counter = this.registry.counter("requests_total", "Requests.", "queue", "a");
+
+        assertThat(this.registry.counter("requests_total", "Requests.", "queue", "a")).isSameAs(counter);
+        assertThat(this.registry.counter("requests_total", "Requests.", "queue", "b")).isNotSameAs(counter);
+        assertThat(this.registry.forQueue("a")).isSameAs(this.registry.forQueue("a"));
+    }
+
+    @Test
+    public void shouldWriteTextFormat() throws IOException {
+        this.registry.counter("requests_total", "Requests.", "queue", "a\"b").add(3);
+        final Histogram histogram = this.registry.histogram("latency_seconds", "Latency.", new long[]{10, 100}, 0.5, "queue", "a");
+        histogram.record(5);
+        histogram.record(10);
+        histogram.record(50);
+        histogram.record(500);
+
+        final StringWriter writer = new StringWriter();
+        this.registry.write(writer);
+
+        assertThat(writer.toString()).isEqualTo(
+            "# HELP latency_seconds Latency.\n" +
+            "# TYPE latency_seconds histogram\n" +
+            "latency_seconds_bucket{queue=\"a\",le=\"5.0\"} 2\n" +
+            "latency_seconds_bucket{queue=\"a\",le=\"50.0\"} 3\n" +
+            "latency_seconds_bucket{queue=\"a\",le=\"+Inf\"} 4\n" +
+            "latency_seconds_sum{queue=\"a\"} 282.5\n" +
+            "latency_seconds_count{queue=\"a\"} 4\n" +
+            "# HELP requests_total Requests.\n" +
+            "# TYPE requests_total counter\n" +
+            "requests_total{queue=\"a\\\"b\"} 3\n");
+    }
+
+    @Test
+    public void shouldKeepSubMillisecondLatency() {
+        final Histogram histogram = this.registry.forQueue("a").getParseLatency();
+        histogram.record(40);
+
+        assertThat(histogram.getBounds()[0]).isEqualTo(0.00001);
+        assertThat(histogram.getBounds()[2]).isEqualTo(0.00005);
+        assertThat(histogram.getCumulativeCounts()[1]).isEqualTo(0);
+        assertThat(histogram.getCumulativeCounts()[2]).isEqualTo(1);
+        assertThat(histogram.getSum()).isEqualTo(0.00004);
+    }
+
+    @Test
+    public void shouldRemoveMetricsOfJob() {
+        this.registry.forQueue("a").getMatchLatency("folder/job").record(10);
+        this.registry.forQueue("b").getBuildsScheduled("folder/job").increment();
+        this.registry.forQueue("a").getBuildsScheduled("folder/job-2").increment();
+        this.registry.forQueue("a").getReceives().increment();
+
+        assertThat(this.registry.removeJob("folder/job")).isEqualTo(2);
+
+        assertThat(this.registry.getSamples()).containsKeys(
+            "sqs_trigger_builds_scheduled_total{queue=\"a\",job=\"folder/job-2\"}",
+            "sqs_trigger_receives_total{queue=\"a\"}");
+        assertThat(this.registry.getSamples())
+            .doesNotContainKey("sqs_trigger_match_seconds_count{queue=\"a\",job=\"folder/job\"}")
+            .doesNotContainKey("sqs_trigger_builds_scheduled_total{queue=\"b\",job=\"folder/job\"}");
+        assertThat(this.registry.forQueue("a").getMatchLatency("folder/job").getCount()).isZero();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMetricOfOtherType() {
+        this.registry.counter("requests_total", "Requests.");
+        this.registry.histogram("requests_total", "Requests.", Histogram.BATCH_SIZE, 1);
+    }
+
+    @Test
+    public void shouldExposeSamplesForJmx() throws Exception {
+        this.registry.forQueue("a").getReceives().increment();
+        this.registry.forQueue("a").getReceiveLatency().record(1500);
+
+        final MetricsMBean mbean = new MetricsMBean(this.registry);
+
+        assertThat(mbean.getAttribute("sqs_trigger_receives_total{queue=\"a\"}")).isEqualTo(1.0);
+        assertThat((Double) mbean.getAttribute("sqs_trigger_receive_seconds_sum{queue=\"a\"}")).isCloseTo(1.5, within(0.001));
+        assertThat(mbean.getMBeanInfo().getAttributes()).isNotEmpty();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.model.job;
+
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.Event;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSQueueListener;
+import hudson.plugins.git.BranchSpec;
+import hudson.plugins.git.GitSCM;
+import hudson.plugins.git.SubmoduleConfig;
+import hudson.plugins.git.extensions.GitSCMExtension;
+import hudson.scm.SCM;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class RepositoryIndexTest {
+
+    private static final String HOST = "git-codecommit.us-east-1.amazonaws.com";
+    private static final String PATH_A = "/v1/repos/repo-a";
+    private static final String PATH_B = "/v1/repos/repo-b";
+
+    private final RepositoryIndex index = new RepositoryIndex();
+    private final SQSQueueListener listener = Mockito.mock(SQSQueueListener.class);
+    private final SQSQueueListener listenerB = Mockito.mock(SQSQueueListener.class);
+
+    @Test
+    public void testResolvesByRepositoryAndBranch() {
+        this.index.put(this.listener, plan(PATH_A, "master"));
+        this.index.put(this.listenerB, plan(PATH_A, "develop"));
+
+        assertThat(this.index.resolve(event(PATH_A, "master"))).containsExactly(this.listener);
+        assertThat(this.index.resolve(event(PATH_A, "develop"))).containsExactly(this.listenerB);
+        assertThat(this.index.resolve(event(PATH_B, "master"))).isEmpty();
+        assertThat(this.index.getListeners(HOST + PATH_A)).containsOnly(this.listener, this.listenerB);
+    }
+
+    @Test
+    public void testReplacesEntriesOfListener() {
+        this.index.put(this.listener, plan(PATH_A, "master"));
+        this.index.put(this.listener, plan(PATH_B, "master"));
+
+        assertThat(this.index.resolve(event(PATH_A, "master"))).isEmpty();
+        assertThat(this.index.resolve(event(PATH_B, "master"))).containsExactly(this.listener);
+        assertThat(this.index.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testUnroutedListener() {
+        this.index.put(this.listener, plan(PATH_A, "master"));
+        this.index.put(this.listener, null);
+
+        assertThat(this.index.contains(this.listener)).isTrue();
+        assertThat(this.index.getUnrouted()).containsExactly(this.listener);
+        assertThat(this.index.resolve(event(PATH_A, "master"))).isEmpty();
+
+        this.index.put(this.listener, plan(PATH_A, "master"));
+        assertThat(this.index.getUnrouted()).isEmpty();
+        assertThat(this.index.resolve(event(PATH_A, "master"))).containsExactly(this.listener);
+    }
+
+    @Test
+    public void testRemove() {
+        this.index.put(this.listener, plan(PATH_A, "master"));
+        this.index.put(this.listenerB, null);
+
+        assertThat(this.index.remove(this.listener)).isTrue();
+        assertThat(this.index.remove(this.listenerB)).isTrue();
+        assertThat(this.index.remove(this.listener)).isFalse();
+
+        assertThat(this.index.contains(this.listener)).isFalse();
+        assertThat(this.index.getListeners(HOST + PATH_A)).isEmpty();
+        assertThat(this.index.getUnrouted()).isEmpty();
+        assertThat(this.index.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testKeepsOtherListenersOfRepository() {
+        final ScmMatchPlan plan = plan(PATH_A, "master");
+        final List<SQSQueueListener> listeners = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            final SQSQueueListener listener = Mockito.mock(SQSQueueListener.class);
+            listeners.add(listener);
+            this.index.put(listener, plan);
+        }
+
+        this.index.remove(listeners.get(0));
+        this.index.put(listeners.get(1), plan(PATH_B, "master"));
+
+        assertThat(this.index.resolve(event(PATH_A, "master"))).hasSize(998).doesNotContain(listeners.get(0), listeners.get(1));
+        assertThat(this.index.resolve(event(PATH_B, "master"))).containsExactly(listeners.get(1));
+        assertThat(this.index.size()).isEqualTo(999);
+    }
+
+    private static ScmMatchPlan plan(final String path, final String branch) {
+        final GitSCM scm = new GitSCM(GitSCM.createRepoList("https://" + HOST + path, null),
+            Collections.singletonList(new BranchSpec(branch)), false, Collections.<SubmoduleConfig>emptyList(),
+            null, null, Collections.<GitSCMExtension>emptyList());
+        return ScmMatchPlan.compile(Collections.<SCM>singletonList(scm));
+    }
+
+    private static Event event(final String path, final String branch) {
+        final Event event = Mockito.mock(Event.class);
+        Mockito.when(event.getHost()).thenReturn(HOST);
+        Mockito.when(event.getPath()).thenReturn(path);
+        Mockito.when(event.getBranch()).thenReturn("refs/heads/" + branch);
+        Mockito.when(event.getNoPrefixBranch()).thenReturn(branch);
+        return event;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.model.job;
+
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.Event;
+import hudson.plugins.git.BranchSpec;
+import hudson.plugins.git.GitSCM;
+import hudson.plugins.git.SubmoduleConfig;
+import hudson.plugins.git.extensions.GitSCMExtension;
+import hudson.scm.SCM;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class ScmMatchPlanTest {
+
+    private static final String HOST = "git-codecommit.us-east-1.amazonaws.com";
+    private static final String PATH_A = "/v1/repos/repo-a";
+    private static final String PATH_B = "/v1/repos/repo-b";
+
+    @Test
+    public void testCompilesRepositoriesAndHosts() {
+        final ScmMatchPlan plan = ScmMatchPlan.compile(Arrays.<SCM>asList(scm(PATH_A, "master"), scm(PATH_B, "develop")));
+
+        assertThat(plan.getRepositoryKeys()).containsOnly(HOST + PATH_A, HOST + PATH_B);
+        assertThat(plan.getHosts()).containsExactly(HOST);
+        assertThat(plan.matches(event(PATH_A, "master"))).isTrue();
+        assertThat(plan.matches(event(PATH_A, "develop"))).isFalse();
+        assertThat(plan.matches(event(PATH_B, "develop"))).isTrue();
+        assertThat(plan.matches(null)).isFalse();
+    }
+
+    @Test
+    public void testMemoizesBranchResults() {
+        final ScmMatchPlan plan = ScmMatchPlan.compile(Collections.<SCM>singletonList(scm(PATH_A, "master")));
+        final Event event = event(PATH_A, "develop");
+
+        assertThat(plan.matches(event)).isFalse();
+        assertThat(plan.matches(event)).isFalse();
+
+        // the branch specs are only evaluated on the first match, the no-prefix branch is their last resort
+        Mockito.verify(event, Mockito.times(1)).getNoPrefixBranch();
+    }
+
+    @Test
+    public void testMemoizesPerBranch() {
+        final ScmMatchPlan plan = ScmMatchPlan.compile(Collections.<SCM>singletonList(scm(PATH_A, "master")));
+
+        assertThat(plan.matches(event(PATH_A, "develop"))).isFalse();
+        assertThat(plan.matches(event(PATH_A, "master"))).isTrue();
+        assertThat(plan.matches(event(PATH_A, "develop"))).isFalse();
+    }
+
+    @Test
+    public void testEqualsForSameScms() {
+        final List<SCM> scms = Arrays.<SCM>asList(scm(PATH_A, "master"), scm(PATH_B, "develop"));
+
+        assertThat(ScmMatchPlan.compile(scms)).isEqualTo(ScmMatchPlan.compile(Arrays.<SCM>asList(scm(PATH_A, "master"), scm(PATH_B, "develop"))));
+        assertThat(ScmMatchPlan.compile(scms).hashCode()).isEqualTo(ScmMatchPlan.compile(scms).hashCode());
+        assertThat(ScmMatchPlan.compile(scms)).isNotEqualTo(ScmMatchPlan.compile(Collections.<SCM>singletonList(scm(PATH_A, "master"))));
+        assertThat(ScmMatchPlan.compile(scms)).isNotEqualTo(ScmMatchPlan.compile(Arrays.<SCM>asList(scm(PATH_A, "master"), scm(PATH_B, "master"))));
+    }
+
+    @Test
+    public void testMergesDuplicateBranchSpecs() {
+        final ScmMatchPlan plan = ScmMatchPlan.compile(Arrays.<SCM>asList(scm(PATH_A, "master"), scm(PATH_A, "master")));
+
+        assertThat(plan).isEqualTo(ScmMatchPlan.compile(Collections.<SCM>singletonList(scm(PATH_A, "master"))));
+    }
+
+    private static GitSCM scm(final String path, final String branch) {
+        return new GitSCM(GitSCM.createRepoList("https://" + HOST + path, null),
+            Collections.singletonList(new BranchSpec(branch)), false, Collections.<SubmoduleConfig>emptyList(),
+            null, null, Collections.<GitSCMExtension>emptyList());
+    }
+
+    private static Event event(final String path, final String branch) {
+        final Event event = Mockito.mock(Event.class);
+        Mockito.when(event.getHost()).thenReturn(HOST);
+        Mockito.when(event.getPath()).thenReturn(path);
+        Mockito.when(event.getBranch()).thenReturn("refs/heads/" + branch);
+        Mockito.when(event.getNoPrefixBranch()).thenReturn(branch);
+        return event;
+    }
+}
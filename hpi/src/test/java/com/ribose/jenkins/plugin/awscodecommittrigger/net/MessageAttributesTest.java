@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.net;
+
+import com.amazonaws.services.sqs.model.Message;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class MessageAttributesTest {
+
+    @Test
+    public void shouldRequestAttributesWithEveryReceive() {
+        final RequestFactoryImpl factory = new RequestFactoryImpl();
+
+        assertThat(factory.createReceiveMessageRequest("url", 10, 20).getAttributeNames())
+            .containsExactlyInAnyOrder(MessageAttributes.SENT_TIMESTAMP, MessageAttributes.APPROXIMATE_RECEIVE_COUNT);
+    }
+
+    @Test
+    public void shouldReadEarliestTimestampAndHighestReceiveCount() {
+        final Message first = message("2000", "1");
+        final Message second = message("1000", "3");
+        final Message unknown = new Message();
+
+        assertThat(MessageAttributes.getEarliestSentTimestamp(Arrays.asList(first, unknown, second))).isEqualTo(1000);
+        assertThat(MessageAttributes.getMaxReceiveCount(Arrays.asList(first, unknown, second))).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldTreatMissingOrInvalidAttributesAsUnknown() {
+        assertThat(MessageAttributes.getEarliestSentTimestamp(Collections.singletonList(new Message()))).isEqualTo(-1);
+        assertThat(MessageAttributes.getSentTimestamp(message("soon", "1"))).isEqualTo(-1);
+        assertThat(MessageAttributes.getReceiveCount(new Message())).isEqualTo(0);
+    }
+
+    private static Message message(final String sentTimestamp, final String receiveCount) {
+        return new Message()
+            .addAttributesEntry(MessageAttributes.SENT_TIMESTAMP, sentTimestamp)
+            .addAttributesEntry(MessageAttributes.APPROXIMATE_RECEIVE_COUNT, receiveCount);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.net;
+
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
+import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSQueue;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class SQSChannelImplTest {
+
+    private final AmazonSQSAsync sqs = Mockito.mock(AmazonSQSAsync.class);
+    private final SQSQueue queue = Mockito.mock(SQSQueue.class);
+    private final RequestFactory factory = Mockito.mock(RequestFactory.class);
+    private SQSChannelImpl channel;
+
+    @Before
+    public void init() {
+        Mockito.when(this.queue.getName()).thenReturn("queue");
+        Mockito.when(this.factory.createReceiveMessageRequest(this.queue)).thenReturn(new ReceiveMessageRequest());
+        this.channel = new SQSChannelImpl(this.sqs, this.queue, this.factory);
+    }
+
+    @Test
+    public void shouldAbandonLongPollOnClose() throws Exception {
+        Mockito.when(this.sqs.receiveMessageAsync(Mockito.any(ReceiveMessageRequest.class))).thenReturn(new LongPoll());
+
+        final AtomicReference<List<Message>> received = new AtomicReference<>();
+        final Thread receiver = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                received.set(SQSChannelImplTest.this.channel.getMessages());
+            }
+        });
+        receiver.start();
+        Thread.sleep(100);
+
+        this.channel.close();
+        receiver.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertThat(receiver.isAlive()).isFalse();
+        assertThat(received.get()).isEmpty();
+    }
+
+    @Test
+    public void shouldNotReceiveOnceClosed() {
+        this.channel.close();
+
+        assertThat(this.channel.getMessages()).isEmpty();
+        Mockito.verify(this.sqs, Mockito.never()).receiveMessageAsync(Mockito.any(ReceiveMessageRequest.class));
+    }
+
+    /**
+     * A long poll that ignores cancellation and never completes, like a receive answered from a client buffer.
+     */
+    private static final class LongPoll implements Future<ReceiveMessageResult> {
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return false;
+        }
+
+        @Override
+        public ReceiveMessageResult get() throws InterruptedException {
+            Thread.sleep(Long.MAX_VALUE);
+            return null;
+        }
+
+        @Override
+        public ReceiveMessageResult get(final long timeout, final TimeUnit unit) throws InterruptedException, TimeoutException {
+            unit.sleep(timeout);
+            throw new TimeoutException();
+        }
+    }
+}
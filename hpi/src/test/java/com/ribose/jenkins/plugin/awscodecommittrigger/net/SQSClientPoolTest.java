@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.net;
+
+import com.amazonaws.services.sqs.AmazonSQS;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class SQSClientPoolTest {
+
+    private static final SQSClientPool.Key KEY_A = new SQSClientPool.Key("cred", "us-west-2", "sqs.us-west-2.amazonaws.com", null, 20);
+    private static final SQSClientPool.Key KEY_B = new SQSClientPool.Key("cred", "us-east-1", "sqs.us-east-1.amazonaws.com", null, 20);
+
+    private final SQSClientPool pool = new SQSClientPool();
+
+    @Test
+    public void shouldShareClientForSameKey() {
+        final CountingFactory factory = new CountingFactory();
+
+        final SQSClientPool.Lease lease1 = this.pool.acquire(KEY_A, factory);
+        final SQSClientPool.Lease lease2 = this.pool.acquire(new SQSClientPool.Key("cred", "us-west-2", "sqs.us-west-2.amazonaws.com", null, 20), factory);
+        final SQSClientPool.Lease lease3 = this.pool.acquire(KEY_B, factory);
+
+        assertThat(lease1.getClient()).isSameAs(lease2.getClient());
+        assertThat(lease3.getClient()).isNotSameAs(lease1.getClient());
+        assertThat(factory.created).isEqualTo(2);
+        assertThat(this.pool.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldShutDownClientWhenLastLeaseClosed() {
+        final CountingFactory factory = new CountingFactory();
+        final SQSClientPool.Lease lease1 = this.pool.acquire(KEY_A, factory);
+        final SQSClientPool.Lease lease2 = this.pool.acquire(KEY_A, factory);
+        final AmazonSQS client = lease1.getClient();
+
+        lease1.close();
+        lease1.close();
+        Mockito.verify(client, Mockito.never()).shutdown();
+        assertThat(this.pool.size()).isEqualTo(1);
+
+        lease2.close();
+        Mockito.verify(client).shutdown();
+        assertThat(this.pool.size()).isZero();
+
+        final SQSClientPool.Lease lease3 = this.pool.acquire(KEY_A, factory);
+        assertThat(lease3.getClient()).isNotSameAs(client);
+    }
+
+    private static class CountingFactory implements SQSClientPool.ClientFactory {
+
+        private int created;
+
+        @Override
+        public AmazonSQS create() {
+            this.created++;
+            return Mockito.mock(AmazonSQS.class);
+        }
+    }
+}
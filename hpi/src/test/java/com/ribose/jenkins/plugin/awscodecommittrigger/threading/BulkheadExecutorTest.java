@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.threading;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class BulkheadExecutorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final BulkheadExecutor executor = new BulkheadExecutor(
+        "test", 1, 1, Executors.defaultThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+
+    @After
+    public void shutDown() {
+        this.release.countDown();
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldRunOnCallerWhenQueueIsFull() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        this.executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                await(BulkheadExecutorTest.this.release);
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        this.executor.execute(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        this.executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                thread.set(Thread.currentThread());
+            }
+        });
+
+        assertThat(thread.get()).isSameAs(Thread.currentThread());
+        assertThat(this.executor.getRejectedCount()).isEqualTo(1);
+        assertThat(this.executor.getQueueSize()).isEqualTo(1);
+        assertThat(this.executor.toString()).startsWith("test: 1/1 active, 1/1 queued");
+    }
+
+    @Test
+    public void shouldResize() {
+        this.executor.resize(4, 20);
+
+        assertThat(this.executor.getMaxConcurrency()).isEqualTo(4);
+        assertThat(this.executor.getCorePoolSize()).isEqualTo(4);
+        assertThat(this.executor.getQueueCapacity()).isEqualTo(20);
+
+        this.executor.resize(2, 10);
+
+        assertThat(this.executor.getMaxConcurrency()).isEqualTo(2);
+        assertThat(this.executor.getCorePoolSize()).isEqualTo(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidLimits() {
+        this.executor.resize(0, 10);
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.threading;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class CircuitBreakerTest {
+
+    private final CircuitBreaker breaker = new CircuitBreaker();
+
+    @Test
+    public void shouldBackOffExponentiallyWithJitter() {
+        long previousMax = 0;
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD - 1; i++) {
+            final long max = CircuitBreaker.BASE_DELAY_MILLIS << i;
+            final long delay = this.breaker.onFailure(new RuntimeException());
+
+            assertThat(delay).isBetween(max / 2, max);
+            assertThat(max).isGreaterThan(previousMax);
+            assertThat(this.breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+            previousMax = max;
+        }
+
+        assertThat(this.breaker.getDelay()).isPositive();
+    }
+
+    @Test
+    public void shouldOpenAfterThresholdAndResetOnSuccess() {
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD; i++) {
+            this.breaker.onFailure(new RuntimeException("error"));
+        }
+
+        assertThat(this.breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(this.breaker.getDelay()).isGreaterThanOrEqualTo(CircuitBreaker.OPEN_MILLIS / 2 - 1000);
+        assertThat(this.breaker.toString()).contains("OPEN").contains("error");
+
+        assertThat(this.breaker.onSuccess()).isTrue();
+        assertThat(this.breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(this.breaker.getFailures()).isZero();
+        assertThat(this.breaker.getDelay()).isZero();
+        assertThat(this.breaker.onSuccess()).isFalse();
+    }
+
+    @Test
+    public void shouldCountFailuresOfConcurrentConsumersOnce() throws InterruptedException {
+        final int consumers = CircuitBreaker.FAILURE_THRESHOLD * 2;
+        final long started = System.currentTimeMillis();
+        Thread.sleep(5);
+
+        for (int i = 0; i < consumers; i++) {
+            this.breaker.onFailure(new RuntimeException("throttled"), started);
+        }
+        assertThat(this.breaker.getFailures()).isEqualTo(1);
+        assertThat(this.breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        Thread.sleep(5);
+        this.breaker.onFailure(new RuntimeException("throttled"), System.currentTimeMillis());
+        assertThat(this.breaker.getFailures()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.threading;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class KeyedLaneExecutorTest {
+
+    private final Queue<Runnable> submitted = new ConcurrentLinkedQueue<>();
+    private final List<String> executed = new ArrayList<>();
+
+    private final KeyedLaneExecutor lanes = new KeyedLaneExecutor(new Executor() {
+        @Override
+        public void execute(final Runnable command) {
+            KeyedLaneExecutorTest.this.submitted.add(command);
+        }
+    });
+
+    @Test
+    public void shouldRunLanesConcurrentlyAndTasksOfLaneInSequence() {
+        this.lanes.execute("a", new Task("a1"));
+        this.lanes.execute("b", new Task("b1"));
+        this.lanes.execute("a", new Task("a2"));
+
+        assertThat(this.submitted).hasSize(2);
+        assertThat(this.lanes.getActiveLanes()).isEqualTo(2);
+
+        this.runSubmitted();
+
+        assertThat(this.executed).containsExactly("a1", "b1", "a2");
+        assertThat(this.lanes.getActiveLanes()).isZero();
+        assertThat(this.lanes.getCoalescedCount()).isZero();
+    }
+
+    @Test
+    public void shouldReplacePendingTask() {
+        this.lanes.execute("a", new Task("a1"));
+        this.lanes.execute("a", new Task("a2"));
+        final Task last = new Task("a3");
+        this.lanes.execute("a", last);
+
+        this.runSubmitted();
+
+        assertThat(this.executed).containsExactly("a1", "a3");
+        assertThat(last.replaced).containsExactly("a2");
+        assertThat(this.lanes.getCoalescedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldHoldBackTasksNotStartedBeforeShutDown() throws InterruptedException {
+        final Task queued = new Task("a1");
+        final Task pending = new Task("a2");
+        this.lanes.execute("a", queued);
+        this.lanes.execute("a", pending);
+
+        this.lanes.shutDown();
+        final Task late = new Task("b1");
+        this.lanes.execute("b", late);
+        this.runSubmitted();
+
+        assertThat(this.executed).isEmpty();
+        assertThat(this.lanes.awaitIdle(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(this.lanes.drainHeld()).containsExactlyInAnyOrder(queued, pending, late);
+        assertThat(this.lanes.drainHeld()).isEmpty();
+    }
+
+    @Test
+    public void shouldRetryRejectedTaskInsteadOfRunningItOnCaller() throws InterruptedException {
+        final AtomicInteger rejections = new AtomicInteger(1);
+        final KeyedLaneExecutor lanes = new KeyedLaneExecutor(new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                if (rejections.getAndDecrement() > 0) {
+                    throw new RejectedExecutionException("saturated");
+                }
+                KeyedLaneExecutorTest.this.submitted.add(command);
+            }
+        });
+
+        lanes.execute("a", new Task("a1"));
+        final Task last = new Task("a2");
+        lanes.execute("a", last);
+
+        assertThat(this.executed).isEmpty();
+        assertThat(this.submitted).isEmpty();
+        assertThat(lanes.getActiveLanes()).isEqualTo(1);
+        assertThat(lanes.getRetriedCount()).isEqualTo(1);
+
+        final long deadline = System.currentTimeMillis() + 10 * KeyedLaneExecutor.RETRY_DELAY_MILLIS;
+        while (this.submitted.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        this.runSubmitted();
+
+        assertThat(this.executed).containsExactly("a2");
+        assertThat(last.replaced).containsExactly("a1");
+        assertThat(lanes.awaitIdle(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private void runSubmitted() {
+        Runnable command;
+        while ((command = this.submitted.poll()) != null) {
+            command.run();
+        }
+    }
+
+    private class Task implements KeyedLaneExecutor.Coalescing {
+
+        private final String name;
+        private final List<String> replaced = new ArrayList<>();
+
+        private Task(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void coalesce(final Runnable replaced) {
+            this.replaced.add(((Task) replaced).name);
+        }
+
+        @Override
+        public void run() {
+            KeyedLaneExecutorTest.this.executed.add(this.name);
+        }
+    }
+}
@@ -17,20 +17,29 @@
 package com.ribose.jenkins.plugin.awscodecommittrigger.threading;
 
 import com.amazonaws.services.sqs.model.Message;
-import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSQueue;
-import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSQueueListener;
-import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.SQSQueueMonitor;
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.*;
+import com.ribose.jenkins.plugin.awscodecommittrigger.logging.MessageIndex;
+import com.ribose.jenkins.plugin.awscodecommittrigger.metrics.QueueMetrics;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.entities.ParsedMessage;
+import com.ribose.jenkins.plugin.awscodecommittrigger.model.job.RepositoryIndex;
 import com.ribose.jenkins.plugin.awscodecommittrigger.net.SQSChannel;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -39,6 +48,9 @@ public class SQSQueueMonitorImplTest {
 
     private static final String UUID_A = "uuid-a";
     private static final String UUID_B = "uuid-b";
+    private static final String HOST = "git-codecommit.us-west-2.amazonaws.com";
+    private static final String PATH_A = "/v1/repos/repo-a";
+    private static final String PATH_B = "/v1/repos/repo-b";
 
     @Mock
     private ExecutorService executor;
@@ -52,6 +64,18 @@ public class SQSQueueMonitorImplTest {
     @Mock
     private SQSQueueListener listener;
 
+    @Mock
+    private SQSQueueListener listenerB;
+
+    @Mock
+    private MessageParserFactory parserFactory;
+
+    @Mock
+    private MessageParser parser;
+
+    @Mock
+    private Event event;
+
     private SQSQueueMonitor monitor;
 
     private final List<Message> messages = new ArrayList<>();
@@ -66,9 +90,21 @@ public class SQSQueueMonitorImplTest {
         Mockito.when(this.channel.getMessages()).thenReturn(this.messages);
 
         Mockito.when(this.listener.getQueueUuid()).thenReturn(UUID_A);
+        Mockito.when(this.listenerB.getQueueUuid()).thenReturn(UUID_A);
+        Mockito.when(this.listener.getRepositoryKeys()).thenReturn(null);
+        Mockito.when(this.listenerB.getRepositoryKeys()).thenReturn(null);
+        Mockito.when(this.event.getHost()).thenReturn(HOST);
+        Mockito.when(this.event.getPath()).thenReturn(PATH_A);
         Mockito.when(this.channel.getQueueUuid()).thenReturn(UUID_A);
 
-        this.monitor = new SQSQueueMonitorImpl(this.executor, this.queue, this.channel);
+        Mockito.when(this.parserFactory.createParser(message)).thenReturn(this.parser);
+        Mockito.when(this.parser.parseMessage(message)).thenReturn(Collections.singletonList(this.event));
+
+        this.monitor = this.createMonitor(null, null);
+    }
+
+    private SQSQueueMonitor createMonitor(final ExecutorService matchingExecutor, final RepositoryIndex repositoryIndex) {
+        return new SQSQueueMonitorImpl(this.executor, matchingExecutor, this.queue, this.channel, this.parserFactory, QueueMetrics.detached("queue"), repositoryIndex, null);
     }
 
     @Test
@@ -92,6 +128,18 @@ public class SQSQueueMonitorImplTest {
         assertThat(this.monitor.isShutDown()).isFalse();
     }
 
+    @Test
+    public void shouldStartOneReceiverPerConsumer() {
+        Mockito.when(this.queue.getConsumers()).thenReturn(3);
+        final SQSQueueMonitor monitor = this.createMonitor(null, null);
+
+        monitor.add(this.listener);
+        monitor.add(this.listenerB);
+
+        Mockito.verify(this.executor, Mockito.times(3)).execute(monitor);
+        Mockito.verifyNoMoreInteractions(this.executor);
+    }
+
     @Test
     public void shouldNotStartMultipleTimesForMultipleListeners() {
         this.monitor.add(this.listener);
@@ -135,16 +183,55 @@ public class SQSQueueMonitorImplTest {
         this.monitor.add(this.listener);
         Mockito.verify(this.channel).getQueueUuid();
         Mockito.verify(this.listener).getQueueUuid();
+        Mockito.verify(this.listener).getRepositoryKeys();
         Mockito.verify(this.executor).execute(this.monitor);
 
         this.monitor.run();
 
         Mockito.verify(this.channel).getMessages();
-        Mockito.verify(this.listener).handleMessages(this.messages);
+        Mockito.verify(this.listener).handleParsedMessages(Mockito.<ParsedMessage>anyList());
         Mockito.verifyNoMoreInteractions(this.listener);
         Mockito.verify(this.executor, Mockito.times(2)).execute(this.monitor);
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldParseMessagesOnceForAllListeners() {
+        this.monitor.add(this.listener);
+        this.monitor.add(this.listenerB);
+
+        this.monitor.run();
+
+        Mockito.verify(this.parser, Mockito.times(1)).parseMessage(this.messages.get(0));
+
+        final ArgumentCaptor<List> captorA = ArgumentCaptor.forClass(List.class);
+        final ArgumentCaptor<List> captorB = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(this.listener).handleParsedMessages(captorA.capture());
+        Mockito.verify(this.listenerB).handleParsedMessages(captorB.capture());
+        Mockito.verify(this.listener, Mockito.never()).handleMessages(Mockito.<Message>anyList());
+        Mockito.verify(this.listenerB, Mockito.never()).handleMessages(Mockito.<Message>anyList());
+
+        final List<ParsedMessage> parsedMessages = captorA.getValue();
+        assertThat(captorB.getValue()).isSameAs(parsedMessages);
+        assertThat(parsedMessages).hasSize(1);
+        assertThat(parsedMessages.get(0).getMessage()).isSameAs(this.messages.get(0));
+        assertThat(parsedMessages.get(0).getEvents()).containsExactly(this.event);
+    }
+
+    @Test
+    public void shouldReceiveNextBatchBeforeProcessing() {
+        this.monitor.add(this.listener);
+
+        this.monitor.run();
+
+        InOrder inOrder = Mockito.inOrder(this.channel, this.executor, this.listener);
+        inOrder.verify(this.channel).getMessages();
+        inOrder.verify(this.executor).execute(this.monitor);
+        inOrder.verify(this.listener).handleParsedMessages(Mockito.<ParsedMessage>anyList());
+        inOrder.verify(this.channel).deleteMessagesAsync(this.messages);
+        Mockito.verify(this.channel, Mockito.never()).deleteMessages(Mockito.<Message>anyList());
+    }
+
     @Test
     public void shouldNotSendDeleteRequestIfResultIsEmpty() {
         final List<Message> messages = Collections.emptyList();
@@ -152,6 +239,7 @@ public class SQSQueueMonitorImplTest {
         assertThat(this.monitor.add(this.listener)).isTrue();
         Mockito.verify(this.channel).getQueueUuid();
         Mockito.verify(this.listener).getQueueUuid();
+        Mockito.verify(this.listener).getRepositoryKeys();
         Mockito.verify(this.executor).execute(this.monitor);
 
         this.monitor.run();
@@ -161,19 +249,233 @@ public class SQSQueueMonitorImplTest {
         Mockito.verify(this.executor, Mockito.times(2)).execute(this.monitor);
     }
 
+    @Test
+    public void shouldKeepRunningOnReceiveError() {
+        Mockito.when(this.channel.getMessages()).thenThrow(new RuntimeException("throttled"));
+        this.monitor.add(this.listener);
+
+        this.monitor.run();
+
+        assertThat(this.monitor.isShutDown()).isFalse();
+        assertThat(this.monitor.getCircuitBreaker().getFailures()).isEqualTo(1);
+        assertThat(this.monitor.getCircuitBreaker().getLastError()).contains("throttled");
+        Mockito.verify(this.executor).execute(this.monitor);
+        Mockito.verifyNoMoreInteractions(this.executor);
+    }
+
+    @Test
+    public void shouldCountReceiveErrorsOfConcurrentConsumersOnce() throws InterruptedException {
+        final int consumers = CircuitBreaker.FAILURE_THRESHOLD;
+        Mockito.when(this.queue.getConsumers()).thenReturn(consumers);
+        final SQSQueueMonitor monitor = this.createMonitor(null, null);
+        monitor.add(this.listener);
+
+        // every consumer has its request in flight before the first one fails
+        final CountDownLatch inFlight = new CountDownLatch(consumers);
+        Mockito.when(this.channel.getMessages()).thenAnswer(new Answer<List<Message>>() {
+
+            @Override
+            public List<Message> answer(final InvocationOnMock invocation) throws Throwable {
+                inFlight.countDown();
+                inFlight.await(5, TimeUnit.SECONDS);
+                Thread.sleep(5);
+                throw new RuntimeException("throttled");
+            }
+        });
+
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < consumers; i++) {
+            final Thread thread = new Thread(monitor);
+            threads.add(thread);
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        Mockito.verify(this.channel, Mockito.times(consumers)).getMessages();
+        assertThat(monitor.getCircuitBreaker().getFailures()).isEqualTo(1);
+        assertThat(monitor.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void shouldIsolateListenerError() {
+        Mockito.when(this.listener.handleParsedMessages(Mockito.<ParsedMessage>anyList())).thenThrow(new RuntimeException("failed"));
+        this.monitor.add(this.listener);
+        this.monitor.add(this.listenerB);
+
+        this.monitor.run();
+
+        assertThat(this.monitor.isShutDown()).isFalse();
+        assertThat(this.monitor.getCircuitBreaker().getFailures()).isZero();
+        Mockito.verify(this.listenerB).handleParsedMessages(Mockito.<ParsedMessage>anyList());
+        Mockito.verify(this.channel).deleteMessagesAsync(this.messages);
+    }
+
+    @Test
+    public void shouldBackOffAfterDeleteError() {
+        Mockito.doThrow(new RuntimeException("failed")).when(this.channel).deleteMessagesAsync(this.messages);
+        this.monitor.add(this.listener);
+
+        this.monitor.run();
+        this.monitor.run();
+
+        assertThat(this.monitor.isShutDown()).isFalse();
+        assertThat(this.monitor.getCircuitBreaker().getFailures()).isEqualTo(1);
+        assertThat(this.monitor.getCircuitBreaker().getLastError()).contains("failed");
+        Mockito.verify(this.channel, Mockito.times(1)).getMessages();
+    }
+
     @Test
     public void shouldNotRunIfAlreadyShutDown() {
         this.monitor.add(this.listener);
         Mockito.verify(this.channel).getQueueUuid();
         Mockito.verify(this.listener).getQueueUuid();
+        Mockito.verify(this.listener).getRepositoryKeys();
         Mockito.verify(this.executor).execute(this.monitor);
 
         this.monitor.shutDown();
         this.monitor.run();
 
         assertThat(this.monitor.isShutDown()).isTrue();
+        Mockito.verify(this.channel).close();
         Mockito.verifyNoMoreInteractions(this.channel);
         Mockito.verifyNoMoreInteractions(this.listener);
         Mockito.verifyNoMoreInteractions(this.executor);
     }
+
+    @Test
+    public void shouldDispatchOnlyToListenersOfEventRepository() {
+        Mockito.when(this.listener.getRepositoryKeys()).thenReturn(Collections.singletonList(HOST + PATH_A));
+        Mockito.when(this.listenerB.getRepositoryKeys()).thenReturn(Collections.singletonList(HOST + PATH_B));
+        this.monitor.add(this.listener);
+        this.monitor.add(this.listenerB);
+
+        this.monitor.run();
+
+        Mockito.verify(this.listener).handleParsedMessages(Mockito.<ParsedMessage>anyList());
+        Mockito.verify(this.listenerB, Mockito.never()).handleParsedMessages(Mockito.<ParsedMessage>anyList());
+        Mockito.verify(this.channel).deleteMessagesAsync(this.messages);
+    }
+
+    @Test
+    public void shouldStopRoutingToRemovedListener() {
+        Mockito.when(this.listener.getRepositoryKeys()).thenReturn(Collections.singletonList(HOST + PATH_A));
+        Mockito.when(this.listenerB.getRepositoryKeys()).thenReturn(Collections.singletonList(HOST + PATH_A));
+        this.monitor.add(this.listener);
+        this.monitor.add(this.listenerB);
+        this.monitor.remove(this.listenerB);
+
+        this.monitor.run();
+
+        Mockito.verify(this.listener).handleParsedMessages(Mockito.<ParsedMessage>anyList());
+        Mockito.verify(this.listenerB, Mockito.never()).handleParsedMessages(Mockito.<ParsedMessage>anyList());
+    }
+
+    @Test
+    public void shouldKeepRoutingUntilListenerRemovedAsOftenAsAdded() {
+        Mockito.when(this.listener.getRepositoryKeys()).thenReturn(Collections.singletonList(HOST + PATH_A));
+        this.monitor.add(this.listener);
+        this.monitor.add(this.listener);
+        this.monitor.remove(this.listener);
+
+        this.monitor.run();
+
+        Mockito.verify(this.listener, Mockito.times(1)).getRepositoryKeys();
+        Mockito.verify(this.listener).handleParsedMessages(Mockito.<ParsedMessage>anyList());
+        assertThat(this.monitor.remove(this.listener)).isTrue();
+        assertThat(this.monitor.remove(this.listener)).isFalse();
+    }
+
+    @Test
+    public void shouldStartOnceForListenersAddedInBulk() {
+        Mockito.when(this.queue.getConsumers()).thenReturn(2);
+        final SQSQueueMonitor monitor = this.createMonitor(null, null);
+
+        assertThat(monitor.addAll(Arrays.asList(this.listener, this.listenerB))).isTrue();
+        assertThat(monitor.addAll(Collections.singletonList(this.listener))).isFalse();
+        monitor.run();
+
+        Mockito.verify(this.executor, Mockito.times(3)).execute(monitor);
+        Mockito.verify(this.listener).handleParsedMessages(Mockito.<ParsedMessage>anyList());
+        Mockito.verify(this.listenerB).handleParsedMessages(Mockito.<ParsedMessage>anyList());
+    }
+
+    @Test
+    public void shouldDispatchIndexedListenersResolvedByIndex() {
+        final RepositoryIndex index = Mockito.mock(RepositoryIndex.class);
+        Mockito.when(index.contains(this.listener)).thenReturn(true);
+        Mockito.when(index.contains(this.listenerB)).thenReturn(true);
+        Mockito.when(index.getUnrouted()).thenReturn(Collections.<SQSQueueListener>emptyList());
+        Mockito.when(index.resolve(this.event)).thenReturn(new ArrayList<>(Collections.singletonList(this.listener)));
+        final SQSQueueMonitor monitor = this.createMonitor(null, index);
+
+        monitor.addAll(Arrays.asList(this.listener, this.listenerB));
+        monitor.run();
+
+        Mockito.verify(this.listener).handleParsedMessages(Mockito.<ParsedMessage>anyList());
+        Mockito.verify(this.listenerB, Mockito.never()).handleParsedMessages(Mockito.<ParsedMessage>anyList());
+        Mockito.verify(this.listener, Mockito.never()).getRepositoryKeys();
+    }
+
+    @Test
+    public void shouldRecordMessageOnceWithMatchedListeners() {
+        final MessageIndex messageIndex = Mockito.mock(MessageIndex.class);
+        this.messages.get(0).setMessageId("message-1");
+        Mockito.when(this.event.getCommit()).thenReturn("commit-1");
+        Mockito.when(this.listener.getName()).thenReturn("job-a");
+        Mockito.when(this.listenerB.getName()).thenReturn("job-b");
+        Mockito.when(this.listener.handleParsedMessages(Mockito.<ParsedMessage>anyList())).thenReturn(this.messages);
+        Mockito.when(this.listenerB.handleParsedMessages(Mockito.<ParsedMessage>anyList())).thenReturn(Collections.<Message>emptyList());
+        final SQSQueueMonitor monitor = new SQSQueueMonitorImpl(this.executor, null, this.queue, this.channel, this.parserFactory, QueueMetrics.detached("queue"), null, messageIndex);
+
+        monitor.addAll(Arrays.asList(this.listener, this.listenerB));
+        monitor.run();
+
+        Mockito.verify(messageIndex).record("message-1", Collections.singletonList("commit-1"), Collections.singletonList("job-a"));
+        Mockito.verifyNoMoreInteractions(messageIndex);
+    }
+
+    @Test
+    public void shouldDropBatchReceivedAfterShutDown() throws Exception {
+        this.monitor.add(this.listener);
+        Mockito.when(this.channel.getMessages()).thenAnswer(new Answer<List<Message>>() {
+
+            @Override
+            public List<Message> answer(final InvocationOnMock invocation) {
+                SQSQueueMonitorImplTest.this.monitor.shutDown();
+                return SQSQueueMonitorImplTest.this.messages;
+            }
+        });
+
+        this.monitor.run();
+
+        Mockito.verify(this.listener, Mockito.never()).handleParsedMessages(Mockito.<ParsedMessage>anyList());
+        Mockito.verify(this.channel, Mockito.never()).deleteMessagesAsync(Mockito.<Message>anyList());
+        Mockito.verify(this.channel).close();
+        assertThat(this.monitor.awaitTermination(0, TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    @Test
+    public void shouldCloseChannelOnceBatchInFlightIsProcessed() throws Exception {
+        final ExecutorService matchingExecutor = Mockito.mock(ExecutorService.class);
+        final SQSQueueMonitor monitor = this.createMonitor(matchingExecutor, null);
+        monitor.add(this.listener);
+        monitor.run();
+
+        final ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(matchingExecutor).execute(task.capture());
+
+        monitor.shutDown();
+        Mockito.verify(this.channel, Mockito.never()).close();
+        assertThat(monitor.awaitTermination(0, TimeUnit.MILLISECONDS)).isFalse();
+
+        task.getValue().run();
+
+        InOrder inOrder = Mockito.inOrder(this.listener, this.channel);
+        inOrder.verify(this.listener).handleParsedMessages(Mockito.<ParsedMessage>anyList());
+        inOrder.verify(this.channel).deleteMessagesAsync(this.messages);
+        inOrder.verify(this.channel).close();
+        assertThat(monitor.awaitTermination(0, TimeUnit.MILLISECONDS)).isTrue();
+    }
 }
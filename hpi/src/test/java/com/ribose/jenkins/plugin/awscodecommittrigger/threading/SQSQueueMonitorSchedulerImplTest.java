@@ -24,7 +24,10 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
-import java.util.concurrent.ExecutorService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.times;
@@ -309,4 +312,82 @@ public class SQSQueueMonitorSchedulerImplTest {
         Mockito.verifyNoMoreInteractions(this.monitorA);
         Mockito.verifyNoMoreInteractions(this.monitorB);
     }
+
+    @Test
+    public void shouldCreateSingleMonitorForConcurrentRegistrations() throws Exception {
+        final int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final List<Future<Boolean>> results = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < threads; i++) {
+                final SQSQueueListener listener = i % 2 == 0 ? this.listenerA1 : this.listenerA2;
+                results.add(pool.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        start.await();
+                        return SQSQueueMonitorSchedulerImplTest.this.scheduler.register(listener);
+                    }
+                }));
+            }
+            start.countDown();
+
+            for (final Future<Boolean> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isTrue();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Mockito.verify(this.factory, times(1)).createMonitor(this.executor, this.queueA);
+        Mockito.verify(this.monitorA, times(threads / 2)).add(this.listenerA1);
+        Mockito.verify(this.monitorA, times(threads / 2)).add(this.listenerA2);
+        assertThat(this.scheduler.getMonitor(UUID_A)).isSameAs(this.monitorA);
+    }
+
+    @Test
+    public void shouldRegisterAllListenersOfQueueInOneStep() {
+        final SQSQueueListener unknown = Mockito.mock(SQSQueueListener.class);
+        Mockito.when(unknown.getQueueUuid()).thenReturn("unknown");
+
+        final int result = this.scheduler.registerAll(Arrays.asList(this.listenerA1, this.listenerB1, unknown, this.listenerA2));
+
+        assertThat(result).isEqualTo(3);
+        Mockito.verify(this.provider, times(1)).getSqsQueue(UUID_A);
+        Mockito.verify(this.provider, times(1)).getSqsQueue(UUID_B);
+        Mockito.verify(this.factory, times(1)).createMonitor(this.executor, this.queueA);
+        Mockito.verify(this.factory, times(1)).createMonitor(this.executor, this.queueB);
+        Mockito.verify(this.monitorA).addAll(Arrays.asList(this.listenerA1, this.listenerA2));
+        Mockito.verify(this.monitorB).add(this.listenerB1);
+        Mockito.verifyNoMoreInteractions(this.monitorA);
+    }
+
+    @Test
+    public void shouldShutDownAllMonitors() {
+        this.scheduler.register(this.listenerA1);
+        this.scheduler.register(this.listenerB1);
+
+        this.scheduler.shutDown();
+
+        Mockito.verify(this.monitorA).shutDown();
+        Mockito.verify(this.monitorB).shutDown();
+        assertThat(this.scheduler.getMonitor(UUID_A)).isNull();
+        assertThat(this.scheduler.getMonitor(UUID_B)).isNull();
+    }
+
+    @Test
+    public void shouldAwaitMonitorsShutDown() throws Exception {
+        Mockito.when(this.monitorA.awaitTermination(Mockito.anyLong(), Mockito.any(TimeUnit.class))).thenReturn(true);
+        Mockito.when(this.monitorB.awaitTermination(Mockito.anyLong(), Mockito.any(TimeUnit.class))).thenReturn(false, true);
+        this.scheduler.register(this.listenerA1);
+        this.scheduler.register(this.listenerB1);
+
+        this.scheduler.shutDown();
+
+        assertThat(this.scheduler.awaitTermination(1, TimeUnit.SECONDS)).isFalse();
+        assertThat(this.scheduler.awaitTermination(1, TimeUnit.SECONDS)).isTrue();
+        Mockito.verify(this.monitorA, times(1)).awaitTermination(Mockito.anyLong(), Mockito.any(TimeUnit.class));
+        Mockito.verify(this.monitorB, times(2)).awaitTermination(Mockito.anyLong(), Mockito.any(TimeUnit.class));
+    }
 }
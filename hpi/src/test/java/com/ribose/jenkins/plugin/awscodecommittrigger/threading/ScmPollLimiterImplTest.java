@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 Ribose Inc. <https://www.ribose.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ribose.jenkins.plugin.awscodecommittrigger.threading;
+
+import com.ribose.jenkins.plugin.awscodecommittrigger.interfaces.ScmPollLimiter;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class ScmPollLimiterImplTest {
+
+    private static final String HOST_A = "git-codecommit.us-west-2.amazonaws.com";
+    private static final String HOST_B = "git-codecommit.eu-west-1.amazonaws.com";
+
+    private final ScmPollLimiterImpl limiter = new ScmPollLimiterImpl();
+
+    @Test
+    public void shouldLimitPollsPerHost() throws Exception {
+        this.limiter.configure(10, 1, 0);
+        final ScmPollLimiter.Permit permit = this.limiter.acquire(Collections.singletonList(HOST_A));
+
+        final ScmPollLimiter.Permit other = this.limiter.acquire(Collections.singletonList(HOST_B));
+        assertThat(this.limiter.getInFlight()).isEqualTo(2);
+        other.close();
+
+        final Future<ScmPollLimiter.Permit> waiting = this.acquireAsync(HOST_A);
+        assertThat(this.isBlocked(waiting)).isTrue();
+        assertThat(this.limiter.getWaiting()).isEqualTo(1);
+
+        permit.close();
+        waiting.get(5, TimeUnit.SECONDS).close();
+        assertThat(this.limiter.getInFlight()).isZero();
+        assertThat(this.limiter.getAdmittedCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldLimitPollsInTotal() throws Exception {
+        this.limiter.configure(1, 10, 0);
+        final ScmPollLimiter.Permit permit = this.limiter.acquire(Collections.singletonList(HOST_A));
+
+        final Future<ScmPollLimiter.Permit> waiting = this.acquireAsync(HOST_B);
+        assertThat(this.isBlocked(waiting)).isTrue();
+
+        this.limiter.configure(2, 10, 0);
+        waiting.get(5, TimeUnit.SECONDS).close();
+        permit.close();
+        assertThat(this.limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    public void shouldReleaseOnlyOnce() throws Exception {
+        final ScmPollLimiter.Permit permit = this.limiter.acquire(Arrays.asList(HOST_A, HOST_B));
+        permit.close();
+        permit.close();
+
+        assertThat(this.limiter.getInFlight()).isZero();
+    }
+
+    private Future<ScmPollLimiter.Permit> acquireAsync(final String host) {
+        return Executors.newSingleThreadExecutor().submit(new Callable<ScmPollLimiter.Permit>() {
+            @Override
+            public ScmPollLimiter.Permit call() throws Exception {
+                return ScmPollLimiterImplTest.this.limiter.acquire(Collections.singletonList(host));
+            }
+        });
+    }
+
+    private boolean isBlocked(final Future<?> future) throws Exception {
+        try {
+            future.get(200, TimeUnit.MILLISECONDS);
+            return false;
+        } catch (TimeoutException e) {
+            return true;
+        }
+    }
+}